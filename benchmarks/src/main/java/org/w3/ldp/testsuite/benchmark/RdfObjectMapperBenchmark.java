@@ -0,0 +1,163 @@
+package org.w3.ldp.testsuite.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3.ldp.testsuite.http.MediaTypes;
+import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.vocab.LDP;
+
+import com.github.jsonldjava.jena.JenaJSONLD;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.vocabulary.DCTerms;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.jayway.restassured.mapper.DataToDeserialize;
+import com.jayway.restassured.mapper.ObjectMapperDeserializationContext;
+import com.jayway.restassured.mapper.ObjectMapperSerializationContext;
+
+/**
+ * Serializes and parses a container representation with
+ * {@link RdfObjectMapper}, which every POST, PUT and GET of RDF goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RdfObjectMapperBenchmark {
+
+	private static final String BASE = "http://example.org/container/";
+
+	@Param({ MediaTypes.TEXT_TURTLE, MediaTypes.APPLICATION_RDF_XML, MediaTypes.APPLICATION_LD_JSON })
+	public String mediaType;
+
+	/** Number of members in the container */
+	@Param({ "10", "1000" })
+	public int members;
+
+	private RdfObjectMapper mapper;
+	private ObjectMapperSerializationContext serializationContext;
+	private ObjectMapperDeserializationContext deserializationContext;
+
+	@Setup
+	public void setUp() {
+		JenaJSONLD.init();
+		mapper = new RdfObjectMapper(BASE);
+
+		final Model model = ModelFactory.createDefaultModel();
+		Resource container = model.createResource(BASE);
+		container.addProperty(RDF.type, model.createResource(LDP.BasicContainer.stringValue()));
+		container.addProperty(DCTerms.title, "Benchmark container");
+		for (int i = 0; i < members; i++) {
+			container.addProperty(model.createProperty(LDP.contains.stringValue()), model.createResource(BASE + i));
+		}
+
+		serializationContext = new SerializationContext(model, mediaType);
+		deserializationContext = new DeserializationContext((byte[]) mapper.serialize(serializationContext), mediaType);
+	}
+
+	@Benchmark
+	public Object serialize() {
+		return mapper.serialize(serializationContext);
+	}
+
+	@Benchmark
+	public Object deserialize() {
+		return mapper.deserialize(deserializationContext);
+	}
+
+	private static class SerializationContext implements ObjectMapperSerializationContext {
+		private final Model model;
+		private final String contentType;
+
+		SerializationContext(Model model, String contentType) {
+			this.model = model;
+			this.contentType = contentType;
+		}
+
+		@Override
+		public Object getObjectToSerialize() {
+			return model;
+		}
+
+		@Override
+		public <T> T getObjectToSerializeAs(Class<T> type) {
+			return type.cast(model);
+		}
+
+		@Override
+		public String getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public String getCharset() {
+			return "UTF-8";
+		}
+	}
+
+	private static class DeserializationContext implements ObjectMapperDeserializationContext, DataToDeserialize {
+		private final byte[] data;
+		private final String contentType;
+
+		DeserializationContext(byte[] data, String contentType) {
+			this.data = data;
+			this.contentType = contentType;
+		}
+
+		@Override
+		public DataToDeserialize getDataToDeserialize() {
+			return this;
+		}
+
+		@Override
+		public Class<?> getType() {
+			return Model.class;
+		}
+
+		@Override
+		public String getCharset() {
+			return "UTF-8";
+		}
+
+		@Override
+		public String getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public String asString() {
+			try {
+				return new String(data, "UTF-8");
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public byte[] asByteArray() {
+			return data;
+		}
+
+		@Override
+		public InputStream asInputStream() {
+			return new ByteArrayInputStream(data);
+		}
+	}
+}
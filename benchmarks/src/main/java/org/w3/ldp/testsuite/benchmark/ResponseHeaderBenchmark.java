@@ -0,0 +1,149 @@
+package org.w3.ldp.testsuite.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3.ldp.testsuite.http.HttpHeaders;
+import org.w3.ldp.testsuite.http.LinkHeaders;
+import org.w3.ldp.testsuite.matcher.HeaderMatchers;
+import org.w3.ldp.testsuite.test.LdpTest;
+import org.w3.ldp.testsuite.vocab.LDP;
+
+import com.jayway.restassured.internal.RestAssuredResponseImpl;
+import com.jayway.restassured.response.Header;
+import com.jayway.restassured.response.Headers;
+import com.jayway.restassured.response.Response;
+
+/**
+ * Checks the response headers most tests look at: Link, ETag and
+ * Preference-Applied. Each runs at least once per request, so overhead here
+ * is added to every latency the suite reports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseHeaderBenchmark {
+
+	private static final String RESOURCE = "http://www.w3.org/ns/ldp#Resource";
+	private static final String CONSTRAINED_BY = "http://www.w3.org/ns/ldp#constrainedBy";
+
+	private HeaderChecks checks;
+	private List<Header> links;
+	private LinkHeaders linkIndex;
+	private Response preferenceApplied;
+	private Response preferenceNotApplied;
+	private Matcher<String> entityTag;
+
+	@Setup
+	public void setUp() {
+		checks = new HeaderChecks();
+
+		// Link headers as a typical container sends them, one combined and one separate
+		links = Arrays.asList(
+				new Header(HttpHeaders.LINK, "<" + RESOURCE + ">; rel=\"type\", <"
+						+ LDP.BasicContainer.stringValue() + ">; rel=\"type\""),
+				new Header(HttpHeaders.LINK, "<http://example.org/constraints>; rel=\"" + CONSTRAINED_BY + "\""));
+
+		linkIndex = LinkHeaders.parse(links);
+
+		preferenceApplied = response(new Header(HttpHeaders.PREFERNCE_APPLIED, "return=representation"));
+		preferenceNotApplied = response(new Header(HttpHeaders.ETAG, "\"1\""));
+
+		entityTag = HeaderMatchers.isValidEntityTag();
+	}
+
+	private static Response response(Header... headers) {
+		RestAssuredResponseImpl response = new RestAssuredResponseImpl();
+		response.setResponseHeaders(new Headers(headers));
+		return response;
+	}
+
+	@Benchmark
+	public boolean containsLinkHeaderFound() {
+		return checks.containsLinkHeader(LDP.BasicContainer.stringValue(), LdpTest.LINK_REL_TYPE, links);
+	}
+
+	@Benchmark
+	public boolean containsLinkHeaderMissing() {
+		return checks.containsLinkHeader(LDP.DirectContainer.stringValue(), LdpTest.LINK_REL_TYPE, links);
+	}
+
+	@Benchmark
+	public LinkHeaders parseLinkHeaders() {
+		return LinkHeaders.parse(links);
+	}
+
+	@Benchmark
+	public boolean linkHeadersContains() {
+		return linkIndex.contains(LDP.BasicContainer.stringValue(), LdpTest.LINK_REL_TYPE);
+	}
+
+	@Benchmark
+	public String getFirstLinkForRelation() {
+		return checks.getFirstLinkForRelation(CONSTRAINED_BY, links);
+	}
+
+	@Benchmark
+	public boolean isPreferenceApplied() {
+		return checks.isPreferenceApplied(preferenceApplied);
+	}
+
+	@Benchmark
+	public boolean isPreferenceNotApplied() {
+		return checks.isPreferenceApplied(preferenceNotApplied);
+	}
+
+	@Benchmark
+	public boolean isValidEntityTagStrong() {
+		return entityTag.matches("\"686897696a7c876b7e\"");
+	}
+
+	@Benchmark
+	public boolean isValidEntityTagWeak() {
+		return entityTag.matches("W/\"686897696a7c876b7e\"");
+	}
+
+	@Benchmark
+	public boolean isValidEntityTagInvalid() {
+		return entityTag.matches("686897696a7c876b7e");
+	}
+
+	/**
+	 * Exposes the header checks {@link LdpTest} gives its subclasses.
+	 */
+	private static class HeaderChecks extends LdpTest {
+		HeaderChecks() {
+			super(null);
+		}
+
+		@Override
+		public boolean containsLinkHeader(String uri, String rel, List<Header> headers) {
+			return super.containsLinkHeader(uri, rel, headers);
+		}
+
+		@Override
+		public String getFirstLinkForRelation(String rel, List<Header> headers) {
+			return super.getFirstLinkForRelation(rel, headers);
+		}
+
+		@Override
+		public boolean isPreferenceApplied(Response response) {
+			return super.isPreferenceApplied(response);
+		}
+	}
+}
@@ -1,12 +1,16 @@
 package org.w3.ldp.testsuite;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.cli.BasicParser;
@@ -22,18 +26,42 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
-import org.testng.IMethodInstance;
-import org.testng.IMethodInterceptor;
 import org.testng.ITestContext;
 import org.testng.TestNG;
 import org.testng.xml.XmlClass;
 import org.testng.xml.XmlSuite;
 import org.testng.xml.XmlTest;
+import org.w3.ldp.testsuite.consistency.ConsistencyMonitor;
+import org.w3.ldp.testsuite.http.Authenticator;
+import org.w3.ldp.testsuite.http.BasicCredentials;
+import org.w3.ldp.testsuite.http.BearerToken;
+import org.w3.ldp.testsuite.http.CredentialProvider;
+import org.w3.ldp.testsuite.http.HttpClientPool;
+import org.w3.ldp.testsuite.http.OAuth2TokenProvider;
+import org.w3.ldp.testsuite.http.RepresentationCache;
+import org.w3.ldp.testsuite.http.ServerProfiles;
+import org.w3.ldp.testsuite.load.LoadGenerator;
+import org.w3.ldp.testsuite.replay.ExchangeRecorder;
+import org.w3.ldp.testsuite.replay.ReplayServer;
+import org.w3.ldp.testsuite.reporter.LdpConsistencyReporter;
 import org.w3.ldp.testsuite.reporter.LdpEarlReporter;
 import org.w3.ldp.testsuite.reporter.LdpHtmlReporter;
+import org.w3.ldp.testsuite.reporter.LdpJournal;
+import org.w3.ldp.testsuite.reporter.LdpJournalListener;
+import org.w3.ldp.testsuite.reporter.LdpJournalReporter;
+import org.w3.ldp.testsuite.reporter.LdpLoadReporter;
 import org.w3.ldp.testsuite.reporter.LdpTestListener;
+import org.w3.ldp.testsuite.server.EmbeddedLdpServer;
+import org.w3.ldp.testsuite.test.ClusterConsistencyTest;
+import org.w3.ldp.testsuite.test.ConcurrentCreateTest;
+import org.w3.ldp.testsuite.test.ConcurrentUpdateTest;
+import org.w3.ldp.testsuite.test.ContainerScalabilityTest;
+import org.w3.ldp.testsuite.test.FixtureManager;
 import org.w3.ldp.testsuite.test.LdpTest;
+import org.w3.ldp.testsuite.test.PagingTest;
+import org.w3.ldp.testsuite.test.PatchBenchmarkTest;
 import org.w3.ldp.testsuite.transformer.MethodEnabler;
+import org.w3.ldp.testsuite.transformer.MethodSelector;
 import org.w3.ldp.testsuite.util.OptionsHandler;
 
 /**
@@ -51,6 +79,14 @@ public class LdpTestSuite {
 
 	private final TestNG testng;
 
+	/** Resources to profile before the tests run, the container first, or empty to skip discovery */
+	private final List<String> discoveryUris = new ArrayList<>();
+	private File profileFile;
+	private CredentialProvider discoveryCredentials;
+	private ReplayServer replayServer;
+
+	private EmbeddedLdpServer embeddedServer;
+
 	enum ContainerType {
 		BASIC, DIRECT, INDIRECT
 	}
@@ -112,24 +148,143 @@ public class LdpTestSuite {
 			}
 		}
 
+		// run test methods or classes in parallel
+		if (options.hasOptionWithValue("parallel")) {
+			final String parallel = options.getOptionValue("parallel");
+			if (!XmlSuite.PARALLEL_METHODS.equals(parallel) && !XmlSuite.PARALLEL_CLASSES.equals(parallel)) {
+				throw new IllegalArgumentException("ERROR: invalid parallel mode, expected methods or classes");
+			}
+			testsuite.setParallel(parallel);
+
+			if (options.hasOptionWithValue("threads")) {
+				testsuite.setThreadCount(getPositiveInt(options, "threads"));
+			}
+		} else if (options.hasOption("threads")) {
+			throw new IllegalArgumentException("ERROR: threads requires a parallel mode");
+		}
+
+		// connection pool settings
+		if (options.hasOptionWithValue("max-connections")) {
+			HttpClientPool.setMaxTotal(getPositiveInt(options, "max-connections"));
+		}
+		if (options.hasOptionWithValue("max-connections-per-route")) {
+			HttpClientPool.setMaxPerRoute(getPositiveInt(options, "max-connections-per-route"));
+		}
+		if (options.hasOptionWithValue("idle-timeout")) {
+			HttpClientPool.setIdleTimeout(getPositiveInt(options, "idle-timeout") * 1000L);
+		}
+		if (options.hasOptionWithValue("keep-alive")) {
+			HttpClientPool.setKeepAlive(getPositiveInt(options, "keep-alive") * 1000L);
+		}
+		if (options.hasOptionWithValue("lease-timeout")) {
+			HttpClientPool.setLeaseTimeout(getPositiveInt(options, "lease-timeout") * 1000L);
+		}
+		if (options.hasOption("no-tcp-nodelay")) {
+			HttpClientPool.setTcpNoDelay(false);
+		} else if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			// The JDK's HTTP server, behind the embedded and replay servers,
+			// leaves Nagle's algorithm on unless told otherwise before it starts.
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+
+		if (options.hasOption("cache-representations")) {
+			RepresentationCache.setEnabled(true);
+		}
+
+		// replay tests as a load test
+		if (options.hasOption("load")) {
+			LoadGenerator.setEnabled(true);
+			if (options.hasOptionWithValue("users")) {
+				LoadGenerator.setUsers(getPositiveInt(options, "users"));
+			}
+			if (options.hasOptionWithValue("duration") && options.hasOptionWithValue("iterations")) {
+				throw new IllegalArgumentException("ERROR: use either duration or iterations, not both");
+			} else if (options.hasOptionWithValue("duration")) {
+				LoadGenerator.setDuration(getPositiveInt(options, "duration") * 1000L);
+			} else if (options.hasOptionWithValue("iterations")) {
+				LoadGenerator.setIterations(getPositiveInt(options, "iterations"));
+			}
+		} else if (options.hasOption("users") || options.hasOption("duration") || options.hasOption("iterations")) {
+			throw new IllegalArgumentException("ERROR: users, duration and iterations require load mode");
+		}
+
+		// threads that may each take a fixture from the same test class
+		int fixtureThreads = XmlSuite.PARALLEL_METHODS.equals(testsuite.getParallel()) ? testsuite.getThreadCount() : 1;
+		if (LoadGenerator.isEnabled()) {
+			fixtureThreads += LoadGenerator.getUsers();
+		}
+		FixtureManager.setConcurrency(fixtureThreads);
+
+		// wait for writes to become visible on eventually consistent servers
+		if (options.hasOption("consistency")) {
+			ConsistencyMonitor.setEnabled(true);
+			if (options.hasOptionWithValue("consistency-timeout")) {
+				ConsistencyMonitor.setTimeout(getPositiveInt(options, "consistency-timeout") * 1000L);
+			}
+		} else if (options.hasOption("consistency-timeout")) {
+			throw new IllegalArgumentException("ERROR: consistency-timeout requires consistency mode");
+		}
+
 		// create XmlTest instance
 		XmlTest test = new XmlTest(testsuite);
 		test.setName("W3C Linked Data Platform Tests");
 
 		// Add any parameters that you want to set to the Test.
 
+		// answer requests from a recording instead of a live server
+		if (options.hasOptionWithValue("replay")) {
+			if (options.hasOption("record")) {
+				throw new IllegalArgumentException("ERROR: use either record or replay, not both");
+			}
+			try {
+				replayServer = new ReplayServer(new File(options.getOptionValue("replay")));
+				replayServer.start();
+				if (replayServer.getRunId() != null) {
+					LdpTest.setRunId(replayServer.getRunId());
+				}
+			} catch (IOException e) {
+				throw new IllegalArgumentException("ERROR: unable to replay, " + e.getLocalizedMessage());
+			}
+		}
+
+		// run against an in-memory server started by the suite
+		if (options.hasOption("embedded")) {
+			if (options.hasOption("server") || replayServer != null) {
+				throw new IllegalArgumentException("ERROR: the embedded server can't be combined with server or replay");
+			}
+			try {
+				embeddedServer = new EmbeddedLdpServer();
+				embeddedServer.start();
+			} catch (IOException e) {
+				throw new IllegalArgumentException("ERROR: unable to start the embedded server, " + e.getLocalizedMessage());
+			}
+		}
+
 		final String server;
-		if (options.hasOption("server")) {
-			server = options.getOptionValue("server");
+		if (embeddedServer != null) {
+			server = embeddedServer.getUri(getEmbeddedContainer(options));
+		} else if (options.hasOption("server")) {
+			server = replayServer != null
+					? replayServer.rewrite(options.getOptionValue("server")) : options.getOptionValue("server");
 			try {
 				checkUriScheme(server);
 			} catch (Exception e) {
 				throw new IllegalArgumentException("ERROR: invalid server uri, " + e.getLocalizedMessage());
 			}
+		} else if (replayServer != null) {
+			server = replayServer.getServer();
 		} else {
 			throw new IllegalArgumentException("ERROR: missing server uri");
 		}
 
+		if (options.hasOptionWithValue("record")) {
+			try {
+				ExchangeRecorder.start(new File(options.getOptionValue("record")), server, LdpTest.getRunId());
+			} catch (IOException e) {
+				throw new IllegalArgumentException("ERROR: unable to record, " + e.getLocalizedMessage());
+			}
+		}
+
 		// Listener injection from options
 		final String[] listeners;
 		if (options.hasOption("listeners")) {
@@ -148,8 +303,73 @@ public class LdpTestSuite {
 		}
 
 		testng.addListener(new LdpTestListener());
-		testng.addListener(new LdpEarlReporter());
-		testng.addListener(new LdpHtmlReporter());
+
+		// Shard of the tests to run, as i/N
+		int shard = 0;
+		int shards = 0;
+		if (options.hasOption("shard")) {
+			String value = options.getOptionValue("shard");
+			try {
+				String[] split = value.split("/");
+				shard = Integer.parseInt(split[0].trim());
+				shards = Integer.parseInt(split[1].trim());
+			} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				// checked below
+			}
+			if (shards < 1 || shard < 1 || shard > shards) {
+				throw new IllegalArgumentException("ERROR: invalid shard, expected i/N with 1 <= i <= N but got " + value);
+			}
+		}
+
+		// Time budget for the tests, such as 60s or 2m
+		long budget = 0;
+		if (options.hasOption("budget")) {
+			budget = getBudget(options.getOptionValue("budget"));
+		}
+		if (options.hasOption("history") && shards == 0 && budget == 0) {
+			throw new IllegalArgumentException("ERROR: history requires shard or budget");
+		}
+
+		// Journal of results, and the statuses in it of the tests to rerun
+		final File journal;
+		if (options.hasOptionWithValue("journal")) {
+			journal = new File(options.getOptionValue("journal"));
+		} else if (shards > 0) {
+			journal = new File(String.format(LdpJournalListener.SHARD_FILE, shard, shards));
+		} else {
+			journal = new File(LdpJournalListener.DEFAULT_FILE);
+		}
+		final boolean rerunFailed = options.hasOption("rerun-failed");
+		final boolean resume = options.hasOption("resume");
+		Map<String, String> journaled = null;
+		if (rerunFailed || resume) {
+			if (!journal.isFile()) {
+				throw new IllegalArgumentException("ERROR: no journal of a previous run found at " + journal);
+			}
+			try {
+				journaled = LdpJournal.readStatuses(journal);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("ERROR: unable to read journal, " + e.getLocalizedMessage());
+			}
+		}
+		try {
+			testng.addListener(new LdpJournalListener(journal, journaled != null));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("ERROR: unable to create journal, " + e.getLocalizedMessage());
+		}
+		if (journaled != null) {
+			// Report the new results merged with the earlier ones.
+			testng.addListener(new LdpJournalReporter(journal));
+		} else {
+			testng.addListener(new LdpEarlReporter());
+			testng.addListener(new LdpHtmlReporter());
+		}
+		if (LoadGenerator.isEnabled()) {
+			testng.addListener(new LdpLoadReporter());
+		}
+		if (ConsistencyMonitor.isEnabled()) {
+			testng.addListener(new LdpConsistencyReporter());
+		}
 
 		// Add method enabler (Annotation Transformer)
 		testng.addListener(new MethodEnabler());
@@ -177,10 +397,14 @@ public class LdpTestSuite {
 				throw new IllegalArgumentException("ERROR: invalid containerAsResource uri, " + e.getLocalizedMessage());
 			}
 			parameters.put("containerAsResource", containerAsResource);
+		} else if (embeddedServer != null) {
+			parameters.put("containerAsResource", embeddedServer.getUri(EmbeddedLdpServer.RESOURCE));
 		}
 
 		if (options.hasOption("read-only-prop")) {
 			parameters.put("readOnlyProp", options.getOptionValue("read-only-prop"));
+		} else if (embeddedServer != null) {
+			parameters.put("readOnlyProp", EmbeddedLdpServer.READ_ONLY_PROPERTY);
 		}
 
 		if (options.hasOptionWithValue("auth")) {
@@ -197,6 +421,28 @@ public class LdpTestSuite {
 			}
 		}
 
+		// credentials for all requests, unless testng.xml gives basic credentials
+		if (options.hasOptionWithValue("bearer-token") && options.hasOption("token-endpoint")) {
+			throw new IllegalArgumentException("ERROR: use either bearer-token or token-endpoint, not both");
+		} else if (options.hasOptionWithValue("bearer-token")) {
+			Authenticator.setDefaultProvider(new BearerToken(options.getOptionValue("bearer-token")));
+		} else if (options.hasOptionWithValue("token-endpoint")) {
+			final String tokenEndpoint = options.getOptionValue("token-endpoint");
+			try {
+				checkUriScheme(tokenEndpoint);
+			} catch (Exception e) {
+				throw new IllegalArgumentException("ERROR: invalid token-endpoint uri, " + e.getLocalizedMessage());
+			}
+			if (!options.hasOptionWithValue("client-id") || !options.hasOptionWithValue("client-secret")) {
+				throw new IllegalArgumentException("ERROR: token-endpoint requires client-id and client-secret");
+			}
+			Authenticator.setDefaultProvider(new OAuth2TokenProvider(tokenEndpoint,
+					options.getOptionValue("client-id"), options.getOptionValue("client-secret"),
+					options.getOptionValue("token-scope")));
+		} else if (options.hasOption("client-id") || options.hasOption("client-secret") || options.hasOption("token-scope")) {
+			throw new IllegalArgumentException("ERROR: client-id, client-secret and token-scope require token-endpoint");
+		}
+
 		// Add classes we want to test
 		final List<XmlClass> classes = new ArrayList<>();
 
@@ -242,6 +488,134 @@ public class LdpTestSuite {
 			testsuite.addIncludedGroup(LdpTest.NR);
 		}
 
+		// benchmark large containers
+		if (options.hasOption("scale")) {
+			classes.add(new XmlClass("org.w3.ldp.testsuite.test.ContainerScalabilityTest"));
+			testsuite.addIncludedGroup(LdpTest.SCALE);
+			if (options.hasOptionWithValue("scale-sizes")) {
+				parameters.put("scaleSizes", StringUtils.join(getPositiveInts(options, "scale-sizes"), ','));
+			}
+			if (options.hasOptionWithValue("scale-threads")) {
+				parameters.put("scaleThreads", String.valueOf(getPositiveInt(options, "scale-threads")));
+			}
+		} else if (options.hasOption("scale-sizes") || options.hasOption("scale-threads")) {
+			throw new IllegalArgumentException("ERROR: scale-sizes and scale-threads require scale mode");
+		}
+
+		// benchmark conditional updates by concurrent clients
+		if (options.hasOption("contention")) {
+			classes.add(new XmlClass("org.w3.ldp.testsuite.test.ConcurrentUpdateTest"));
+			testsuite.addIncludedGroup(LdpTest.CONTENTION);
+			if (options.hasOptionWithValue("contention-levels")) {
+				parameters.put("contentionLevels", StringUtils.join(getPositiveInts(options, "contention-levels"), ','));
+			}
+			if (options.hasOptionWithValue("contention-cycles")) {
+				parameters.put("contentionCycles", String.valueOf(getPositiveInt(options, "contention-cycles")));
+			}
+
+			classes.add(new XmlClass("org.w3.ldp.testsuite.test.ConcurrentCreateTest"));
+			if (options.hasOptionWithValue("storm-requests")) {
+				parameters.put("stormRequests", String.valueOf(getPositiveInt(options, "storm-requests")));
+			}
+			if (options.hasOptionWithValue("storm-slug")) {
+				final String slug = options.getOptionValue("storm-slug");
+				try {
+					ConcurrentCreateTest.SlugMode.valueOf(slug.toUpperCase());
+				} catch (IllegalArgumentException e) {
+					throw new IllegalArgumentException("ERROR: invalid storm-slug, expected shared, distinct or none but got " + slug);
+				}
+				parameters.put("stormSlug", slug);
+			}
+		} else if (options.hasOption("contention-levels") || options.hasOption("contention-cycles")
+				|| options.hasOption("storm-requests") || options.hasOption("storm-slug")) {
+			throw new IllegalArgumentException("ERROR: contention-levels, contention-cycles, storm-requests and "
+					+ "storm-slug require contention mode");
+		}
+
+		// compare PATCH with PUT for resources of growing size
+		if (options.hasOption("patch-benchmark")) {
+			classes.add(new XmlClass("org.w3.ldp.testsuite.test.PatchBenchmarkTest"));
+			testsuite.addIncludedGroup(LdpTest.PATCH_BENCHMARK);
+			if (options.hasOptionWithValue("patch-sizes")) {
+				parameters.put("patchSizes", StringUtils.join(getPositiveInts(options, "patch-sizes"), ','));
+			}
+		} else if (options.hasOption("patch-sizes")) {
+			throw new IllegalArgumentException("ERROR: patch-sizes requires patch-benchmark mode");
+		}
+
+		// walk the pages of a large container
+		if (options.hasOption("paging")) {
+			classes.add(new XmlClass("org.w3.ldp.testsuite.test.PagingTest"));
+			testsuite.addIncludedGroup(LdpTest.PAGING);
+			if (options.hasOptionWithValue("paging-members")) {
+				parameters.put("pagingMembers", String.valueOf(getPositiveInt(options, "paging-members")));
+			}
+			if (options.hasOptionWithValue("paging-page-size")) {
+				parameters.put("pagingPageSize", String.valueOf(getPositiveInt(options, "paging-page-size")));
+			}
+			if (options.hasOption("paging-prefetch")) {
+				parameters.put("pagingPrefetch", "true");
+			}
+		} else if (options.hasOption("paging-members") || options.hasOption("paging-page-size")
+				|| options.hasOption("paging-prefetch")) {
+			throw new IllegalArgumentException("ERROR: paging-members, paging-page-size and paging-prefetch "
+					+ "require paging mode");
+		}
+
+		// check replication across several servers fronting the same store
+		if (options.hasOption("cluster")) {
+			if (embeddedServer != null || replayServer != null) {
+				throw new IllegalArgumentException("ERROR: cluster mode can't be combined with embedded or replay");
+			}
+			final String[] nodes = options.getOptionValues("server");
+			if (nodes.length < 2) {
+				throw new IllegalArgumentException("ERROR: cluster mode requires at least two server uris");
+			}
+			for (String node : nodes) {
+				try {
+					checkUriScheme(node);
+				} catch (Exception e) {
+					throw new IllegalArgumentException("ERROR: invalid server uri, " + e.getLocalizedMessage());
+				}
+			}
+			classes.add(new XmlClass("org.w3.ldp.testsuite.test.ClusterConsistencyTest"));
+			testsuite.addIncludedGroup(LdpTest.CLUSTER);
+			parameters.put("clusterNodes", StringUtils.join(nodes, ','));
+			if (options.hasOptionWithValue("cluster-samples")) {
+				parameters.put("clusterSamples", String.valueOf(getPositiveInt(options, "cluster-samples")));
+			}
+		} else if (options.hasOption("server") && options.getOptionValues("server").length > 1) {
+			throw new IllegalArgumentException("ERROR: more than one server uri requires cluster mode");
+		} else if (options.hasOption("cluster-samples")) {
+			throw new IllegalArgumentException("ERROR: cluster-samples requires cluster mode");
+		}
+
+		if (replayServer != null) {
+			// URIs of the recorded server are served by the replay server
+			for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+				parameter.setValue(replayServer.rewrite(parameter.getValue()));
+			}
+		}
+
+		// profile the server once up front instead of in each test class, unless
+		// recording or replaying, where the tests' own requests have to match
+		if (!options.hasOption("no-discovery") && !options.hasOption("record") && replayServer == null) {
+			discoveryUris.add(server);
+			for (String name : new String[] { "containerAsResource", "memberResource" }) {
+				if (parameters.containsKey(name) && !discoveryUris.contains(parameters.get(name))) {
+					discoveryUris.add(parameters.get(name));
+				}
+			}
+			profileFile = new File(options.hasOptionWithValue("profile-file")
+					? options.getOptionValue("profile-file") : ServerProfiles.DEFAULT_FILE);
+			discoveryCredentials = BasicCredentials.parse(parameters.get("auth"));
+			if (discoveryCredentials == null) {
+				discoveryCredentials = Authenticator.getDefaultProvider();
+			}
+		} else if (options.hasOption("profile-file")) {
+			throw new IllegalArgumentException("ERROR: profile-file requires discovery");
+		}
+
 		test.setXmlClasses(classes);
 
 		final List<XmlTest> tests = new ArrayList<>();
@@ -254,6 +628,7 @@ public class LdpTestSuite {
 		suites.add(testsuite);
 		testng.setXmlSuites(suites);
 
+		MethodSelector selector = new MethodSelector();
 		if (options.hasOption("test")) {
 			final String[] testNamePatterns = options.getOptionValues("test");
 			for (int i = 0; i < testNamePatterns.length; i++) {
@@ -261,23 +636,89 @@ public class LdpTestSuite {
 				// Convert the wildcard pattern into a regex to use internally.
 				testNamePatterns[i] = wildcardPatternToRegex(testNamePatterns[i]);
 			}
-
+			selector.setTestNamePatterns(testNamePatterns);
+		}
+		if (journaled != null) {
+			selector.setRerun(journaled, rerunFailed, resume);
+		}
+		if (shards > 0) {
+			selector.setShard(shard, shards);
+		}
+		if (budget > 0) {
+			selector.setBudget(budget);
+		}
+		if (options.hasOption("history")) {
+			List<File> history = new ArrayList<>();
+			for (String file : options.getOptionValues("history")) {
+				history.add(new File(file));
+			}
+			try {
+				selector.setDurations(LdpJournal.readDurations(history));
+			} catch (IOException e) {
+				throw new IllegalArgumentException("ERROR: unable to read history, " + e.getLocalizedMessage());
+			}
+		} else if (budget > 0) {
+			System.err.println("WARNING: no history to estimate test durations from, assuming each test takes 1s");
+		}
+		if (selector.isEnabled()) {
 			// Add a method intercepter to filter the list for matching tests.
-			testng.addListener(new IMethodInterceptor() {
-				@Override
-				public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
-					ArrayList<IMethodInstance> toRun = new ArrayList<>();
-					for (IMethodInstance method : methods) {
-						for (String testNamePattern : testNamePatterns) {
-							if (method.getMethod().getMethodName().matches(testNamePattern)) {
-								toRun.add(method);
-							}
-						}
-					}
-					return toRun;
+			testng.addListener(selector);
+		}
+	}
+
+	/**
+	 * @param value a time such as 60s, 2m or 500ms, in seconds if it has no unit
+	 * @return the time in milliseconds
+	 */
+	private static long getBudget(String value) {
+		Matcher m = Pattern.compile("(\\d+)\\s*(ms|s|m)?").matcher(value.trim());
+		if (m.matches()) {
+			long amount = Long.parseLong(m.group(1));
+			String unit = m.group(2) != null ? m.group(2) : "s";
+			long millis = "ms".equals(unit) ? amount : "s".equals(unit) ? amount * 1000 : amount * 60000;
+			if (millis > 0) {
+				return millis;
+			}
+		}
+
+		throw new IllegalArgumentException("ERROR: invalid budget, expected a time such as 60s, 2m or 500ms but got "
+				+ value);
+	}
+
+	private static int getPositiveInt(OptionsHandler options, String name) {
+		final String value = options.getOptionValue(name);
+		try {
+			int i = Integer.parseInt(value);
+			if (i > 0) {
+				return i;
+			}
+		} catch (NumberFormatException e) {
+			// fall through
+		}
+
+		throw new IllegalArgumentException("ERROR: invalid " + name + ", expected a positive integer but got " + value);
+	}
+
+	/**
+	 * @return the comma separated positive integers of an option
+	 */
+	private static List<Integer> getPositiveInts(OptionsHandler options, String name) {
+		final List<Integer> ints = new ArrayList<Integer>();
+		for (String value : options.getOptionValue(name).split("\\s*,\\s*")) {
+			try {
+				int i = Integer.parseInt(value);
+				if (i > 0) {
+					ints.add(i);
+					continue;
 				}
-			});
+			} catch (NumberFormatException e) {
+				// fall through
+			}
+
+			throw new IllegalArgumentException("ERROR: invalid " + name + ", expected positive integers but got " + value);
 		}
+
+		return ints;
 	}
 
 	public String wildcardPatternToRegex(String wildcardPattern) {
@@ -296,7 +737,20 @@ public class LdpTestSuite {
 	}
 
 	public void run() {
-		testng.run();
+		try {
+			if (!discoveryUris.isEmpty()) {
+				ServerProfiles.discover(discoveryUris, discoveryCredentials, profileFile);
+			}
+			testng.run();
+		} finally {
+			ExchangeRecorder.stop();
+			if (replayServer != null) {
+				replayServer.stop();
+			}
+			if (embeddedServer != null) {
+				embeddedServer.stop();
+			}
+		}
 	}
 
 	public int getStatus() {
@@ -311,13 +765,39 @@ public class LdpTestSuite {
 		Options options = new Options();
 
 		options.addOption(OptionBuilder.withLongOpt("server")
-				.withDescription("server url to run the test suite").hasArg()
-				.withArgName("server").isRequired().create());
+				.withDescription("server url to run the test suite, required unless replaying or embedded, "
+						+ "repeated for each node in cluster mode").hasArg()
+				.withArgName("server").create());
 
 		options.addOption(OptionBuilder.withLongOpt("auth")
 				.withDescription("server basic authentication credentials following the syntax username:password").hasArg()
 				.withArgName("username:password").create());
 
+		options.addOption(OptionBuilder.withLongOpt("bearer-token")
+				.withDescription("OAuth 2.0 bearer token to send with every request")
+				.hasArg().withArgName("token")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("token-endpoint")
+				.withDescription("OAuth 2.0 token endpoint to get bearer tokens from with the client credentials grant")
+				.hasArg().withArgName("uri")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("client-id")
+				.withDescription("OAuth 2.0 client identifier for the token endpoint")
+				.hasArg().withArgName("id")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("client-secret")
+				.withDescription("OAuth 2.0 client secret for the token endpoint")
+				.hasArg().withArgName("secret")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("token-scope")
+				.withDescription("scope to request from the token endpoint")
+				.hasArg().withArgName("scope")
+				.create());
+
 		options.addOption(OptionBuilder.withLongOpt("software")
 				.withDescription("title of the software test suite runs on")
 				.hasArg().withArgName("software").isRequired(false).create());
@@ -344,7 +824,9 @@ public class LdpTestSuite {
 		containerType.addOption(OptionBuilder.withLongOpt("indirect")
 				.withDescription("the server url is an indirect container")
 				.create());
-		containerType.setRequired(true);
+		// Reports from journals don't need a container type, or any other option.
+		containerType.setRequired(!Arrays.asList(args).contains("--report-from-journal")
+				&& !Arrays.asList(args).contains("--merge"));
 		options.addOptionGroup(containerType);
 
 		options.addOption(OptionBuilder.withLongOpt("non-rdf")
@@ -374,6 +856,244 @@ public class LdpTestSuite {
 				.hasArg().withArgName("uri")
 				.create());
 
+		options.addOption(OptionBuilder.withLongOpt("parallel")
+				.withDescription("run tests in parallel, either methods or classes")
+				.hasArg().withArgName("methods|classes")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("threads")
+				.withDescription("number of threads for parallel runs")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("max-connections")
+				.withDescription("maximum number of pooled HTTP connections (default "
+						+ HttpClientPool.DEFAULT_MAX_TOTAL + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("max-connections-per-route")
+				.withDescription("maximum number of pooled HTTP connections per host (default "
+						+ HttpClientPool.DEFAULT_MAX_PER_ROUTE + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("idle-timeout")
+				.withDescription("close pooled connections idle for longer than this (default "
+						+ HttpClientPool.DEFAULT_IDLE_TIMEOUT / 1000 + "s)")
+				.hasArg().withArgName("seconds")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("keep-alive")
+				.withDescription("keep-alive time when the server doesn't send one (default "
+						+ HttpClientPool.DEFAULT_KEEP_ALIVE / 1000 + "s)")
+				.hasArg().withArgName("seconds")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("lease-timeout")
+				.withDescription("fail a request that waits longer than this for a pooled connection (default "
+						+ HttpClientPool.DEFAULT_LEASE_TIMEOUT / 1000 + "s)")
+				.hasArg().withArgName("seconds")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("no-tcp-nodelay")
+				.withDescription("leave Nagle's algorithm enabled on HTTP connections")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("cache-representations")
+				.withDescription("reuse parsed RDF representations while their ETag is unchanged (If-None-Match)")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("load")
+				.withDescription("after each test passes, replay it concurrently and report throughput and latency")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("users")
+				.withDescription("number of virtual users in load mode (default "
+						+ LoadGenerator.DEFAULT_USERS + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("duration")
+				.withDescription("how long to load each test (default "
+						+ LoadGenerator.DEFAULT_DURATION / 1000 + "s)")
+				.hasArg().withArgName("seconds")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("iterations")
+				.withDescription("how many times to run each test in load mode, instead of a duration")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("consistency")
+				.withDescription("poll with backoff until a write is visible instead of failing on the first stale read, "
+						+ "and report how long writes took to become visible")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("consistency-timeout")
+				.withDescription("seconds to wait for a write to become visible in consistency mode (default "
+						+ ConsistencyMonitor.DEFAULT_TIMEOUT / 1000 + "s)")
+				.hasArg().withArgName("seconds")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("scale")
+				.withDescription("benchmark GET, Prefer and DELETE against containers with many members")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("scale-sizes")
+				.withDescription("member counts to benchmark, separated by commas (default "
+						+ ContainerScalabilityTest.DEFAULT_SIZES + ")")
+				.hasArg().withArgName("n,n,...")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("scale-threads")
+				.withDescription("concurrent requests when creating and deleting members (default "
+						+ ContainerScalabilityTest.DEFAULT_THREADS + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("contention")
+				.withDescription("benchmark concurrent GET, modify and PUT with If-Match against one resource, "
+						+ "and concurrent POSTs to the container")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("contention-levels")
+				.withDescription("numbers of concurrent writers to benchmark, separated by commas (default "
+						+ ConcurrentUpdateTest.DEFAULT_LEVELS + ")")
+				.hasArg().withArgName("n,n,...")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("contention-cycles")
+				.withDescription("read-modify-write cycles per writer at each level (default "
+						+ ConcurrentUpdateTest.DEFAULT_CYCLES + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("storm-requests")
+				.withDescription("POSTs to send at each contention level (default "
+						+ ConcurrentCreateTest.DEFAULT_REQUESTS + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("storm-slug")
+				.withDescription("Slug of the POSTs in contention mode: shared, distinct or none (default "
+						+ ConcurrentCreateTest.DEFAULT_SLUG_MODE.name().toLowerCase() + ")")
+				.hasArg().withArgName("mode")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("patch-benchmark")
+				.withDescription("compare updating one triple with PATCH and with PUT of the whole graph, "
+						+ "for resources of increasing size")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("patch-sizes")
+				.withDescription("resource sizes in triples to benchmark, separated by commas (default "
+						+ PatchBenchmarkTest.DEFAULT_SIZES + ")")
+				.hasArg().withArgName("n,n,...")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("paging")
+				.withDescription("fill the container and walk its pages, if the server supports LDP Paging")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("paging-members")
+				.withDescription("members to create before walking the pages (default "
+						+ PagingTest.DEFAULT_MEMBERS + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("paging-page-size")
+				.withDescription("members per page to ask the server for (default "
+						+ PagingTest.DEFAULT_PAGE_SIZE + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("paging-prefetch")
+				.withDescription("also walk the pages fetching each next page while the current one is parsed")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("cluster")
+				.withDescription("check replication lag and ETags across the nodes of a cluster, each given with "
+						+ "its own server option, the first of which is tested as usual")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("cluster-samples")
+				.withDescription("resources to create and delete through each node in cluster mode (default "
+						+ ClusterConsistencyTest.DEFAULT_SAMPLES + ")")
+				.hasArg().withArgName("N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("no-discovery")
+				.withDescription("don't profile the server before running tests, probe it from each test class instead")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("profile-file")
+				.withDescription("where to save server profiles between runs (default "
+						+ ServerProfiles.DEFAULT_FILE + ")")
+				.hasArg().withArgName("file")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("record")
+				.withDescription("save every exchange with the server to a directory for replay")
+				.hasArg().withArgName("dir")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("replay")
+				.withDescription("answer requests from a local server replaying a recording instead of the server, "
+						+ "which defaults to the recorded server uri")
+				.hasArg().withArgName("dir")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("embedded")
+				.withDescription("run against an in-memory LDP server started by the suite instead of the server, "
+						+ "using its container of the selected type")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("journal")
+				.withDescription("where to write the result of each test as it finishes (default "
+						+ LdpJournalListener.DEFAULT_FILE + ")")
+				.hasArg().withArgName("file")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("rerun-failed")
+				.withDescription("only run the tests that failed or were skipped in the journal of an earlier run, "
+						+ "and report their new results merged with the others")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("resume")
+				.withDescription("only run the tests that have no result in the journal of an earlier run, "
+						+ "such as one that was killed, and report their results merged with the others")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("shard")
+				.withDescription("only run shard i of N, chosen so that the shards take about as long as each other "
+						+ "going by the history")
+				.hasArg().withArgName("i/N")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("budget")
+				.withDescription("only run the most important tests expected to fit in this time, going by the "
+						+ "history: MUST before SHOULD before MAY, approved tests first, and list the ones left out")
+				.hasArg().withArgName("time")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("history")
+				.withDescription("journals of earlier runs to take test durations from in shard or budget mode, "
+						+ "the same for every shard")
+				.hasArgs().withArgName("files")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("merge")
+				.withDescription("combine the journals of several runs, such as the shards of one run, into the journal "
+						+ "and generate the EARL and HTML reports from it without running any tests")
+				.hasArgs().withArgName("files")
+				.create());
+
+		options.addOption(OptionBuilder.withLongOpt("report-from-journal")
+				.withDescription("generate the EARL and HTML reports from a journal without running any tests")
+				.hasArg().withArgName("file")
+				.create());
+
 		options.addOption(OptionBuilder.withLongOpt("help")
 				.withDescription("prints this usage help").create());
 
@@ -390,6 +1110,31 @@ public class LdpTestSuite {
 			printUsage(options);
 		}
 
+		if (cmd.hasOption("report-from-journal")) {
+			try {
+				LdpJournal.generateReports(new File(cmd.getOptionValue("report-from-journal")));
+				System.exit(0);
+			} catch (IOException e) {
+				System.err.println("ERROR: unable to generate reports from journal, " + e.getLocalizedMessage());
+				System.exit(1);
+			}
+		}
+
+		if (cmd.hasOption("merge")) {
+			List<File> journals = new ArrayList<>();
+			for (String file : cmd.getOptionValues("merge")) {
+				journals.add(new File(file));
+			}
+			try {
+				LdpJournal.merge(journals, new File(cmd.hasOption("journal")
+						? cmd.getOptionValue("journal") : LdpJournalListener.DEFAULT_FILE));
+				System.exit(0);
+			} catch (IOException e) {
+				System.err.println("ERROR: unable to merge journals, " + e.getLocalizedMessage());
+				System.exit(1);
+			}
+		}
+
 		// actual test suite execution
 		try {
 			LdpTestSuite ldpTestSuite = new LdpTestSuite(cmd);
@@ -414,6 +1159,17 @@ public class LdpTestSuite {
 		}
 	}
 
+	private static String getEmbeddedContainer(OptionsHandler options) {
+		switch (getSelectedType(options)) {
+			case DIRECT:
+				return EmbeddedLdpServer.DIRECT_CONTAINER;
+			case INDIRECT:
+				return EmbeddedLdpServer.INDIRECT_CONTAINER;
+			default:
+				return EmbeddedLdpServer.BASIC_CONTAINER;
+		}
+	}
+
 	private static void printUsage(Options options) {
 		HelpFormatter formatter = new HelpFormatter();
 		formatter.setOptionComparator(new Comparator<Option>() {
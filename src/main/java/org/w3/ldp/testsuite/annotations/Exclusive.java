@@ -0,0 +1,20 @@
+package org.w3.ldp.testsuite.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test that reads the resource under test and then conditionally
+ * updates it (GET followed by a PUT with If-Match, for instance). When the
+ * suite runs in parallel, an exclusive test never overlaps with any other
+ * test, so no concurrent request can change the ETag it holds or observe the
+ * temporary state it writes.
+ *
+ * @see org.w3.ldp.testsuite.test.LdpTest#run(org.testng.IHookCallBack, org.testng.ITestResult)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Exclusive {
+}
@@ -0,0 +1,125 @@
+package org.w3.ldp.testsuite.consistency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for the effects of a write to become visible, for servers that are
+ * only eventually consistent, such as a replicated cluster behind a load
+ * balancer.
+ * <p/>
+ * By default a check is made once, so a stale read fails the test right away.
+ * With {@code --consistency}, a check that doesn't have the expected outcome
+ * is repeated with exponential backoff until it does or the timeout runs out,
+ * and the time it took is recorded in a {@link ConvergenceResult} for the
+ * kind of check.
+ *
+ * @see org.w3.ldp.testsuite.test.LdpTest#awaitTriple
+ */
+public class ConsistencyMonitor {
+
+	public static final long DEFAULT_TIMEOUT = 30000; // ms
+
+	private static final long INITIAL_DELAY = 10; // ms
+	private static final long MAX_DELAY = 1000; // ms
+
+	private static boolean enabled = false;
+	private static long timeout = DEFAULT_TIMEOUT;
+
+	private static final ConcurrentMap<String, ConvergenceResult> results = new ConcurrentHashMap<String, ConvergenceResult>();
+
+	public static void setEnabled(boolean enabled) {
+		ConsistencyMonitor.enabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param millis how long to wait for a check to have the expected outcome
+	 */
+	public static void setTimeout(long millis) {
+		timeout = millis;
+	}
+
+	/**
+	 * @return the convergence times of every kind of check made so far, by
+	 *         name
+	 */
+	public static List<ConvergenceResult> getResults() {
+		List<ConvergenceResult> list = new ArrayList<ConvergenceResult>();
+		for (String name : new TreeSet<String>(results.keySet())) {
+			list.add(results.get(name));
+		}
+
+		return list;
+	}
+
+	/**
+	 * Makes a check until it has the expected outcome, if consistency mode is
+	 * enabled, or else once.
+	 *
+	 * @param name     the kind of check, to report convergence times under
+	 * @param check    reads from the server and returns the outcome
+	 * @param expected the outcome once the write is visible
+	 * @return the last outcome, which is not the expected one only if the
+	 *         check timed out or consistency mode is disabled
+	 */
+	public static boolean await(String name, Callable<Boolean> check, boolean expected) {
+		if (!enabled) {
+			return call(check);
+		}
+
+		ConvergenceResult result = results.get(name);
+		if (result == null) {
+			ConvergenceResult created = new ConvergenceResult(name);
+			result = results.putIfAbsent(name, created);
+			if (result == null) {
+				result = created;
+			}
+		}
+
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+		long delay = INITIAL_DELAY;
+		int reads = 1;
+		boolean outcome = call(check);
+		while (outcome != expected && System.nanoTime() < deadline) {
+			try {
+				Thread.sleep(Math.min(delay, Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			delay = Math.min(delay * 2, MAX_DELAY);
+			outcome = call(check);
+			reads++;
+		}
+
+		// Visible on the first read counts as no delay at all.
+		long elapsed = reads == 1 ? 0 : TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+		if (outcome == expected) {
+			result.converged(elapsed, reads);
+		} else {
+			result.timedOut(reads);
+		}
+
+		return outcome;
+	}
+
+	private static boolean call(Callable<Boolean> check) {
+		try {
+			return check.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
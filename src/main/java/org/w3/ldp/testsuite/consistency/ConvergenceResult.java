@@ -0,0 +1,80 @@
+package org.w3.ldp.testsuite.consistency;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.w3.ldp.testsuite.util.Histogram;
+
+/**
+ * How long one kind of check took to see the effect of a write, over all the
+ * times it was made.
+ */
+public class ConvergenceResult {
+
+	private final String name;
+	private final Histogram convergence = new Histogram();
+	private final AtomicLong checks = new AtomicLong();
+	private final AtomicLong stale = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong reads = new AtomicLong();
+
+	ConvergenceResult(String name) {
+		this.name = name;
+	}
+
+	void converged(long micros, int reads) {
+		convergence.record(micros);
+		record(reads);
+	}
+
+	void timedOut(int reads) {
+		timeouts.incrementAndGet();
+		record(reads);
+	}
+
+	private void record(int reads) {
+		checks.incrementAndGet();
+		this.reads.addAndGet(reads);
+		if (reads > 1) {
+			stale.incrementAndGet();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the time from the first read until the write was visible, in
+	 *         microseconds, for checks that didn't time out
+	 */
+	public Histogram getConvergence() {
+		return convergence;
+	}
+
+	public long getChecks() {
+		return checks.get();
+	}
+
+	/**
+	 * @return how many checks got a stale first read
+	 */
+	public long getStale() {
+		return stale.get();
+	}
+
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+
+	/**
+	 * @return the number of reads made by all checks
+	 */
+	public long getReads() {
+		return reads.get();
+	}
+
+	public double getStaleRate() {
+		long n = checks.get();
+		return n == 0 ? 0 : (double) stale.get() / n;
+	}
+}
@@ -0,0 +1,54 @@
+package org.w3.ldp.testsuite.http;
+
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Sends credentials with every request up front. RestAssured's
+ * <code>auth().basic()</code> waits for a 401 challenge and then retries the
+ * request, which doubles the round trips of every authenticated test.
+ * <p/>
+ * Requests that already set an Authorization header are left alone.
+ */
+public class Authenticator implements Filter {
+
+	private static final String AUTHORIZATION = "Authorization";
+
+	private static CredentialProvider defaultProvider;
+
+	private final CredentialProvider provider;
+
+	public Authenticator(CredentialProvider provider) {
+		this.provider = provider;
+	}
+
+	/**
+	 * Sets the credentials used by tests that aren't given their own with the
+	 * <code>auth</code> parameter.
+	 *
+	 * @param provider the credentials, or null for none
+	 */
+	public static void setDefaultProvider(CredentialProvider provider) {
+		Authenticator.defaultProvider = provider;
+	}
+
+	public static CredentialProvider getDefaultProvider() {
+		return defaultProvider;
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec,
+			FilterableResponseSpecification responseSpec, FilterContext ctx) {
+		if (!requestSpec.getHeaders().hasHeaderWithName(AUTHORIZATION)) {
+			String authorization = provider.getAuthorization();
+			if (authorization != null) {
+				requestSpec.header(AUTHORIZATION, authorization);
+			}
+		}
+
+		return ctx.next(requestSpec, responseSpec);
+	}
+}
@@ -0,0 +1,43 @@
+package org.w3.ldp.testsuite.http;
+
+import java.nio.charset.Charset;
+
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * HTTP Basic credentials, sent with the first request rather than after the
+ * server challenges with a 401.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc2617#section-2">RFC 2617: Basic Authentication Scheme</a>
+ */
+public class BasicCredentials implements CredentialProvider {
+
+	private final String authorization;
+
+	public BasicCredentials(String username, String password) {
+		byte[] userPass = (username + ":" + password).getBytes(Charset.forName("UTF-8"));
+		this.authorization = "Basic " + Base64.encodeBase64String(userPass);
+	}
+
+	/**
+	 * @param auth credentials as username:password
+	 * @return the credentials, or null if auth is blank or not username:password
+	 */
+	public static BasicCredentials parse(String auth) {
+		if (auth == null) {
+			return null;
+		}
+
+		String[] split = auth.split(":");
+		if (split.length != 2 || split[0].trim().isEmpty() || split[1].trim().isEmpty()) {
+			return null;
+		}
+
+		return new BasicCredentials(split[0], split[1]);
+	}
+
+	@Override
+	public String getAuthorization() {
+		return authorization;
+	}
+}
@@ -0,0 +1,21 @@
+package org.w3.ldp.testsuite.http;
+
+/**
+ * A fixed OAuth 2.0 bearer token.
+ *
+ * @see OAuth2TokenProvider
+ * @see <a href="http://tools.ietf.org/html/rfc6750#section-2.1">RFC 6750: Authorization Request Header Field</a>
+ */
+public class BearerToken implements CredentialProvider {
+
+	private final String authorization;
+
+	public BearerToken(String token) {
+		this.authorization = "Bearer " + token;
+	}
+
+	@Override
+	public String getAuthorization() {
+		return authorization;
+	}
+}
@@ -0,0 +1,15 @@
+package org.w3.ldp.testsuite.http;
+
+/**
+ * Supplies the credentials the suite sends with every request.
+ *
+ * @see Authenticator
+ */
+public interface CredentialProvider {
+
+	/**
+	 * @return the value of the Authorization request header, or null to send
+	 *         the request without one
+	 */
+	String getAuthorization();
+}
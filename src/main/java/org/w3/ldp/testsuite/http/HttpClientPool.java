@@ -0,0 +1,298 @@
+package org.w3.ldp.testsuite.http;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.AuthenticationStrategy;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.client.RedirectStrategy;
+import org.apache.http.client.RequestDirector;
+import org.apache.http.client.UserTokenHandler;
+import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.config.ConnectionConfig;
+import com.jayway.restassured.config.HttpClientConfig;
+import com.jayway.restassured.config.RestAssuredConfig;
+
+/**
+ * Connection pool shared by every HTTP request the test suite makes.
+ * RestAssured gets a new, cheap {@link DefaultHttpClient} per request (so
+ * per-request settings such as redirects can't leak between threads), but
+ * all of them lease keep-alive connections from the same pool. The clients
+ * also report DNS, connect and time to first byte to the {@link RequestTimer}.
+ * Response bodies are streamed, and a body a test leaves unread doesn't keep
+ * its connection leased (see {@link ReleasingEntity}). A request that can't
+ * lease a connection within the lease timeout fails rather than waiting for
+ * good, so a leak fails a test instead of hanging the suite.
+ * <p/>
+ * Settings must be changed before the first request.
+ */
+public class HttpClientPool {
+
+	public static final int DEFAULT_MAX_PER_ROUTE = 20;
+	public static final int DEFAULT_MAX_TOTAL = 100;
+	public static final long DEFAULT_IDLE_TIMEOUT = 30000; // ms
+	public static final long DEFAULT_KEEP_ALIVE = 30000; // ms
+	public static final long DEFAULT_LEASE_TIMEOUT = 60000; // ms
+
+	private static int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+	private static int maxTotal = DEFAULT_MAX_TOTAL;
+	private static long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+	private static long keepAlive = DEFAULT_KEEP_ALIVE;
+	private static long leaseTimeout = DEFAULT_LEASE_TIMEOUT;
+	private static boolean tcpNoDelay = true;
+
+	private static PoolingClientConnectionManager manager;
+	private static RestAssuredConfig config;
+
+	private static final AtomicLong connectionsOpened = new AtomicLong();
+	private static final AtomicLong requestsSent = new AtomicLong();
+	private static final ThreadLocal<long[]> dnsTime = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+	private static final ThreadLocal<long[]> threadRequestsSent = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+
+	public static void setMaxPerRoute(int max) {
+		maxPerRoute = max;
+	}
+
+	public static void setMaxTotal(int max) {
+		maxTotal = max;
+	}
+
+	/**
+	 * @param millis how long a pooled connection may be idle before it is closed
+	 */
+	public static void setIdleTimeout(long millis) {
+		idleTimeout = millis;
+	}
+
+	/**
+	 * @param millis how long to keep a connection alive when the server does
+	 *               not send a Keep-Alive timeout
+	 */
+	public static void setKeepAlive(long millis) {
+		keepAlive = millis;
+	}
+
+	/**
+	 * @param millis how long a request waits for a pooled connection before
+	 *               it fails
+	 */
+	public static void setLeaseTimeout(long millis) {
+		leaseTimeout = millis;
+	}
+
+	public static void setTcpNoDelay(boolean enabled) {
+		tcpNoDelay = enabled;
+	}
+
+	/**
+	 * Gives back the connections of response bodies the current thread left
+	 * unread. Called when a test ends and before it waits for a lock, so a
+	 * thread never holds connections while other threads wait for them.
+	 */
+	public static void releaseUnread() {
+		ReleasingEntity.releaseUnread();
+	}
+
+	/**
+	 * @return the RestAssured configuration using the pool
+	 */
+	public synchronized static RestAssuredConfig getConfig() {
+		if (config == null) {
+			manager = createConnectionManager();
+			startIdleConnectionEvictor();
+			config = RestAssured.config()
+					.httpClient(HttpClientConfig.httpClientConfig().httpClientFactory(new PooledClientFactory()))
+					.connectionConfig(ConnectionConfig.connectionConfig().dontCloseIdleConnectionsAfterEachResponse());
+		}
+
+		return config;
+	}
+
+	/**
+	 * @return a one-line summary of pool usage, or null if no request has used the pool
+	 */
+	public synchronized static String getStatistics() {
+		if (manager == null) {
+			return null;
+		}
+
+		PoolStats stats = manager.getTotalStats();
+		return String.format("%d requests over %d connections (%d leased, %d idle, %d pending, max %d per route, %d total)",
+				requestsSent.get(), connectionsOpened.get(), stats.getLeased(), stats.getAvailable(),
+				stats.getPending(), manager.getDefaultMaxPerRoute(), stats.getMax());
+	}
+
+	/**
+	 * @return the number of requests sent so far by the current thread
+	 */
+	public static long getThreadRequestCount() {
+		return threadRequestsSent.get()[0];
+	}
+
+	private static PoolingClientConnectionManager createConnectionManager() {
+		PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault()) {
+			@Override
+			protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schreg) {
+				return new DefaultClientConnectionOperator(schreg) {
+					@Override
+					protected InetAddress[] resolveHostname(String host) throws UnknownHostException {
+						long start = System.nanoTime();
+						try {
+							return super.resolveHostname(host);
+						} finally {
+							dnsTime.get()[0] += System.nanoTime() - start;
+						}
+					}
+
+					@Override
+					public void openConnection(OperatedClientConnection conn, HttpHost target, InetAddress local,
+							HttpContext context, HttpParams params) throws IOException {
+						dnsTime.get()[0] = 0;
+						long start = System.nanoTime();
+						super.openConnection(conn, target, local, context, params);
+						long dns = dnsTime.get()[0];
+						RequestTimer.recordDns(dns);
+						RequestTimer.recordConnect(System.nanoTime() - start - dns);
+						connectionsOpened.incrementAndGet();
+					}
+				};
+			}
+		};
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		connectionManager.setMaxTotal(maxTotal);
+
+		return connectionManager;
+	}
+
+	private static void startIdleConnectionEvictor() {
+		ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ldp-testsuite-connection-evictor");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		long period = Math.max(idleTimeout / 2, 1000);
+		evictor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				manager.closeExpiredConnections();
+				manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	private static class PooledClientFactory extends HttpClientConfig.HttpClientFactory {
+		@Override
+		public HttpClient createHttpClient() {
+			DefaultHttpClient client = new DefaultHttpClient(manager) {
+				@Override
+				protected RequestDirector createClientRequestDirector(HttpRequestExecutor requestExec,
+						ClientConnectionManager conman, ConnectionReuseStrategy reustrat,
+						ConnectionKeepAliveStrategy kastrat, HttpRoutePlanner rouplan, HttpProcessor httpProcessor,
+						HttpRequestRetryHandler retryHandler, RedirectStrategy redirectStrategy,
+						AuthenticationStrategy targetAuthStrategy, AuthenticationStrategy proxyAuthStrategy,
+						UserTokenHandler userTokenHandler, HttpParams params) {
+					final RequestDirector director = super.createClientRequestDirector(requestExec, conman, reustrat,
+							kastrat, rouplan, httpProcessor, retryHandler, redirectStrategy, targetAuthStrategy,
+							proxyAuthStrategy, userTokenHandler, params);
+					return new RequestDirector() {
+						@Override
+						public HttpResponse execute(HttpHost target, HttpRequest request, HttpContext context)
+								throws HttpException, IOException {
+							// Free the connections this thread still holds before leasing another.
+							ReleasingEntity.releaseUnread();
+							HttpResponse response = director.execute(target, request, context);
+							HttpEntity entity = response.getEntity();
+							if (entity != null && entity.isStreaming()) {
+								response.setEntity(new ReleasingEntity(entity));
+							}
+							return response;
+						}
+					};
+				}
+
+				@Override
+				protected HttpRequestExecutor createRequestExecutor() {
+					return new HttpRequestExecutor() {
+						@Override
+						public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context)
+								throws IOException, HttpException {
+							// Returns once the response headers are read; the body is streamed later.
+							long start = System.nanoTime();
+							try {
+								return super.execute(request, conn, context);
+							} finally {
+								RequestTimer.recordTimeToFirstByte(System.nanoTime() - start);
+							}
+						}
+					};
+				}
+			};
+			HttpConnectionParams.setTcpNoDelay(client.getParams(), tcpNoDelay);
+			HttpClientParams.setConnectionManagerTimeout(client.getParams(), leaseTimeout);
+			client.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+				@Override
+				public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+					// Use the server's Keep-Alive timeout if it sent one.
+					long duration = super.getKeepAliveDuration(response, context);
+					return duration > 0 ? duration : keepAlive;
+				}
+			});
+			client.addRequestInterceptor(new HttpRequestInterceptor() {
+				@Override
+				public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+					requestsSent.incrementAndGet();
+					threadRequestsSent.get()[0]++;
+				}
+			});
+
+			return client;
+		}
+	}
+}
@@ -6,11 +6,15 @@ public interface HttpHeaders {
 	public static final String ACCEPT_PATCH = "Accept-Patch";
 	public static final String ACCEPT_POST = "Accept-Post";
 	public static final String ALLOW = "Allow";
+	public static final String CONTENT_TYPE = "Content-Type";
 	public static final String ETAG = "ETAG";
 	public static final String IF_MATCH = "If-Match";
+	public static final String IF_NONE_MATCH = "If-None-Match";
 	public static final String LINK = "Link";
 	public static final String LINK_REL_TYPE = "type";
 	public static final String LINK_REL_DESCRIBEDBY = "describedby";
+	public static final String LINK_REL_FIRST = "first";
+	public static final String LINK_REL_NEXT = "next";
 	public static final String LOCATION = "Location";
 	public static final String PREFER = "Prefer";
 	public static final String PREFERNCE_APPLIED = "Preference-Applied";
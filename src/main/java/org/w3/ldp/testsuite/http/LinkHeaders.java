@@ -0,0 +1,196 @@
+package org.w3.ldp.testsuite.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.jayway.restassured.response.Header;
+import com.jayway.restassured.response.Response;
+
+/**
+ * The links in a response's Link headers, indexed by relation so tests can
+ * look them up without parsing the headers again.
+ * <p/>
+ * The parser follows the link-value grammar of RFC 5988: commas and
+ * semicolons only separate links and parameters outside of angle brackets and
+ * quoted strings, and a rel parameter may list several relation types
+ * separated by spaces. Relation types are compared case-insensitively.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc5988#section-5">RFC 5988: The Link Header Field</a>
+ */
+public class LinkHeaders {
+
+	// rel -> URIs, in the order the links appear
+	private final Map<String, Set<String>> index = new LinkedHashMap<String, Set<String>>();
+
+	/**
+	 * Parses the headers on every call, so callers that look up several links
+	 * keep the result.
+	 *
+	 * @param response the HTTP response
+	 * @return the links in the response's Link headers
+	 */
+	public static LinkHeaders of(Response response) {
+		return parse(response.getHeaders().getList(HttpHeaders.LINK));
+	}
+
+	/**
+	 * @param headers Link headers
+	 * @return the links in the headers
+	 */
+	public static LinkHeaders parse(List<Header> headers) {
+		LinkHeaders links = new LinkHeaders();
+		for (Header header : headers) {
+			links.add(header.getValue());
+		}
+
+		return links;
+	}
+
+	/**
+	 * @param value a Link header value, possibly with several links
+	 * @return the links in the header value
+	 */
+	public static LinkHeaders parse(String value) {
+		LinkHeaders links = new LinkHeaders();
+		links.add(value);
+
+		return links;
+	}
+
+	/**
+	 * @return true if there is a link to the URI with this relation
+	 */
+	public boolean contains(String uri, String rel) {
+		Set<String> uris = index.get(rel.toLowerCase(Locale.ENGLISH));
+		return uris != null && uris.contains(uri);
+	}
+
+	/**
+	 * @return the URI of the first link with this relation, or null if there
+	 *         is none
+	 */
+	public String getFirst(String rel) {
+		Set<String> uris = index.get(rel.toLowerCase(Locale.ENGLISH));
+		return uris == null ? null : uris.iterator().next();
+	}
+
+	/**
+	 * @return the URIs of all links with this relation, in order
+	 */
+	public List<String> get(String rel) {
+		Set<String> uris = index.get(rel.toLowerCase(Locale.ENGLISH));
+		if (uris == null) {
+			return Collections.emptyList();
+		}
+
+		return new ArrayList<String>(uris);
+	}
+
+	/**
+	 * @return true if there are no links with a relation
+	 */
+	public boolean isEmpty() {
+		return index.isEmpty();
+	}
+
+	private void add(String value) {
+		int i = 0, length = value.length();
+		while (i < length) {
+			// Find the start of the next link, skipping stray separators.
+			int start = value.indexOf('<', i);
+			if (start < 0) {
+				return;
+			}
+			int end = value.indexOf('>', start + 1);
+			if (end < 0) {
+				return;
+			}
+			String uri = value.substring(start + 1, end).trim();
+
+			// Parameters follow until a comma outside of a quoted string.
+			String rel = null;
+			i = end + 1;
+			while (i < length && value.charAt(i) != ',') {
+				if (value.charAt(i) != ';') {
+					i++;
+					continue;
+				}
+
+				int nameStart = i + 1;
+				int equals = nameStart;
+				while (equals < length && "=;,".indexOf(value.charAt(equals)) < 0) {
+					equals++;
+				}
+				String name = value.substring(nameStart, equals).trim();
+				if (equals >= length || value.charAt(equals) != '=') {
+					i = equals;
+					continue;
+				}
+
+				StringBuilder paramValue = new StringBuilder();
+				i = readValue(value, equals + 1, paramValue);
+				if ("rel".equalsIgnoreCase(name) && rel == null) {
+					rel = paramValue.toString();
+				}
+			}
+
+			if (rel != null) {
+				for (String relType : rel.trim().split("\\s+")) {
+					if (!relType.isEmpty()) {
+						put(relType.toLowerCase(Locale.ENGLISH), uri);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a token or quoted string starting at <code>i</code>.
+	 *
+	 * @return the index just past the value
+	 */
+	private static int readValue(String value, int i, StringBuilder out) {
+		int length = value.length();
+		while (i < length && value.charAt(i) == ' ') {
+			i++;
+		}
+
+		if (i < length && value.charAt(i) == '"') {
+			i++;
+			while (i < length && value.charAt(i) != '"') {
+				if (value.charAt(i) == '\\' && i + 1 < length) {
+					i++;
+				}
+				out.append(value.charAt(i++));
+			}
+
+			return Math.min(i + 1, length);
+		}
+
+		while (i < length && value.charAt(i) != ';' && value.charAt(i) != ',') {
+			out.append(value.charAt(i++));
+		}
+		int trimmed = out.length();
+		while (trimmed > 0 && out.charAt(trimmed - 1) == ' ') {
+			trimmed--;
+		}
+		out.setLength(trimmed);
+
+		return i;
+	}
+
+	private void put(String rel, String uri) {
+		Set<String> uris = index.get(rel);
+		if (uris == null) {
+			uris = new LinkedHashSet<String>();
+			index.put(rel, uris);
+		}
+		uris.add(uri);
+	}
+}
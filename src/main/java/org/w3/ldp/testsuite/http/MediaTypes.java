@@ -6,5 +6,7 @@ public interface MediaTypes {
 	public final static String APPLICATION_RDF_XML = "application/rdf+xml";
 	public final static String APPLICATION_JSON = "application/json";
 	public final static String APPLICATION_LD_JSON = "application/ld+json";
+	public final static String APPLICATION_SPARQL_UPDATE = "application/sparql-update";
+	public final static String TEXT_LDPATCH = "text/ldpatch";
 
 }
@@ -0,0 +1,186 @@
+package org.w3.ldp.testsuite.http;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpStatus;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.path.json.JsonPath;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+
+/**
+ * Bearer tokens from an OAuth 2.0 token endpoint using the client credentials
+ * grant. A token is reused until it expires, and a background thread fetches
+ * the next one when 80% of its lifetime has passed, so tests never wait on
+ * the token endpoint once the first token has been issued. A refresh that
+ * fails is retried with exponential backoff until the current token expires.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc6749#section-4.4">RFC 6749: Client Credentials Grant</a>
+ */
+public class OAuth2TokenProvider implements CredentialProvider {
+
+	/** Fraction of a token's lifetime after which it is refreshed */
+	private static final double REFRESH_AT = 0.8;
+
+	/** Delay before the first retry of a failed refresh, doubled for each further retry */
+	private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/** Longest delay between retries of a failed refresh */
+	private static final long MAX_RETRY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private static final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "ldp-testsuite-token-refresh");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private final String tokenEndpoint;
+	private final String clientId;
+	private final String clientSecret;
+	private final String scope;
+
+	/** Held while requesting a token, so that only one request is in flight */
+	private final Object fetching = new Object();
+
+	private String token;
+	private long expires; // System.nanoTime() when the token expires, if it has a lifetime
+	private boolean expiring;
+	private int generation; // incremented for each token, so stale refreshes give up
+
+	/**
+	 * @param tokenEndpoint the URI of the token endpoint
+	 * @param clientId      the client identifier
+	 * @param clientSecret  the client secret
+	 * @param scope         the scope to request, or null for the default
+	 */
+	public OAuth2TokenProvider(String tokenEndpoint, String clientId, String clientSecret, String scope) {
+		this.tokenEndpoint = tokenEndpoint;
+		this.clientId = clientId;
+		this.clientSecret = clientSecret;
+		this.scope = scope;
+	}
+
+	@Override
+	public String getAuthorization() {
+		String current = currentToken();
+		if (current != null) {
+			return "Bearer " + current;
+		}
+
+		synchronized (fetching) {
+			// another thread may have fetched a token while this one waited
+			current = currentToken();
+			if (current == null) {
+				current = update(requestToken());
+			}
+		}
+
+		return "Bearer " + current;
+	}
+
+	/**
+	 * @return the current token, or null if there is none or it has expired
+	 */
+	private synchronized String currentToken() {
+		if (token == null || (expiring && System.nanoTime() - expires >= 0)) {
+			return null;
+		}
+
+		return token;
+	}
+
+	/**
+	 * Requests a new token. Callers hold {@link #fetching} but not the lock on
+	 * this provider, so tests keep using the current token while the
+	 * background thread refreshes it.
+	 *
+	 * @return the token endpoint's JSON response
+	 */
+	private JsonPath requestToken() {
+		RequestSpecification request = RestAssured.given().config(HttpClientPool.getConfig())
+				.auth().preemptive().basic(clientId, clientSecret)
+				.formParam("grant_type", "client_credentials");
+		if (scope != null) {
+			request.formParam("scope", scope);
+		}
+
+		Response response = request.post(tokenEndpoint);
+		if (response.statusCode() != HttpStatus.SC_OK) {
+			throw new IllegalStateException("Token endpoint <" + tokenEndpoint + "> responded "
+					+ response.statusLine());
+		}
+
+		JsonPath json = response.jsonPath();
+		if (json.getString("access_token") == null) {
+			throw new IllegalStateException("Token endpoint <" + tokenEndpoint + "> did not return an access_token");
+		}
+
+		return json;
+	}
+
+	private synchronized String update(JsonPath json) {
+		token = json.getString("access_token");
+		generation++;
+
+		String expiresIn = json.getString("expires_in");
+		expiring = expiresIn != null;
+		if (expiring) {
+			long lifetime = TimeUnit.SECONDS.toNanos(Long.parseLong(expiresIn));
+			expires = System.nanoTime() + lifetime;
+			scheduleRefresh(generation, (long) (lifetime * REFRESH_AT), RETRY_NANOS);
+		}
+
+		return token;
+	}
+
+	/**
+	 * Refreshes the token after a delay, unless it has been replaced by then.
+	 *
+	 * @param forGeneration the generation of the token to refresh
+	 * @param delayNanos    how long to wait before refreshing
+	 * @param retryNanos    how long to wait before retrying if the refresh fails
+	 */
+	private void scheduleRefresh(final int forGeneration, long delayNanos, final long retryNanos) {
+		refresher.schedule(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (fetching) {
+					if (isStale(forGeneration)) {
+						return;
+					}
+
+					try {
+						update(requestToken());
+					} catch (RuntimeException e) {
+						retry(forGeneration, retryNanos, e);
+					}
+				}
+			}
+		}, delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private synchronized boolean isStale(int forGeneration) {
+		return forGeneration != generation;
+	}
+
+	private synchronized void retry(int forGeneration, long retryNanos, RuntimeException e) {
+		long remaining = expires - System.nanoTime();
+		if (remaining <= 0) {
+			// The token has expired. The next request fetches one itself.
+			System.err.println("WARNING: Unable to refresh the OAuth 2.0 token: " + e.getMessage());
+			return;
+		}
+
+		long delay = Math.min(retryNanos, remaining);
+		System.err.println("WARNING: Unable to refresh the OAuth 2.0 token, retrying in "
+				+ TimeUnit.NANOSECONDS.toMillis(delay) + " ms: " + e.getMessage());
+		scheduleRefresh(forGeneration, delay, Math.min(retryNanos * 2, MAX_RETRY_NANOS));
+	}
+}
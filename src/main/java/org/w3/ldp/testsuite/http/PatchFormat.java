@@ -0,0 +1,121 @@
+package org.w3.ldp.testsuite.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Patch document formats the test suite can write, so it can PATCH servers
+ * in whichever of them they list in Accept-Patch.
+ *
+ * @see <a href="http://www.w3.org/TR/sparql11-update/">SPARQL 1.1 Update</a>
+ * @see <a href="http://www.w3.org/TR/ldpatch/">Linked Data Patch Format</a>
+ */
+public enum PatchFormat {
+
+	SPARQL_UPDATE(MediaTypes.APPLICATION_SPARQL_UPDATE) {
+		@Override
+		protected String delete(String triple) {
+			return "DELETE DATA { " + triple + " }";
+		}
+
+		@Override
+		protected String insert(String triple) {
+			return "INSERT DATA { " + triple + " }";
+		}
+
+		@Override
+		protected String separator() {
+			return " ;\n";
+		}
+	},
+
+	LD_PATCH(MediaTypes.TEXT_LDPATCH) {
+		@Override
+		protected String delete(String triple) {
+			return "Delete { " + triple + " } .";
+		}
+
+		@Override
+		protected String insert(String triple) {
+			return "Add { " + triple + " } .";
+		}
+
+		@Override
+		protected String separator() {
+			return "\n";
+		}
+	};
+
+	private final String mediaType;
+
+	PatchFormat(String mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * Writes a patch that replaces one literal value of a property.
+	 *
+	 * @param subject   the resource URI
+	 * @param predicate the property URI
+	 * @param oldValue  the value to delete, or null to only insert
+	 * @param newValue  the value to insert, or null to only delete
+	 * @return the patch document
+	 */
+	public String replace(String subject, String predicate, String oldValue, String newValue) {
+		StringBuilder patch = new StringBuilder();
+		if (oldValue != null) {
+			patch.append(delete(triple(subject, predicate, oldValue)));
+		}
+		if (newValue != null) {
+			if (patch.length() > 0) {
+				patch.append(separator());
+			}
+			patch.append(insert(triple(subject, predicate, newValue)));
+		}
+
+		return patch.append('\n').toString();
+	}
+
+	protected abstract String delete(String triple);
+
+	protected abstract String insert(String triple);
+
+	/**
+	 * @return what goes between two operations in one patch
+	 */
+	protected abstract String separator();
+
+	private static String triple(String subject, String predicate, String value) {
+		return "<" + subject + "> <" + predicate + "> \""
+				+ value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\" .";
+	}
+
+	/**
+	 * @param acceptPatch an Accept-Patch header value, possibly null
+	 * @return the formats listed in the header that the test suite can
+	 *         write, in the order the server lists them
+	 */
+	public static List<PatchFormat> parse(String acceptPatch) {
+		List<PatchFormat> formats = new ArrayList<PatchFormat>();
+		if (acceptPatch == null) {
+			return formats;
+		}
+
+		for (String mediaType : acceptPatch.split(",")) {
+			// Ignore parameters such as charset.
+			String type = mediaType.split(";")[0].trim().toLowerCase(Locale.ENGLISH);
+			for (PatchFormat format : values()) {
+				if (format.mediaType.equals(type) && !formats.contains(format)) {
+					formats.add(format);
+				}
+			}
+		}
+
+		return formats;
+	}
+}
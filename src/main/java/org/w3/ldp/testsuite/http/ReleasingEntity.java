@@ -0,0 +1,155 @@
+package org.w3.ldp.testsuite.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ * A response body that is streamed from the connection while it's being
+ * read, but that gives the connection back to the pool if it's left unread.
+ * RestAssured doesn't read the body of a response when a test only checks
+ * its status or headers, which would keep the connection leased for good.
+ * <p/>
+ * Before a thread sends its next request, whatever is left of the bodies it
+ * received so far is read into memory and their connections are released.
+ * A test can still read such a body later, from the copy. Bodies left
+ * unread by threads that have ended, such as those of an executor that was
+ * shut down, are released the same way before any thread's next request.
+ */
+class ReleasingEntity extends HttpEntityWrapper {
+
+	private static final Set<ReleasingEntity> unread =
+			Collections.newSetFromMap(new ConcurrentHashMap<ReleasingEntity, Boolean>());
+
+	private final Thread owner = Thread.currentThread();
+	private ReleasingStream content;
+
+	ReleasingEntity(HttpEntity entity) {
+		super(entity);
+		unread.add(this);
+	}
+
+	@Override
+	public synchronized InputStream getContent() throws IOException {
+		if (content == null) {
+			content = new ReleasingStream(wrappedEntity.getContent());
+		}
+
+		return content;
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return unread.contains(this);
+	}
+
+	/**
+	 * Reads the rest of the body into memory, which returns the connection
+	 * to the pool.
+	 */
+	private void release() {
+		try {
+			((ReleasingStream) getContent()).release();
+		} catch (IOException e) {
+			unread.remove(this);
+		}
+	}
+
+	/**
+	 * Releases the connections of bodies the current thread hasn't finished
+	 * reading, and of those left by threads that have ended.
+	 */
+	static void releaseUnread() {
+		Thread current = Thread.currentThread();
+		for (ReleasingEntity entity : unread) {
+			if (entity.owner == current || !entity.owner.isAlive()) {
+				entity.release();
+			}
+		}
+	}
+
+	private class ReleasingStream extends InputStream {
+		private InputStream in;
+		private boolean released;
+		private IOException failure;
+
+		ReleasingStream(InputStream in) {
+			this.in = in;
+		}
+
+		synchronized void release() {
+			if (released) {
+				return;
+			}
+
+			ByteArrayOutputStream rest = new ByteArrayOutputStream();
+			try {
+				byte[] buffer = new byte[8192];
+				int n;
+				while ((n = in.read(buffer)) != -1) {
+					rest.write(buffer, 0, n);
+				}
+				in.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+			in = new ByteArrayInputStream(rest.toByteArray());
+			finished();
+		}
+
+		private void finished() {
+			released = true;
+			unread.remove(ReleasingEntity.this);
+		}
+
+		@Override
+		public synchronized int read() throws IOException {
+			checkFailure();
+			int b = in.read();
+			if (b == -1 && !released) {
+				finished();
+			}
+			return b;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) throws IOException {
+			checkFailure();
+			int n = in.read(b, off, len);
+			if (n == -1 && !released) {
+				finished();
+			}
+			return n;
+		}
+
+		@Override
+		public synchronized int available() throws IOException {
+			checkFailure();
+			return in.available();
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			try {
+				in.close();
+			} finally {
+				if (!released) {
+					finished();
+				}
+			}
+		}
+
+		private void checkFailure() throws IOException {
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package org.w3.ldp.testsuite.http;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.internal.http.Method;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Opt-in cache of parsed RDF representations, keyed by URI and media type.
+ * A cached model is only reused after the server confirms with a 304 that the
+ * ETag still matches, so the cache saves parsing and transfer but never
+ * serves a representation the server hasn't validated.
+ * <p/>
+ * As a filter, it also drops entries when a test changes a resource. A POST,
+ * PUT, PATCH or DELETE to a URI invalidates the entries for that URI and for
+ * any URI it starts with, such as its container.
+ */
+public class RepresentationCache implements Filter {
+
+	private static boolean enabled = false;
+
+	private static final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	public static void setEnabled(boolean enabled) {
+		RepresentationCache.enabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return the ETag of the cached representation, or null if there is none
+	 */
+	public static String getETag(String uri, String mediaType) {
+		Entry entry = entries.get(key(uri, mediaType));
+		return entry == null ? null : entry.etag;
+	}
+
+	/**
+	 * @return a copy of the cached model, which callers are free to change,
+	 *         or null if the ETag no longer matches
+	 */
+	public static Model get(String uri, String mediaType, String etag) {
+		Entry entry = entries.get(key(uri, mediaType));
+		if (entry == null || !entry.etag.equals(etag)) {
+			return null;
+		}
+
+		return ModelFactory.createDefaultModel().add(entry.model);
+	}
+
+	/**
+	 * Caches a copy of the model, if the server sent an ETag for it.
+	 */
+	public static void put(String uri, String mediaType, String etag, Model model) {
+		if (etag == null) {
+			return;
+		}
+
+		entries.put(key(uri, mediaType), new Entry(etag, ModelFactory.createDefaultModel().add(model)));
+	}
+
+	/**
+	 * Drops entries for the URI and for any URI it starts with.
+	 */
+	public static void invalidate(String uri) {
+		for (Iterator<String> i = entries.keySet().iterator(); i.hasNext();) {
+			String key = i.next();
+			String cachedUri = key.substring(0, key.lastIndexOf(' '));
+			if (uri.startsWith(cachedUri)) {
+				i.remove();
+			}
+		}
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec,
+			FilterableResponseSpecification responseSpec, FilterContext ctx) {
+		Method method = ctx.getRequestMethod();
+		try {
+			return ctx.next(requestSpec, responseSpec);
+		} finally {
+			if (enabled && method != Method.GET && method != Method.HEAD && method != Method.OPTIONS) {
+				invalidate(getRequestUri(ctx));
+			}
+		}
+	}
+
+	private static String getRequestUri(FilterContext ctx) {
+		// getCompleteRequestPath() prepends RestAssured's default base URI
+		// even when the test requested an absolute URI.
+		String path = ctx.getRequestPath();
+		return path.startsWith("http:") || path.startsWith("https:") ? path : ctx.getCompleteRequestPath();
+	}
+
+	private static String key(String uri, String mediaType) {
+		// Media types can't contain spaces, so the last one separates the two.
+		return uri + " " + mediaType;
+	}
+
+	private static class Entry {
+		final String etag;
+		final Model model;
+
+		Entry(String etag, Model model) {
+			this.etag = etag;
+			this.model = model;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package org.w3.ldp.testsuite.http;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Times each HTTP exchange made by a test method and records it under the
+ * test and HTTP method. The filter times the whole exchange. The
+ * {@link HttpClientPool} reports the DNS, connect and time to first byte
+ * phases as they happen on the same thread, and whatever time is left over
+ * is counted as reading the body. Bodies are streamed, so that only covers
+ * what RestAssured reads before handing the response to the test, such as a
+ * body it checks against expectations.
+ */
+public class RequestTimer implements Filter {
+
+	private static final ThreadLocal<String> currentTest = new ThreadLocal<String>();
+	private static final ThreadLocal<Exchange> currentExchange = new ThreadLocal<Exchange>();
+
+	// test name -> HTTP method -> timings
+	private static final ConcurrentMap<String, ConcurrentMap<String, RequestTimings>> timings =
+			new ConcurrentHashMap<String, ConcurrentMap<String, RequestTimings>>();
+
+	/**
+	 * Records requests made by the current thread under this test until
+	 * {@link #clearCurrentTest()} is called.
+	 *
+	 * @param testName the test class simple name and method name, for instance
+	 *                 {@code BasicContainerTest.testPostContainer}
+	 */
+	public static void setCurrentTest(String testName) {
+		currentTest.set(testName);
+	}
+
+	public static void clearCurrentTest() {
+		currentTest.remove();
+	}
+
+	/**
+	 * @return the names of all tests that made requests
+	 */
+	public static SortedSet<String> getTests() {
+		return new TreeSet<String>(timings.keySet());
+	}
+
+	/**
+	 * @param testName the test class simple name and method name
+	 * @return the timings for the test by HTTP method, sorted by HTTP method
+	 */
+	public static Map<String, RequestTimings> getTimings(String testName) {
+		Map<String, RequestTimings> byMethod = timings.get(testName);
+		if (byMethod == null) {
+			return Collections.emptyMap();
+		}
+
+		return new TreeMap<String, RequestTimings>(byMethod);
+	}
+
+	/**
+	 * Replaces the timings of a test, for instance with timings read back
+	 * from a journal of an earlier run.
+	 *
+	 * @param testName the test class simple name and method name
+	 * @param byMethod the timings for the test by HTTP method
+	 */
+	public static void setTimings(String testName, Map<String, RequestTimings> byMethod) {
+		timings.put(testName, new ConcurrentHashMap<String, RequestTimings>(byMethod));
+	}
+
+	static void recordDns(long nanos) {
+		Exchange exchange = currentExchange.get();
+		if (exchange != null) {
+			exchange.dns += nanos;
+		}
+	}
+
+	static void recordConnect(long nanos) {
+		Exchange exchange = currentExchange.get();
+		if (exchange != null) {
+			exchange.connect += nanos;
+			exchange.connected = true;
+		}
+	}
+
+	static void recordTimeToFirstByte(long nanos) {
+		Exchange exchange = currentExchange.get();
+		if (exchange != null) {
+			exchange.timeToFirstByte += nanos;
+		}
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec,
+			FilterableResponseSpecification responseSpec, FilterContext ctx) {
+		String testName = currentTest.get();
+		if (testName == null) {
+			return ctx.next(requestSpec, responseSpec);
+		}
+
+		Exchange exchange = new Exchange();
+		currentExchange.set(exchange);
+		long start = System.nanoTime();
+		try {
+			return ctx.next(requestSpec, responseSpec);
+		} finally {
+			long total = System.nanoTime() - start;
+			currentExchange.remove();
+			getTimings(testName, ctx.getRequestMethod().name()).record(toMicros(exchange.dns),
+					toMicros(exchange.connect), toMicros(exchange.timeToFirstByte), toMicros(total),
+					exchange.connected);
+		}
+	}
+
+	private static RequestTimings getTimings(String testName, String httpMethod) {
+		ConcurrentMap<String, RequestTimings> byMethod = timings.get(testName);
+		if (byMethod == null) {
+			ConcurrentMap<String, RequestTimings> created = new ConcurrentHashMap<String, RequestTimings>();
+			byMethod = timings.putIfAbsent(testName, created);
+			if (byMethod == null) {
+				byMethod = created;
+			}
+		}
+
+		RequestTimings forMethod = byMethod.get(httpMethod);
+		if (forMethod == null) {
+			RequestTimings created = new RequestTimings();
+			forMethod = byMethod.putIfAbsent(httpMethod, created);
+			if (forMethod == null) {
+				forMethod = created;
+			}
+		}
+
+		return forMethod;
+	}
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+
+	/**
+	 * Phases of the exchange in progress on this thread, in nanoseconds.
+	 * Redirects and retries add to the same exchange.
+	 */
+	private static class Exchange {
+		long dns;
+		long connect;
+		long timeToFirstByte;
+		boolean connected;
+	}
+}
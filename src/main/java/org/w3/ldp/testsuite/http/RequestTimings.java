@@ -0,0 +1,78 @@
+package org.w3.ldp.testsuite.http;
+
+import org.w3.ldp.testsuite.util.Histogram;
+
+/**
+ * Latency histograms, in microseconds, for the HTTP requests one test method
+ * made with one HTTP method. DNS and connect times are only recorded for
+ * requests that opened a new connection rather than reusing a pooled one.
+ *
+ * @see RequestTimer
+ */
+public class RequestTimings {
+
+	private final Histogram dns = new Histogram();
+	private final Histogram connect = new Histogram();
+	private final Histogram timeToFirstByte = new Histogram();
+	private final Histogram body = new Histogram();
+	private final Histogram total = new Histogram();
+
+	void record(long dnsMicros, long connectMicros, long timeToFirstByteMicros, long totalMicros, boolean connected) {
+		if (connected) {
+			dns.record(dnsMicros);
+			connect.record(connectMicros);
+		}
+		timeToFirstByte.record(timeToFirstByteMicros);
+		body.record(Math.max(0, totalMicros - dnsMicros - connectMicros - timeToFirstByteMicros));
+		total.record(totalMicros);
+	}
+
+	/**
+	 * @return the number of requests
+	 */
+	public long getRequestCount() {
+		return total.getTotalCount();
+	}
+
+	/**
+	 * @return the number of requests that had to open a new connection
+	 */
+	public long getConnectionCount() {
+		return connect.getTotalCount();
+	}
+
+	/**
+	 * @return time spent resolving the host name
+	 */
+	public Histogram getDns() {
+		return dns;
+	}
+
+	/**
+	 * @return time spent opening the connection, after DNS
+	 */
+	public Histogram getConnect() {
+		return connect;
+	}
+
+	/**
+	 * @return time from sending the request until the response headers arrived
+	 */
+	public Histogram getTimeToFirstByte() {
+		return timeToFirstByte;
+	}
+
+	/**
+	 * @return time from the response headers until the response body was read
+	 */
+	public Histogram getBody() {
+		return body;
+	}
+
+	/**
+	 * @return time for the whole exchange
+	 */
+	public Histogram getTotal() {
+		return total;
+	}
+}
@@ -0,0 +1,105 @@
+package org.w3.ldp.testsuite.http;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * What one resource on the server under test supports, as discovered by
+ * {@link ServerProfiles}: the methods it allows, the media types it accepts,
+ * its interaction models and whether it applies Prefer headers.
+ */
+public class ServerProfile {
+
+	private String uri;
+	private Set<String> allow = new LinkedHashSet<String>();
+	private String acceptPost;
+	private String acceptPatch;
+	private Set<String> types = new LinkedHashSet<String>();
+	private boolean preferenceApplied;
+
+	public boolean supports(HttpMethod method) {
+		return allow.contains(method.getName());
+	}
+
+	public boolean hasType(String type) {
+		return types.contains(type);
+	}
+
+	/**
+	 * @param options a profile of the same resource from an OPTIONS response
+	 * @return true if the OPTIONS response advertises the same methods, media
+	 *         types and interaction models as when this profile was made
+	 */
+	public boolean hasCapabilitiesOf(ServerProfile options) {
+		return allow.equals(options.allow)
+				&& StringUtils.equals(acceptPost, options.acceptPost)
+				&& StringUtils.equals(acceptPatch, options.acceptPatch)
+				&& types.containsAll(options.types);
+	}
+
+	public String getUri() {
+		return uri;
+	}
+
+	public void setUri(String uri) {
+		this.uri = uri;
+	}
+
+	/**
+	 * @return the methods in the Allow header of the OPTIONS response
+	 */
+	public Set<String> getAllow() {
+		return allow;
+	}
+
+	public void setAllow(Set<String> allow) {
+		this.allow = allow;
+	}
+
+	/**
+	 * @return the Accept-Post header of the OPTIONS response, or null
+	 */
+	public String getAcceptPost() {
+		return acceptPost;
+	}
+
+	public void setAcceptPost(String acceptPost) {
+		this.acceptPost = acceptPost;
+	}
+
+	/**
+	 * @return the Accept-Patch header of the OPTIONS response, or null
+	 */
+	public String getAcceptPatch() {
+		return acceptPatch;
+	}
+
+	public void setAcceptPatch(String acceptPatch) {
+		this.acceptPatch = acceptPatch;
+	}
+
+	/**
+	 * @return the URIs of the resource's <code>rel="type"</code> links
+	 */
+	public Set<String> getTypes() {
+		return types;
+	}
+
+	public void setTypes(Set<String> types) {
+		this.types = types;
+	}
+
+	/**
+	 * @return true if a GET with a Prefer header for a minimal container was
+	 *         answered with <code>Preference-Applied: return=representation</code>
+	 */
+	public boolean isPreferenceApplied() {
+		return preferenceApplied;
+	}
+
+	public void setPreferenceApplied(boolean preferenceApplied) {
+		this.preferenceApplied = preferenceApplied;
+	}
+}
@@ -0,0 +1,148 @@
+package org.w3.ldp.testsuite.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.response.Header;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+
+/**
+ * Profiles the resources the suite is configured with once, before any test
+ * runs, so test classes don't each probe the server with their own OPTIONS
+ * requests.
+ * <p/>
+ * Profiles are saved to a file keyed by URI. On the next run, each resource
+ * is still sent an OPTIONS request, and its saved profile is reused if the
+ * Allow, Accept-Post, Accept-Patch and <code>rel="type"</code> links are the
+ * same as when it was profiled. Otherwise the resource is profiled again.
+ */
+public class ServerProfiles {
+
+	public static final String DEFAULT_FILE = "ldp-testsuite-profiles.json";
+
+	private static final String PREFER_MINIMAL_CONTAINER = "return=representation; include=\""
+			+ LdpPreferences.PREFER_MINIMAL_CONTAINER + "\"";
+
+	private static final Map<String, ServerProfile> profiles = new ConcurrentHashMap<String, ServerProfile>();
+
+	private static final ObjectMapper json = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+			.configure(SerializationFeature.INDENT_OUTPUT, true);
+
+	/**
+	 * @return the profile of the resource, or null if it wasn't discovered
+	 */
+	public static ServerProfile get(String uri) {
+		return uri == null ? null : profiles.get(uri);
+	}
+
+	/**
+	 * Profiles each resource, reusing the profiles saved in the file where the
+	 * resource hasn't changed, then saves the profiles back to the file.
+	 *
+	 * @param uris        the resources to profile
+	 * @param credentials credentials for the requests, or null for none
+	 * @param file        where profiles are saved, or null to not save them
+	 */
+	public static void discover(Collection<String> uris, CredentialProvider credentials, File file) {
+		Map<String, ServerProfile> saved = load(file);
+		for (String uri : uris) {
+			ServerProfile options = options(uri, credentials);
+			ServerProfile profile = saved.get(uri);
+			if (profile == null || !profile.hasCapabilitiesOf(options)) {
+				profile = profile(options, credentials);
+			}
+			profiles.put(uri, profile);
+			saved.put(uri, profile);
+		}
+
+		if (file != null) {
+			try {
+				json.writeValue(file, saved);
+			} catch (IOException e) {
+				System.err.println("WARNING: Unable to save server profiles to " + file + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private static Map<String, ServerProfile> load(File file) {
+		if (file != null && file.isFile()) {
+			try {
+				return json.readValue(file, new TypeReference<ConcurrentHashMap<String, ServerProfile>>() {});
+			} catch (IOException e) {
+				System.err.println("WARNING: Ignoring unreadable server profiles in " + file + ": " + e.getMessage());
+			}
+		}
+
+		return new ConcurrentHashMap<String, ServerProfile>();
+	}
+
+	/**
+	 * @return a profile with only what the OPTIONS response says about the
+	 *         resource
+	 */
+	private static ServerProfile options(String uri, CredentialProvider credentials) {
+		ServerProfile profile = new ServerProfile();
+		profile.setUri(uri);
+
+		Response options = request(credentials).options(uri);
+		String allow = options.getHeader(HttpHeaders.ALLOW);
+		if (allow != null) {
+			for (String method : allow.split("\\s*,\\s*")) {
+				profile.getAllow().add(method.trim());
+			}
+		}
+		profile.setAcceptPost(options.getHeader(HttpHeaders.ACCEPT_POST));
+		profile.setAcceptPatch(options.getHeader(HttpHeaders.ACCEPT_PATCH));
+		profile.getTypes().addAll(LinkHeaders.of(options).get(HttpHeaders.LINK_REL_TYPE));
+
+		return profile;
+	}
+
+	/**
+	 * Completes a profile from an OPTIONS response with what a GET of the
+	 * resource says.
+	 */
+	private static ServerProfile profile(ServerProfile profile, CredentialProvider credentials) {
+		Response get = request(credentials)
+				.header(HttpHeaders.ACCEPT, MediaTypes.TEXT_TURTLE)
+				.header(HttpHeaders.PREFER, PREFER_MINIMAL_CONTAINER)
+				.get(profile.getUri());
+		profile.getTypes().addAll(LinkHeaders.of(get).get(HttpHeaders.LINK_REL_TYPE));
+		profile.setPreferenceApplied(isPreferenceApplied(get));
+
+		return profile;
+	}
+
+	/**
+	 * The same check as {@link org.w3.ldp.testsuite.test.LdpTest}'s, which
+	 * isn't available outside of a test.
+	 */
+	private static boolean isPreferenceApplied(Response response) {
+		for (Header h : response.getHeaders().getList(HttpHeaders.PREFERNCE_APPLIED)) {
+			if (h.getValue().matches("(^|[ ;])return *= *\"?representation\"?($|[ ;])")) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static RequestSpecification request(CredentialProvider credentials) {
+		RequestSpecification request = RestAssured.given().config(HttpClientPool.getConfig());
+		if (credentials != null) {
+			request.filter(new Authenticator(credentials));
+		}
+
+		return request;
+	}
+}
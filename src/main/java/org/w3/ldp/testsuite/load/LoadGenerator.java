@@ -0,0 +1,214 @@
+package org.w3.ldp.testsuite.load;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.w3.ldp.testsuite.annotations.SpecTest;
+import org.w3.ldp.testsuite.http.HttpClientPool;
+import org.w3.ldp.testsuite.util.Histogram;
+
+/**
+ * Replays a test method from several virtual users at once, either for a
+ * fixed time or a fixed number of runs, and measures how the server holds up.
+ * Each virtual user is a thread, so tests that create per-thread fixtures
+ * (such as {@link org.w3.ldp.testsuite.test.MemberResourceTest}) give every
+ * user its own resource.
+ *
+ * @see org.w3.ldp.testsuite.test.LdpTest#run(org.testng.IHookCallBack, org.testng.ITestResult)
+ */
+public class LoadGenerator {
+
+	public static final int DEFAULT_USERS = 10;
+	public static final long DEFAULT_DURATION = 10000; // ms
+
+	private static boolean enabled = false;
+	private static int users = DEFAULT_USERS;
+	private static long duration = DEFAULT_DURATION;
+	private static long iterations = 0;
+
+	private static ExecutorService executor;
+	private static final List<LoadResult> results = Collections.synchronizedList(new ArrayList<LoadResult>());
+
+	public static void setEnabled(boolean enabled) {
+		LoadGenerator.enabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setUsers(int users) {
+		LoadGenerator.users = users;
+	}
+
+	public static int getUsers() {
+		return users;
+	}
+
+	/**
+	 * @param millis how long to run each test method for
+	 */
+	public static void setDuration(long millis) {
+		duration = millis;
+		iterations = 0;
+	}
+
+	/**
+	 * @param count how many times to run each test method, shared among all users
+	 */
+	public static void setIterations(long count) {
+		iterations = count;
+	}
+
+	/**
+	 * @return the results of every test method run under load so far
+	 */
+	public static List<LoadResult> getResults() {
+		synchronized (results) {
+			return new ArrayList<LoadResult>(results);
+		}
+	}
+
+	/**
+	 * Runs a test method under load. Each user runs the method once before
+	 * measuring starts so that per-thread fixtures are created up front.
+	 *
+	 * @param testName   the name to report results under
+	 * @param method     the test method
+	 * @param instance   the test class instance
+	 * @param parameters the method's arguments
+	 * @return the result, which is also added to {@link #getResults()}
+	 */
+	public static LoadResult run(String testName, final Method method, final Object instance, final Object[] parameters) {
+		final ExecutorService pool = getExecutor();
+		final int userCount = LoadGenerator.users;
+
+		// Hold each thread until all have warmed up so every user runs once.
+		final CountDownLatch warmedUp = new CountDownLatch(userCount);
+		List<Callable<Void>> warmUp = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < userCount; i++) {
+			warmUp.add(new Callable<Void>() {
+				@Override
+				public Void call() throws InterruptedException {
+					try {
+						invoke(method, instance, parameters);
+					} finally {
+						warmedUp.countDown();
+					}
+					warmedUp.await();
+					return null;
+				}
+			});
+		}
+		invokeAll(pool, warmUp);
+
+		final Histogram latency = new Histogram();
+		final AtomicLong runs = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		final AtomicLong requests = new AtomicLong();
+		final AtomicLong remaining = new AtomicLong(iterations);
+		final long start = System.nanoTime();
+		final long deadline = start + TimeUnit.MILLISECONDS.toNanos(duration);
+
+		List<Callable<Void>> load = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < userCount; i++) {
+			load.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					while (iterations > 0 ? remaining.decrementAndGet() >= 0 : System.nanoTime() < deadline) {
+						long requestsBefore = HttpClientPool.getThreadRequestCount();
+						long runStart = System.nanoTime();
+						boolean passed = invoke(method, instance, parameters);
+						latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - runStart));
+						requests.addAndGet(HttpClientPool.getThreadRequestCount() - requestsBefore);
+						runs.incrementAndGet();
+						if (!passed) {
+							errors.incrementAndGet();
+						}
+					}
+					return null;
+				}
+			});
+		}
+		invokeAll(pool, load);
+		long elapsed = System.nanoTime() - start;
+
+		String specRefUri = null;
+		SpecTest spec = method.getAnnotation(SpecTest.class);
+		if (spec != null) {
+			specRefUri = spec.specRefUri();
+		}
+
+		LoadResult result = new LoadResult(testName, specRefUri, userCount, runs.get(),
+				errors.get(), requests.get(), elapsed, latency);
+		results.add(result);
+
+		return result;
+	}
+
+	/**
+	 * @return true if the test method passed
+	 */
+	private static boolean invoke(Method method, Object instance, Object[] parameters) {
+		try {
+			method.invoke(instance, parameters);
+			return true;
+		} catch (InvocationTargetException e) {
+			// The test failed (or skipped), which counts as an error under load.
+			return false;
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Unable to run " + method.getName() + " under load", e);
+		}
+	}
+
+	/**
+	 * Runs the tasks and waits for all of them.
+	 *
+	 * @throws IllegalStateException if any task failed, rather than the test
+	 *                               method it runs
+	 */
+	private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) {
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while running under load", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A virtual user stopped running under load", e.getCause());
+		}
+	}
+
+	private synchronized static ExecutorService getExecutor() {
+		// Keep the same threads from one test method to the next so that
+		// virtual users keep their per-thread fixtures.
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(users, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ldp-testsuite-user-" + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+
+		return executor;
+	}
+}
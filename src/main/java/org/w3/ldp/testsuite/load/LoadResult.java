@@ -0,0 +1,82 @@
+package org.w3.ldp.testsuite.load;
+
+import org.w3.ldp.testsuite.util.Histogram;
+
+/**
+ * What happened when one test method was run under load.
+ */
+public class LoadResult {
+
+	private final String testName;
+	private final String specRefUri;
+	private final int users;
+	private final long iterations;
+	private final long errors;
+	private final long requests;
+	private final long elapsedNanos;
+	private final Histogram latency;
+
+	public LoadResult(String testName, String specRefUri, int users, long iterations,
+			long errors, long requests, long elapsedNanos, Histogram latency) {
+		this.testName = testName;
+		this.specRefUri = specRefUri;
+		this.users = users;
+		this.iterations = iterations;
+		this.errors = errors;
+		this.requests = requests;
+		this.elapsedNanos = elapsedNanos;
+		this.latency = latency;
+	}
+
+	/**
+	 * @return the test class and method, plus any data provider parameters
+	 */
+	public String getTestName() {
+		return testName;
+	}
+
+	/**
+	 * @return the requirement tested, or null if the method has no {@code @SpecTest}
+	 */
+	public String getSpecRefUri() {
+		return specRefUri;
+	}
+
+	public int getUsers() {
+		return users;
+	}
+
+	public long getIterations() {
+		return iterations;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public double getErrorRate() {
+		return iterations == 0 ? 0 : (double) errors / iterations;
+	}
+
+	/**
+	 * @return the number of HTTP requests sent while measuring
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	public double getElapsedSeconds() {
+		return elapsedNanos / 1e9;
+	}
+
+	public double getRequestsPerSecond() {
+		return elapsedNanos == 0 ? 0 : requests / getElapsedSeconds();
+	}
+
+	/**
+	 * @return the time taken by each run of the test method, in microseconds
+	 */
+	public Histogram getLatency() {
+		return latency;
+	}
+}
@@ -24,7 +24,7 @@ public class RdfObjectMapper implements ObjectMapper {
 		this.baseURI = baseURI;
 	}
 
-	private String getLang(String mediaType) {
+	static String getLang(String mediaType) {
 		if (MediaTypes.TEXT_TURTLE.equals(mediaType)) {
 			return "TURTLE";
 		} else if (MediaTypes.APPLICATION_RDF_XML.equals(mediaType)) {
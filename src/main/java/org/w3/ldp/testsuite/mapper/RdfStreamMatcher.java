@@ -0,0 +1,114 @@
+package org.w3.ldp.testsuite.mapper;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.system.StreamRDFBase;
+
+import com.github.jsonldjava.jena.JenaJSONLD;
+import com.hp.hpl.jena.graph.Triple;
+import com.jayway.restassured.response.Response;
+
+/**
+ * Checks an RDF response for a few triples without building a Jena model.
+ * Triples are matched as the parser produces them, and parsing stops as soon
+ * as every pattern has been found, so only a pattern that is missing costs a
+ * full parse. Use it instead of {@link RdfObjectMapper} for large containers:
+ *
+ * <pre>
+ * TriplePattern contains = new TriplePattern(containerUri, LDP.contains.stringValue(), location);
+ * TripleMatches matches = new RdfStreamMatcher(containerUri, contains).match(response);
+ * assertTrue(matches.contains(contains));
+ * </pre>
+ *
+ * Turtle and RDF/XML are parsed incrementally. JSON-LD has to be read as a
+ * whole document by the JSON-LD processor first, but still never becomes a
+ * model.
+ */
+public class RdfStreamMatcher {
+
+	static {
+		JenaJSONLD.init();
+	}
+
+	private final String baseURI;
+	private final List<TriplePattern> patterns;
+
+	public RdfStreamMatcher(String baseURI, TriplePattern... patterns) {
+		this.baseURI = baseURI;
+		this.patterns = Arrays.asList(patterns);
+	}
+
+	/**
+	 * Reads the body of the response, which can't be read again afterwards.
+	 *
+	 * @return the patterns found in the response
+	 */
+	public TripleMatches match(Response response) {
+		InputStream input = response.asInputStream();
+		String mediaType = StringUtils.substringBefore(response.getContentType(), ";").trim();
+		Lang lang = RDFLanguages.nameToLang(RdfObjectMapper.getLang(mediaType));
+		MatchingSink sink = new MatchingSink();
+		try {
+			RDFDataMgr.parse(sink, input, baseURI, lang);
+		} catch (RuntimeException e) {
+			// Parsers may wrap exceptions thrown by the sink.
+			if (!isAllFound(e)) {
+				throw e;
+			}
+		} finally {
+			// Lets the connection go back to the pool if parsing stopped early.
+			IOUtils.closeQuietly(input);
+		}
+
+		return new TripleMatches(Collections.unmodifiableSet(sink.found), sink.triplesRead);
+	}
+
+	private static boolean isAllFound(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof AllFound) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private class MatchingSink extends StreamRDFBase {
+		final Set<TriplePattern> found = new HashSet<TriplePattern>();
+		long triplesRead = 0;
+
+		@Override
+		public void triple(Triple triple) {
+			triplesRead++;
+			for (TriplePattern pattern : patterns) {
+				if (!found.contains(pattern) && pattern.matches(triple)) {
+					found.add(pattern);
+					if (found.size() == patterns.size()) {
+						throw new AllFound();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Thrown from the sink to stop the parser once every pattern is found.
+	 */
+	private static class AllFound extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		AllFound() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package org.w3.ldp.testsuite.mapper;
+
+import java.util.Set;
+
+/**
+ * The patterns found by a {@link RdfStreamMatcher}.
+ */
+public class TripleMatches {
+
+	private final Set<TriplePattern> found;
+	private final long triplesRead;
+
+	TripleMatches(Set<TriplePattern> found, long triplesRead) {
+		this.found = found;
+		this.triplesRead = triplesRead;
+	}
+
+	/**
+	 * @return true if some triple in the representation matched the pattern
+	 */
+	public boolean contains(TriplePattern pattern) {
+		return found.contains(pattern);
+	}
+
+	/**
+	 * @return how many triples were parsed before all patterns were found or
+	 *         the representation ended
+	 */
+	public long getTriplesRead() {
+		return triplesRead;
+	}
+}
@@ -0,0 +1,42 @@
+package org.w3.ldp.testsuite.mapper;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * A triple to look for while streaming an RDF representation. Subject,
+ * predicate and object are URIs, or null to match anything.
+ *
+ * @see RdfStreamMatcher
+ */
+public class TriplePattern {
+
+	private final String subject;
+	private final String predicate;
+	private final String object;
+
+	public TriplePattern(String subject, String predicate, String object) {
+		this.subject = subject;
+		this.predicate = predicate;
+		this.object = object;
+	}
+
+	public boolean matches(Triple triple) {
+		return matches(subject, triple.getSubject())
+				&& matches(predicate, triple.getPredicate())
+				&& matches(object, triple.getObject());
+	}
+
+	private static boolean matches(String uri, Node node) {
+		return uri == null || node.isURI() && uri.equals(node.getURI());
+	}
+
+	@Override
+	public String toString() {
+		return format(subject) + " " + format(predicate) + " " + format(object);
+	}
+
+	private static String format(String uri) {
+		return uri == null ? "*" : "<" + uri + ">";
+	}
+}
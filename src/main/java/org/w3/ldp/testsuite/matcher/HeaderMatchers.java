@@ -22,11 +22,9 @@ import org.hamcrest.BaseMatcher;
 import org.hamcrest.CustomTypeSafeMatcher;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
-import org.jboss.resteasy.plugins.delegates.LinkDelegate;
+import org.w3.ldp.testsuite.http.LinkHeaders;
 import org.w3.ldp.testsuite.http.MediaTypes;
 
-import javax.ws.rs.core.Link;
-
 /**
  * Matcher collection to work with HttpHeaders.
  */
@@ -67,12 +65,11 @@ public class HeaderMatchers {
 		};
 	}
 
-	public static Matcher<String> isLink(String uri, String rel) {
-		final Link expected = Link.fromUri(uri).rel(rel).build();
+	public static Matcher<String> isLink(final String uri, final String rel) {
 		return new CustomTypeSafeMatcher<String>(String.format("a Link-Header to <%s> with rel='%s'", uri, rel)) {
 			@Override
 			protected boolean matchesSafely(String item) {
-				return expected.equals(new LinkDelegate().fromString(item));
+				return LinkHeaders.parse(item).contains(uri, rel);
 			}
 		};
 	}
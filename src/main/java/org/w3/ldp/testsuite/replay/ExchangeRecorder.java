@@ -0,0 +1,120 @@
+package org.w3.ldp.testsuite.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.http.entity.ContentType;
+
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.response.Header;
+import com.jayway.restassured.response.Headers;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Saves every exchange with the server under test to an {@link ExchangeStore},
+ * so that {@link ReplayServer} can stand in for the server later. Requests to
+ * other origins, such as a token endpoint, are not recorded.
+ */
+public class ExchangeRecorder implements Filter {
+
+	/** Response headers the replay server sets itself */
+	private static final Set<String> SKIPPED_HEADERS = new HashSet<String>(Arrays.asList(
+			"connection", "content-length", "keep-alive", "transfer-encoding"));
+
+	/** RestAssured's charset for request bodies given as strings without one */
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	private static ExchangeStore store;
+	private static String origin;
+
+	/**
+	 * Starts recording exchanges with the server into the directory.
+	 *
+	 * @param runId the run ID tests name the resources they create with
+	 */
+	public static synchronized void start(File dir, String server, String runId) throws IOException {
+		stop();
+		store = ExchangeStore.create(dir, server, runId);
+		origin = ExchangeStore.getOrigin(server);
+	}
+
+	/**
+	 * Stops recording and writes out what was recorded. Does nothing if not
+	 * recording.
+	 */
+	public static synchronized void stop() {
+		if (store == null) {
+			return;
+		}
+
+		try {
+			store.close();
+		} catch (IOException e) {
+			System.err.println("WARNING: Unable to save the recording: " + e.getMessage());
+		}
+		store = null;
+	}
+
+	public static boolean isEnabled() {
+		return store != null;
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec,
+			FilterableResponseSpecification responseSpec, FilterContext ctx) {
+		Response response = ctx.next(requestSpec, responseSpec);
+
+		ExchangeStore store = ExchangeRecorder.store;
+		String uri = ctx.getRequestPath();
+		if (store == null || !uri.startsWith(origin)) {
+			return response;
+		}
+
+		Headers requestHeaders = requestSpec.getHeaders();
+		RecordedExchange exchange = new RecordedExchange();
+		exchange.setMethod(ctx.getRequestMethod().name());
+		exchange.setPath(uri.substring(origin.length()));
+		exchange.setAccept(requestHeaders.getValue("Accept"));
+		Object requestBody = requestSpec.getBody();
+		if (requestBody != null) {
+			// RestAssured reports a default content type even for requests without a body
+			exchange.setContentType(requestSpec.getRequestContentType());
+			exchange.setBodyHash(RecordedExchange.hash(requestBody instanceof byte[]
+					? (byte[]) requestBody : requestBody.toString().getBytes(getCharset(exchange.getContentType()))));
+		}
+		exchange.setPrefer(requestHeaders.getValue("Prefer"));
+		exchange.setIfMatch(requestHeaders.getValue("If-Match"));
+		exchange.setIfNoneMatch(requestHeaders.getValue("If-None-Match"));
+
+		exchange.setStatus(response.statusCode());
+		for (Header h : response.getHeaders()) {
+			if (!SKIPPED_HEADERS.contains(h.getName().toLowerCase())) {
+				exchange.getHeaders().add(Arrays.asList(h.getName(), h.getValue()));
+			}
+		}
+		byte[] body = response.asByteArray();
+		if (body != null && body.length > 0) {
+			exchange.setBody(body);
+		}
+
+		try {
+			store.add(exchange);
+		} catch (IOException e) {
+			System.err.println("WARNING: Unable to record " + exchange.looseKey() + ": " + e.getMessage());
+		}
+
+		return response;
+	}
+
+	private static Charset getCharset(String contentType) {
+		Charset charset = contentType == null ? null : ContentType.parse(contentType).getCharset();
+		return charset == null ? ISO_8859_1 : charset;
+	}
+}
@@ -0,0 +1,152 @@
+package org.w3.ldp.testsuite.replay;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Recorded exchanges on disk: a gzipped file with one JSON object per line.
+ * The first line holds the server URI the recording was made against and the
+ * run ID the tests named resources with, and each following line one
+ * {@link RecordedExchange}, with the body in base64.
+ */
+public class ExchangeStore implements Closeable {
+
+	public static final String FILE = "exchanges.jsonl.gz";
+
+	private static final String UTF_8 = "UTF-8";
+
+	private static final ObjectMapper json = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final String server;
+	private final String runId;
+	private final List<RecordedExchange> exchanges;
+	private final Writer out;
+
+	private ExchangeStore(String server, String runId, List<RecordedExchange> exchanges, Writer out) {
+		this.server = server;
+		this.runId = runId;
+		this.exchanges = exchanges;
+		this.out = out;
+	}
+
+	/**
+	 * Starts a new recording in the directory, replacing any recording
+	 * already there.
+	 *
+	 * @param dir    the directory, created if it doesn't exist
+	 * @param server the URI of the server under test
+	 * @param runId  the run ID of the recording run
+	 * @return the store to add exchanges to
+	 */
+	public static ExchangeStore create(File dir, String server, String runId) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Unable to create directory " + dir);
+		}
+
+		Writer out = new BufferedWriter(new OutputStreamWriter(
+				new GZIPOutputStream(new FileOutputStream(new File(dir, FILE))), UTF_8));
+		Map<String, String> header = new LinkedHashMap<String, String>();
+		header.put("server", server);
+		header.put("run", runId);
+		out.write(json.writeValueAsString(header));
+		out.write('\n');
+
+		return new ExchangeStore(server, runId, null, out);
+	}
+
+	/**
+	 * Reads the recording in the directory.
+	 *
+	 * @param dir a directory passed to {@link #create(File, String, String)} before
+	 * @return the store holding the recorded exchanges
+	 */
+	public static ExchangeStore open(File dir) throws IOException {
+		File file = new File(dir, FILE);
+		if (!file.isFile()) {
+			throw new IOException("No recording in " + dir);
+		}
+
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(new FileInputStream(file)), UTF_8))) {
+			String line = in.readLine();
+			if (line == null) {
+				throw new IOException("Empty recording in " + file);
+			}
+			Map<String, String> header = json.readValue(line, new TypeReference<Map<String, String>>() {});
+
+			List<RecordedExchange> exchanges = new ArrayList<>();
+			while ((line = in.readLine()) != null) {
+				exchanges.add(json.readValue(line, RecordedExchange.class));
+			}
+
+			return new ExchangeStore(header.get("server"), header.get("run"), exchanges, null);
+		}
+	}
+
+	/**
+	 * @return the URI of the server the recording was made against
+	 */
+	public String getServer() {
+		return server;
+	}
+
+	/**
+	 * @return the run ID the recording was made with, or null if it's from
+	 *         before run IDs were recorded
+	 */
+	public String getRunId() {
+		return runId;
+	}
+
+	/**
+	 * @return the scheme, host and port of the recorded server, which
+	 *         recorded paths are relative to
+	 */
+	public String getOrigin() {
+		return getOrigin(server);
+	}
+
+	static String getOrigin(String uri) {
+		URI parsed = URI.create(uri);
+		return parsed.getScheme() + "://" + parsed.getRawAuthority();
+	}
+
+	/**
+	 * @return the exchanges in the order they were recorded
+	 */
+	public List<RecordedExchange> getExchanges() {
+		return exchanges;
+	}
+
+	public synchronized void add(RecordedExchange exchange) throws IOException {
+		out.write(json.writeValueAsString(exchange));
+		out.write('\n');
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (out != null) {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package org.w3.ldp.testsuite.replay;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * One request and the server's response, as saved by {@link ExchangeRecorder}.
+ * Only the request headers that change the response and a hash of the
+ * request body are kept, which is also what {@link ReplayServer} matches
+ * requests on. Credentials are never saved.
+ */
+public class RecordedExchange {
+
+	private String method;
+	private String path;
+	private String accept;
+	private String contentType;
+	private String prefer;
+	private String ifMatch;
+	private String ifNoneMatch;
+	private String bodyHash;
+
+	private int status;
+	private List<List<String>> headers = new ArrayList<List<String>>();
+	private byte[] body;
+
+	/**
+	 * @return the method, path, the request headers the response depends on
+	 *         and the hash of the request body
+	 */
+	public String key() {
+		return headersKey() + ' ' + bodyHash;
+	}
+
+	/**
+	 * @return the method, path and the request headers the response depends
+	 *         on, for requests whose body differs from the recorded one, such
+	 *         as RDF with other blank node labels
+	 */
+	public String headersKey() {
+		return looseKey() + ' ' + (accept == null ? "*/*" : accept) + ' ' + getMediaType(contentType)
+				+ ' ' + prefer + ' ' + ifMatch + ' ' + ifNoneMatch;
+	}
+
+	/**
+	 * @return the method and path, for requests with no exact match
+	 */
+	public String looseKey() {
+		return method + ' ' + path;
+	}
+
+	/**
+	 * RestAssured adds a charset to the content type after filters have seen
+	 * the request, so only the media type is compared.
+	 */
+	private static String getMediaType(String contentType) {
+		if (contentType == null) {
+			return null;
+		}
+
+		int semicolon = contentType.indexOf(';');
+		return (semicolon == -1 ? contentType : contentType.substring(0, semicolon)).trim();
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public void setMethod(String method) {
+		this.method = method;
+	}
+
+	/**
+	 * @return the path and query of the request URI, without the origin
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public String getAccept() {
+		return accept;
+	}
+
+	public void setAccept(String accept) {
+		this.accept = accept;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public String getPrefer() {
+		return prefer;
+	}
+
+	public void setPrefer(String prefer) {
+		this.prefer = prefer;
+	}
+
+	public String getIfMatch() {
+		return ifMatch;
+	}
+
+	public void setIfMatch(String ifMatch) {
+		this.ifMatch = ifMatch;
+	}
+
+	public String getIfNoneMatch() {
+		return ifNoneMatch;
+	}
+
+	public void setIfNoneMatch(String ifNoneMatch) {
+		this.ifNoneMatch = ifNoneMatch;
+	}
+
+	/**
+	 * @return the SHA-1 of the request body in hex, or null if there was no
+	 *         body
+	 * @see #hash(byte[])
+	 */
+	public String getBodyHash() {
+		return bodyHash;
+	}
+
+	public void setBodyHash(String bodyHash) {
+		this.bodyHash = bodyHash;
+	}
+
+	/**
+	 * @return the SHA-1 of a request body in hex, or null if it's empty
+	 */
+	public static String hash(byte[] body) {
+		if (body == null || body.length == 0) {
+			return null;
+		}
+
+		try {
+			return Hex.encodeHexString(MessageDigest.getInstance("SHA-1").digest(body));
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	/**
+	 * @return the response headers as name and value pairs, in the order the
+	 *         server sent them
+	 */
+	public List<List<String>> getHeaders() {
+		return headers;
+	}
+
+	public void setHeaders(List<List<String>> headers) {
+		this.headers = headers;
+	}
+
+	/**
+	 * @return the response body, or null if it was empty
+	 */
+	public byte[] getBody() {
+		return body;
+	}
+
+	public void setBody(byte[] body) {
+		this.body = body;
+	}
+}
@@ -0,0 +1,251 @@
+package org.w3.ldp.testsuite.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server that answers the suite's requests from a recording, so
+ * the suite can run without the server it was recorded against.
+ * <p/>
+ * A request gets the recorded response for the same method, path,
+ * content-negotiation and conditional request headers and request body, or
+ * failing that, for the same request with another body. When the same request
+ * was made more than once, the responses are served in the order they were
+ * recorded, with the last one repeated after that. A request that was never
+ * recorded gets 501 Not Implemented.
+ * <p/>
+ * The recorded origin is replaced by the replay server's own in response
+ * headers and text bodies, so that Location and Link headers and the URIs
+ * in RDF representations point back to it.
+ */
+public class ReplayServer {
+
+	/** Maps each byte to one char and back, whatever the body's encoding */
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	/** Content types whose bodies may contain URIs to rewrite */
+	private static final Pattern TEXT = Pattern.compile("(?i)^(text/|application/[^;]*(json|xml|n-triples)).*");
+
+	private static final int THREADS = 16;
+
+	private final String recordedOrigin;
+	private final String recordedServer;
+	private final String runId;
+	private final Map<String, Replies> exact = new HashMap<>();
+	private final Map<String, Replies> headers = new HashMap<>();
+	private final Map<String, Replies> loose = new HashMap<>();
+	private final Set<RecordedExchange> served = Collections.newSetFromMap(new IdentityHashMap<RecordedExchange, Boolean>());
+	private final Set<String> missing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private String origin;
+
+	/**
+	 * @param dir a directory the suite recorded into with <code>--record</code>
+	 */
+	public ReplayServer(File dir) throws IOException {
+		ExchangeStore store = ExchangeStore.open(dir);
+		recordedServer = store.getServer();
+		recordedOrigin = store.getOrigin();
+		runId = store.getRunId();
+		for (RecordedExchange exchange : store.getExchanges()) {
+			add(exact, exchange.key(), exchange);
+			add(headers, exchange.headersKey(), exchange);
+			add(loose, exchange.looseKey(), exchange);
+		}
+	}
+
+	private static void add(Map<String, Replies> map, String key, RecordedExchange exchange) {
+		Replies replies = map.get(key);
+		if (replies == null) {
+			replies = new Replies();
+			map.put(key, replies);
+		}
+		replies.add(exchange);
+	}
+
+	/**
+	 * Starts the server on a free port of the loopback interface.
+	 */
+	public synchronized void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ldp-testsuite-replay-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					reply(exchange);
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		server.start();
+		origin = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+	}
+
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	/**
+	 * @return the URI of the recorded server on the replay server
+	 */
+	public String getServer() {
+		return rewrite(recordedServer);
+	}
+
+	/**
+	 * @return the run ID the recording was made with, which the tests have to
+	 *         name resources with again to request the recorded URIs, or null
+	 *         if it wasn't recorded
+	 */
+	public String getRunId() {
+		return runId;
+	}
+
+	/**
+	 * @return the URI with the recorded origin replaced by the replay
+	 *         server's, or the URI itself if it's on another origin
+	 */
+	public String rewrite(String uri) {
+		return uri != null && uri.startsWith(recordedOrigin) ? origin + uri.substring(recordedOrigin.length()) : uri;
+	}
+
+	private void reply(HttpExchange exchange) throws IOException {
+		Headers request = exchange.getRequestHeaders();
+		RecordedExchange key = new RecordedExchange();
+		key.setMethod(exchange.getRequestMethod());
+		key.setPath(exchange.getRequestURI().toString());
+		key.setAccept(request.getFirst("Accept"));
+		key.setContentType(request.getFirst("Content-Type"));
+		key.setPrefer(request.getFirst("Prefer"));
+		key.setIfMatch(request.getFirst("If-Match"));
+		key.setIfNoneMatch(request.getFirst("If-None-Match"));
+		key.setBodyHash(RecordedExchange.hash(readBody(exchange)));
+
+		Replies replies = exact.get(key.key());
+		if (replies == null) {
+			replies = headers.get(key.headersKey());
+		}
+		if (replies == null) {
+			replies = loose.get(key.looseKey());
+		}
+		if (replies == null) {
+			if (missing.add(key.looseKey())) {
+				System.err.println("WARNING: No recorded response for " + key.looseKey());
+			}
+			exchange.sendResponseHeaders(501, -1);
+			return;
+		}
+
+		RecordedExchange recorded = next(replies);
+		String contentType = null;
+		Headers headers = exchange.getResponseHeaders();
+		for (List<String> header : recorded.getHeaders()) {
+			headers.add(header.get(0), header.get(1).replace(recordedOrigin, origin));
+			if ("Content-Type".equalsIgnoreCase(header.get(0))) {
+				contentType = header.get(1);
+			}
+		}
+
+		byte[] body = recorded.getBody();
+		if (body != null && contentType != null && TEXT.matcher(contentType).matches()) {
+			body = new String(body, ISO_8859_1).replace(recordedOrigin, origin).getBytes(ISO_8859_1);
+		}
+
+		int status = recorded.getStatus();
+		if (body == null || "HEAD".equals(key.getMethod()) || status == 204 || status == 304) {
+			exchange.sendResponseHeaders(status, -1);
+		} else {
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+
+	/**
+	 * @return the request body, with this server's origin replaced by the
+	 *         recorded one in text bodies, as it was when recorded
+	 */
+	private byte[] readBody(HttpExchange exchange) throws IOException {
+		byte[] body;
+		try (InputStream in = exchange.getRequestBody()) {
+			body = IOUtils.toByteArray(in);
+		}
+
+		String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+		if (contentType != null && TEXT.matcher(contentType).matches()) {
+			body = new String(body, ISO_8859_1).replace(origin, recordedOrigin).getBytes(ISO_8859_1);
+		}
+
+		return body;
+	}
+
+	/**
+	 * Recorded responses to the same request, served in order. An exchange
+	 * served for one kind of match isn't served again for another.
+	 */
+	private static class Replies {
+		private final List<RecordedExchange> exchanges = new ArrayList<>();
+
+		void add(RecordedExchange exchange) {
+			exchanges.add(exchange);
+		}
+	}
+
+	/**
+	 * @return the first of the replies not served yet, or the last one if
+	 *         they have all been served
+	 */
+	private synchronized RecordedExchange next(Replies replies) {
+		for (RecordedExchange exchange : replies.exchanges) {
+			if (served.add(exchange)) {
+				return exchange;
+			}
+		}
+
+		return replies.exchanges.get(replies.exchanges.size() - 1);
+	}
+}
@@ -0,0 +1,48 @@
+package org.w3.ldp.testsuite.reporter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the CSV files that benchmarks and measuring reporters leave in the
+ * report directory next to the EARL and HTML reports.
+ */
+public final class CsvReport {
+
+	private static final String outputDir = "report"; // directory for results
+
+	private CsvReport() {
+	}
+
+	/**
+	 * @param fileName the name of the file in the report directory, which is
+	 *                 replaced if it exists
+	 * @param header   the names of the columns, separated by commas
+	 * @param rows     the lines of the file after the header
+	 */
+	public static void write(String fileName, String header, List<String> rows) throws IOException {
+		new File(outputDir).mkdirs();
+		BufferedWriter writer = new BufferedWriter(new FileWriter(outputDir + "/" + fileName));
+		try {
+			writer.write(header);
+			writer.newLine();
+			for (String row : rows) {
+				writer.write(row);
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * @return a {@link org.w3.ldp.testsuite.util.Histogram Histogram} value,
+	 *         which is in microseconds, in milliseconds
+	 */
+	public static double toMillis(long micros) {
+		return micros / 1000.0;
+	}
+}
@@ -0,0 +1,76 @@
+package org.w3.ldp.testsuite.reporter;
+
+import static org.w3.ldp.testsuite.reporter.CsvReport.toMillis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+import org.w3.ldp.testsuite.consistency.ConsistencyMonitor;
+import org.w3.ldp.testsuite.consistency.ConvergenceResult;
+import org.w3.ldp.testsuite.util.Histogram;
+
+/**
+ * Reports how long writes took to become visible with
+ * {@code --consistency}, both to the console and to a CSV file.
+ */
+public class LdpConsistencyReporter implements IReporter {
+
+	private static final double[] PERCENTILES = { 50, 95, 99 };
+
+	@Override
+	public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites,
+			String outputDirectory) {
+		List<ConvergenceResult> results = ConsistencyMonitor.getResults();
+		if (results.isEmpty()) {
+			return;
+		}
+
+		printSummary(results);
+		try {
+			writeCsv(results);
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private void printSummary(List<ConvergenceResult> results) {
+		System.out.printf("%n%-40s %7s %7s %9s %9s %9s %9s %9s%n",
+				"Consistency (convergence in ms)", "Checks", "Stale", "Timeouts", "p50", "p95", "p99", "max");
+		for (ConvergenceResult result : results) {
+			Histogram convergence = result.getConvergence();
+			System.out.printf("%-40s %7d %6.1f%% %9d %9.2f %9.2f %9.2f %9.2f%n",
+					result.getName(), result.getChecks(), result.getStaleRate() * 100, result.getTimeouts(),
+					toMillis(convergence.getValueAtPercentile(50)), toMillis(convergence.getValueAtPercentile(95)),
+					toMillis(convergence.getValueAtPercentile(99)), toMillis(convergence.getMax()));
+		}
+	}
+
+	private void writeCsv(List<ConvergenceResult> results) throws IOException {
+		List<String> rows = new ArrayList<String>();
+		for (ConvergenceResult result : results) {
+			Histogram convergence = result.getConvergence();
+			String row = quote(result.getName()) + "," + result.getChecks() + "," + result.getStale() + ","
+					+ format(result.getStaleRate()) + "," + result.getTimeouts() + "," + result.getReads() + ","
+					+ format(convergence.getMean() / 1000) + "," + format(toMillis(convergence.getMax()));
+			for (double percentile : PERCENTILES) {
+				row += "," + format(toMillis(convergence.getValueAtPercentile(percentile)));
+			}
+			rows.add(row);
+		}
+
+		CsvReport.write("ldp-testsuite-consistency-report.csv",
+				"check,checks,stale,staleRate,timeouts,reads,meanMs,maxMs,p50Ms,p95Ms,p99Ms", rows);
+	}
+
+	private static String format(double value) {
+		return String.valueOf(Math.round(value * 1000) / 1000.0);
+	}
+
+	private static String quote(String value) {
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+}
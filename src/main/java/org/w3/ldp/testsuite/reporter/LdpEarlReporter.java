@@ -1,32 +1,24 @@
 package org.w3.ldp.testsuite.reporter;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.testng.IReporter;
-import org.testng.IResultMap;
 import org.testng.ISuite;
-import org.testng.ISuiteResult;
-import org.testng.ITestContext;
-import org.testng.ITestResult;
 import org.testng.internal.Utils;
 import org.testng.xml.XmlSuite;
 import org.w3.ldp.testsuite.annotations.SpecTest;
 import org.w3.ldp.testsuite.annotations.SpecTest.METHOD;
+import org.w3.ldp.testsuite.http.RequestTimer;
+import org.w3.ldp.testsuite.http.RequestTimings;
+import org.w3.ldp.testsuite.util.Histogram;
 import org.w3.ldp.testsuite.vocab.Earl;
 
-import com.github.jsonldjava.core.JsonLdError;
-import com.github.jsonldjava.core.JsonLdOptions;
-import com.github.jsonldjava.core.JsonLdProcessor;
 import com.github.jsonldjava.jena.JenaJSONLD;
-import com.github.jsonldjava.utils.JsonUtils;
 import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.Property;
@@ -41,11 +33,14 @@ import com.hp.hpl.jena.vocabulary.RDF;
  * Earl Reporter for the LDP Test Suite. Takes in the results of the test suite
  * and reports the information to a Turtle file and a JSON-LD file, both of
  * which contains Earl vocabulary.
+ * <p/>
+ * Each assertion is built in its own small model and streamed to both files
+ * by a {@link StreamingEarlWriter}, so large runs don't hold the whole report
+ * in memory.
  */
 public class LdpEarlReporter implements IReporter {
 
-	private BufferedWriter writerTurtle;
-	private BufferedWriter writerJson;
+	private StreamingEarlWriter writer;
 	private Model model;
 
 	private static final String LDPT_NAME = "http://w3c.github.io/ldp-testsuite#";
@@ -53,8 +48,6 @@ public class LdpEarlReporter implements IReporter {
 	private static final String PASS = "TEST PASSED";
 	private static final String FAIL = "TEST FAILED";
 	private static final String SKIP = "TEST SKIPPED";
-	private static final String TURTLE = "TURTLE";
-	private static final String JSON_LD = "JSON-LD";
 	private static final String outputDir = "report"; // directory for results
 
 	// private static final String DIRECT_TEST = "DirectContainerTest";
@@ -79,6 +72,21 @@ public class LdpEarlReporter implements IReporter {
 	private static Property ranAsClass = ResourceFactory
 			.createProperty(LDPT_NAME + "ranAsClass");
 
+	/* HTTP request timings, see createTimingProperties() */
+	private static Property requestTimings = ResourceFactory.createProperty(LDPT_NAME + "requestTimings");
+	private static Property httpMethod = ResourceFactory.createProperty(LDPT_NAME + "httpMethod");
+	private static Property requestCount = ResourceFactory.createProperty(LDPT_NAME + "requestCount");
+	private static Property connectionCount = ResourceFactory.createProperty(LDPT_NAME + "connectionCount");
+	private static Property dnsTime = ResourceFactory.createProperty(LDPT_NAME + "dnsTime");
+	private static Property connectTime = ResourceFactory.createProperty(LDPT_NAME + "connectTime");
+	private static Property timeToFirstByte = ResourceFactory.createProperty(LDPT_NAME + "timeToFirstByte");
+	private static Property bodyTime = ResourceFactory.createProperty(LDPT_NAME + "bodyTime");
+	private static Property totalTime = ResourceFactory.createProperty(LDPT_NAME + "totalTime");
+	private static Property p50 = ResourceFactory.createProperty(LDPT_NAME + "p50");
+	private static Property p95 = ResourceFactory.createProperty(LDPT_NAME + "p95");
+	private static Property p99 = ResourceFactory.createProperty(LDPT_NAME + "p99");
+	private static Property max = ResourceFactory.createProperty(LDPT_NAME + "max");
+
 	static {
 		JenaJSONLD.init();
 	}
@@ -86,25 +94,38 @@ public class LdpEarlReporter implements IReporter {
 	@Override
 	public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites,
 			String outputDirectory) {
+		generateReport(SuiteResults.of(suites));
+	}
+
+	/**
+	 * Generates the report from results that didn't necessarily come from
+	 * this run, such as the results in a journal.
+	 */
+	public void generateReport(List<SuiteResults> suites) {
 		try {
 			createWriter(outputDir);
 		} catch (IOException e) {
 			e.printStackTrace(System.err);
 			System.exit(1);
 		}
-		createModel();
-		createAssertions(suites);
-		write();
 		try {
-			endWriter();
+			createAssertions(suites);
 		} catch (IOException e) {
 			e.printStackTrace(System.err);
-			System.exit(1);
+		} finally {
+			try {
+				endWriter();
+			} catch (IOException e) {
+				e.printStackTrace(System.err);
+				System.exit(1);
+			}
 		}
 	}
 
-	private void createAssertions(List<ISuite> suites) {
-		for (ISuite suite : suites) {
+	private void createAssertions(List<SuiteResults> suites) throws IOException {
+		for (SuiteResults suite : suites) {
+			createModel();
+
 			// Acquire parameters
 			// direct = suite.getParameter("directContainer");
 			// member = suite.getParameter("memberResource");
@@ -162,28 +183,25 @@ public class LdpEarlReporter implements IReporter {
 				subjectResource
 						.addProperty(DOAP.programming_language, language);
 			model.createResource(null, subjectResource);
+			write();
 
-			Map<String, ISuiteResult> tests = suite.getResults();
-
-			for (ISuiteResult results : tests.values()) {
-				ITestContext testContext = results.getTestContext();
-				getResultProperties(testContext.getFailedTests(), FAIL);
-				getResultProperties(testContext.getSkippedTests(), SKIP);
-				getResultProperties(testContext.getPassedTests(), PASS);
-			}
-
+			getResultProperties(suite.getFailedTests(), FAIL);
+			getResultProperties(suite.getSkippedTests(), SKIP);
+			getResultProperties(suite.getPassedTests(), PASS);
 		}
 
 	}
 
-	private void getResultProperties(IResultMap tests, String status) {
-		for (ITestResult result : tests.getAllResults()) {
+	private void getResultProperties(List<MethodResult> tests, String status) throws IOException {
+		for (MethodResult result : tests) {
+			createModel();
 			makeResultResource(result, status);
+			write();
 		}
 	}
 
-	private void makeResultResource(ITestResult result, String status) {
-		String declaringClass = result.getMethod().getConstructorOrMethod().getMethod().getDeclaringClass().getName();
+	private void makeResultResource(MethodResult result, String status) {
+		String declaringClass = result.getMethod().getDeclaringClass().getName();
 		declaringClass = declaringClass.substring(declaringClass
 				.lastIndexOf(".") + 1);
 		
@@ -218,11 +236,9 @@ public class LdpEarlReporter implements IReporter {
 			createExceptionProperty(result.getThrowable(), resultResource);
 		}
 
-		if (result.getMethod().getConstructorOrMethod().getMethod()
-				.getAnnotation(SpecTest.class) != null) {
+		if (result.getMethod().getAnnotation(SpecTest.class) != null) {
 
-			SpecTest test = result.getMethod().getConstructorOrMethod()
-					.getMethod().getAnnotation(SpecTest.class);
+			SpecTest test = result.getMethod().getAnnotation(SpecTest.class);
 			METHOD type = test.testMethod();
 
 			switch (type) {
@@ -245,9 +261,11 @@ public class LdpEarlReporter implements IReporter {
 		}
 
 		assertionResource.addProperty(Earl.assertedBy, subjectResource);
-		assertionResource.addLiteral(ranAsClass, result.getTestClass().getRealClass().getSimpleName());
+		assertionResource.addLiteral(ranAsClass, result.getTestClass().getSimpleName());
 
 		resultResource.addProperty(DCTerms.date, model.createTypedLiteral(GregorianCalendar.getInstance()));
+
+		createTimingProperties(result, resultResource);
 		
 		/*
 		 * Add the above resources to the Assertion Resource
@@ -256,6 +274,41 @@ public class LdpEarlReporter implements IReporter {
 
 	}
 
+	/**
+	 * Adds an ldpt:requestTimings node per HTTP method the test used, with the
+	 * latency percentiles for each phase of the request in milliseconds.
+	 */
+	private void createTimingProperties(MethodResult result, Resource resultResource) {
+		String test = result.getTestClass().getSimpleName() + "." + result.getName();
+		for (Map.Entry<String, RequestTimings> entry : RequestTimer.getTimings(test).entrySet()) {
+			RequestTimings timings = entry.getValue();
+			Resource timingResource = model.createResource();
+			timingResource.addProperty(httpMethod, entry.getKey());
+			timingResource.addLiteral(requestCount, timings.getRequestCount());
+			timingResource.addLiteral(connectionCount, timings.getConnectionCount());
+			addPercentiles(timingResource, dnsTime, timings.getDns());
+			addPercentiles(timingResource, connectTime, timings.getConnect());
+			addPercentiles(timingResource, timeToFirstByte, timings.getTimeToFirstByte());
+			addPercentiles(timingResource, bodyTime, timings.getBody());
+			addPercentiles(timingResource, totalTime, timings.getTotal());
+
+			resultResource.addProperty(requestTimings, timingResource);
+		}
+	}
+
+	private void addPercentiles(Resource resource, Property phase, Histogram histogram) {
+		if (histogram.getTotalCount() == 0) {
+			return;
+		}
+
+		Resource percentiles = model.createResource();
+		percentiles.addLiteral(p50, histogram.getValueAtPercentile(50) / 1000.0);
+		percentiles.addLiteral(p95, histogram.getValueAtPercentile(95) / 1000.0);
+		percentiles.addLiteral(p99, histogram.getValueAtPercentile(99) / 1000.0);
+		percentiles.addLiteral(max, histogram.getMax() / 1000.0);
+		resource.addProperty(phase, percentiles);
+	}
+
 	private void createExceptionProperty(Throwable thrown, Resource resource) {
 		if (thrown.getClass().getName().contains(SKIP))
 			resource.addProperty(DCTerms.description, thrown.getMessage());
@@ -265,69 +318,47 @@ public class LdpEarlReporter implements IReporter {
 	}
 
 	private void createWriter(String directory) throws IOException {
-		writerTurtle = null;
-		writerJson = null;
+		writer = null;
 		new File(directory).mkdirs();
-		writerTurtle = new BufferedWriter(new FileWriter(directory
-				+ "/ldp-testsuite-execution-report-earl.ttl"));
-		writerJson = new BufferedWriter(new FileWriter(directory
-				+ "/ldp-testsuite-execution-report-earl.jsonld", false));
-
+		writer = new StreamingEarlWriter(
+				new File(directory, "ldp-testsuite-execution-report-earl.ttl"),
+				new File(directory, "ldp-testsuite-execution-report-earl.jsonld"),
+				getPrefixes());
 	}
 
-	private void write() {
-		model.write(writerTurtle, TURTLE);
-
-		StringWriter sw = new StringWriter();
-		model.write(sw, JSON_LD);
-		try {
-
-			Object jsonObject = JsonUtils.fromString(sw.toString());
-
-			HashMap<String, String> context = new HashMap<String, String>();
-			// Customise context
-			context.put("dcterms", "http://purl.org/dc/terms/");
-			context.put("earl", "http://www.w3.org/ns/earl#");
-			context.put("foaf", "http://xmlns.com/foaf/0.1/");
-			context.put("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
-
-			// Create an instance of JsonLdOptions with the standard JSON-LD
-			// options (will just be default for now)
-			JsonLdOptions options = new JsonLdOptions();
-			Object compact = JsonLdProcessor.compact(jsonObject, context,
-					options);
-
-			writerJson.write(JsonUtils.toPrettyString(compact));
-		} catch (IOException | JsonLdError e) {
-			e.printStackTrace();
-		}
-
+	private void write() throws IOException {
+		writer.write(model);
 	}
 
 	private void endWriter() throws IOException {
-		writerTurtle.flush();
-		writerTurtle.close();
-
-		writerJson.flush();
-		writerTurtle.close();
+		if (writer != null) {
+			writer.close();
+		}
 	}
 
+	/**
+	 * Creates an empty model for the next assertion, so only one is in
+	 * memory at a time.
+	 */
 	private void createModel() {
 		model = ModelFactory.createDefaultModel();
-		writePrefixes();
 	}
 
-	private void writePrefixes() {
-		model.setNsPrefix("doap", "http://usefulinc.com/ns/doap#");
-		model.setNsPrefix("foaf", "http://xmlns.com/foaf/0.1/");
-		model.setNsPrefix("earl", "http://www.w3.org/ns/earl#");
-		model.setNsPrefix("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
-		model.setNsPrefix("rdfs", "http://www.w3.org/2000/01/rdf-schema#");
-		model.setNsPrefix("mf",
+	private static Map<String, Object> getPrefixes() {
+		Map<String, Object> prefixes = new LinkedHashMap<String, Object>();
+		prefixes.put("doap", "http://usefulinc.com/ns/doap#");
+		prefixes.put("foaf", "http://xmlns.com/foaf/0.1/");
+		prefixes.put("earl", "http://www.w3.org/ns/earl#");
+		prefixes.put("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
+		prefixes.put("rdfs", "http://www.w3.org/2000/01/rdf-schema#");
+		prefixes.put("mf",
 				"http://www.w3.org/2001/sw/DataAccess/tests/test-manifest#");
-		model.setNsPrefix("rdft", "http://www.w3.org/ns/rdftest#");
-		model.setNsPrefix("dcterms", "http://purl.org/dc/terms/");
-		model.setNsPrefix("ldpt", LDPT_NAME);
+		prefixes.put("rdft", "http://www.w3.org/ns/rdftest#");
+		prefixes.put("dcterms", "http://purl.org/dc/terms/");
+		prefixes.put("xsd", "http://www.w3.org/2001/XMLSchema#");
+		prefixes.put("ldpt", LDPT_NAME);
+
+		return prefixes;
 	}
 
 }
@@ -8,13 +8,15 @@ import org.testng.internal.Utils;
 import org.testng.xml.XmlSuite;
 import org.w3.ldp.testsuite.LdpTestSuite;
 import org.w3.ldp.testsuite.annotations.SpecTest;
+import org.w3.ldp.testsuite.http.RequestTimer;
+import org.w3.ldp.testsuite.http.RequestTimings;
+import org.w3.ldp.testsuite.util.Histogram;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringWriter;
-import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
@@ -26,6 +28,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
 
 import static org.rendersnake.HtmlAttributesFactory.*;
 
@@ -52,9 +55,9 @@ public class LdpHtmlReporter implements IReporter {
 	private int shouldFailed;
 	private int mayFailed;
 
-	private IResultMap passedTests;
-	private IResultMap failedTests;
-	private IResultMap skippedTests;
+	private List<MethodResult> passedTests;
+	private List<MethodResult> failedTests;
+	private List<MethodResult> skippedTests;
 	
 	HashMap<String, Integer> passClasses;
 	HashMap<String, Integer> failClasses;
@@ -68,8 +71,16 @@ public class LdpHtmlReporter implements IReporter {
 
 	public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites,
 							   String outputDirectory) {
+		generateReport(SuiteResults.of(suites), outputDirectory);
+	}
+
+	/**
+	 * Generates the report from results that didn't necessarily come from
+	 * this run, such as the results in a journal.
+	 */
+	public void generateReport(List<SuiteResults> suites, String outputDirectory) {
 		try {
-			for (ISuite suite : suites) {
+			for (SuiteResults suite : suites) {
 				html = new HtmlCanvas();
 				html.html().head();
 
@@ -79,15 +90,9 @@ public class LdpHtmlReporter implements IReporter {
 				html.h1().content(LdpTestSuite.NAME + " Summary");
 			
 				// Getting the results for the said suite
-				Map<String, ISuiteResult> suiteResults = suite.getResults();
-
-				for (ISuiteResult sr : suiteResults.values()) {
-
-					ITestContext tc = sr.getTestContext();
-					passedTests = tc.getPassedTests();
-					failedTests = tc.getFailedTests();
-					skippedTests = tc.getSkippedTests();
-				}
+				passedTests = suite.getPassedTests();
+				failedTests = suite.getFailedTests();
+				skippedTests = suite.getSkippedTests();
 				
 				// Initialize variables for charts
 				passClasses = getClasses(passedTests);
@@ -114,6 +119,8 @@ public class LdpHtmlReporter implements IReporter {
 				displayGroupsInfo(suites);
 				displayMethodsSummary(suites);
 				toTop();
+				displayRequestTimings();
+				toTop();
 				generateMethodDetails(suites);
 
 				html.script().content(
@@ -166,92 +173,67 @@ public class LdpHtmlReporter implements IReporter {
 		}
 	}
 
-	private void generateOverallSummaryReport(List<ISuite> suites, String id)
+	private void generateOverallSummaryReport(List<SuiteResults> suites, String id)
 			throws IOException {
 		html.table(class_("summary"));
 		Date date = new Date();
-		for (ISuite suite : suites) {
+		for (SuiteResults suite : suites) {
 			// Getting the results for the said suite
-			Map<String, ISuiteResult> suiteResults = suite.getResults();
-
-			for (ISuiteResult sr : suiteResults.values()) {
-
-				ITestContext tc = sr.getTestContext();
-
-				Iterator<ITestResult> passedResults = tc.getPassedTests()
-						.getAllResults().iterator();
-				while (passedResults.hasNext()) {
-					ITestResult result = passedResults.next();
-
-					try {
-						Method m = result.getMethod().getConstructorOrMethod()
-								.getMethod();
-						String[] groups = m.getAnnotation(Test.class).groups();
-						for (int i = 0; i < groups.length; i++) {
-							if (groups[i].equals("MUST"))
-								mustPass++;
-							if (groups[i].equals("MAY"))
-								mayPass++;
-							if (groups[i].equals("SHOULD"))
-								shouldPass++;
-
-						}
-					} catch (SecurityException e) {
-						e.printStackTrace();
-					}
+			for (MethodResult result : suite.getPassedTests()) {
+				try {
+					String[] groups = result.getMethod().getAnnotation(Test.class).groups();
+					for (int i = 0; i < groups.length; i++) {
+						if (groups[i].equals("MUST"))
+							mustPass++;
+						if (groups[i].equals("MAY"))
+							mayPass++;
+						if (groups[i].equals("SHOULD"))
+							shouldPass++;
 
-				}
-				Iterator<ITestResult> failedResults = tc.getFailedTests()
-						.getAllResults().iterator();
-				while (failedResults.hasNext()) {
-					ITestResult result = failedResults.next();
-
-					try {
-						Method m = result.getMethod().getConstructorOrMethod()
-								.getMethod();
-						String[] groups = m.getAnnotation(Test.class).groups();
-						for (int i = 0; i < groups.length; i++) {
-							if (groups[i].equals("MUST"))
-								mustFailed++;
-							if (groups[i].equals("SHOULD"))
-								shouldFailed++;
-							if (groups[i].equals("MAY"))
-								mayFailed++;
-						}
-					} catch (SecurityException e) {
-						e.printStackTrace();
 					}
-
+				} catch (SecurityException e) {
+					e.printStackTrace();
 				}
-				Iterator<ITestResult> skippedResults = tc.getSkippedTests()
-						.getAllResults().iterator();
-				while (skippedResults.hasNext()) {
-					ITestResult result = skippedResults.next();
-
-					try {
-						Method m = result.getMethod().getConstructorOrMethod()
-								.getMethod();
-						String[] groups = m.getAnnotation(Test.class).groups();
-						for (int i = 0; i < groups.length; i++) {
-							if (groups[i].equals("MUST"))
-								mustSkip++;
-							if (groups[i].equals("MAY"))
-								maySkip++;
-							if (groups[i].equals("SHOULD"))
-								shouldSkip++;
-
-						}
-					} catch (SecurityException e) {
-						e.printStackTrace();
+
+			}
+			for (MethodResult result : suite.getFailedTests()) {
+				try {
+					String[] groups = result.getMethod().getAnnotation(Test.class).groups();
+					for (int i = 0; i < groups.length; i++) {
+						if (groups[i].equals("MUST"))
+							mustFailed++;
+						if (groups[i].equals("SHOULD"))
+							shouldFailed++;
+						if (groups[i].equals("MAY"))
+							mayFailed++;
 					}
+				} catch (SecurityException e) {
+					e.printStackTrace();
+				}
+
+			}
+			for (MethodResult result : suite.getSkippedTests()) {
+				try {
+					String[] groups = result.getMethod().getAnnotation(Test.class).groups();
+					for (int i = 0; i < groups.length; i++) {
+						if (groups[i].equals("MUST"))
+							mustSkip++;
+						if (groups[i].equals("MAY"))
+							maySkip++;
+						if (groups[i].equals("SHOULD"))
+							shouldSkip++;
 
+					}
+				} catch (SecurityException e) {
+					e.printStackTrace();
 				}
-				passed = tc.getPassedTests().getAllResults().size();
-				failed = tc.getFailedTests().getAllResults().size();
-				skipped = tc.getSkippedTests().getAllResults().size();
+
 			}
+			passed = suite.getPassedTests().size();
+			failed = suite.getFailedTests().size();
+			skipped = suite.getSkippedTests().size();
 			total = passed + failed + skipped;
-			generateSummaryTableStart(date, suite.getName());
+			generateSummaryTableStart(date, suite.getSuiteName());
 			generateSummaryTable();
 			html._table();
 		}
@@ -300,18 +282,14 @@ public class LdpHtmlReporter implements IReporter {
 		}
 	}
 
-	private void displayGroupsInfo(List<ISuite> suite) throws IOException {
-		for (ISuite testSuite : suite) {
-			Map<String, ISuiteResult> tests = testSuite.getResults();
-			for (ISuiteResult results : tests.values()) {
-				ITestContext overview = results.getTestContext();
-				String[] excluded = overview.getExcludedGroups();
-				String[] included = overview.getIncludedGroups();
-				generateList(included,
-						"Included Groups for " + testSuite.getName());
-				generateList(excluded,
-						"Excluded Groups for " + testSuite.getName());
-			}
+	private void displayGroupsInfo(List<SuiteResults> suite) throws IOException {
+		for (SuiteResults testSuite : suite) {
+			String[] excluded = testSuite.getExcludedGroups();
+			String[] included = testSuite.getIncludedGroups();
+			generateList(included,
+					"Included Groups for " + testSuite.getSuiteName());
+			generateList(excluded,
+					"Excluded Groups for " + testSuite.getSuiteName());
 		}
 	}
 
@@ -330,20 +308,16 @@ public class LdpHtmlReporter implements IReporter {
 		}
 	}
 
-	private void displayMethodsSummary(List<ISuite> suites) throws IOException {
-		for (ISuite suite : suites) {
-			Map<String, ISuiteResult> r = suite.getResults();
-			for (ISuiteResult r2 : r.values()) {
-				ITestContext testContext = r2.getTestContext();
-				makeMethodsList(testContext);
-			}
+	private void displayMethodsSummary(List<SuiteResults> suites) throws IOException {
+		for (SuiteResults suite : suites) {
+			makeMethodsList(suite);
 		}
 	}
 
-	private void makeMethodsList(ITestContext testContext) throws IOException {
-		IResultMap failed = testContext.getFailedTests();
-		IResultMap passed = testContext.getPassedTests();
-		IResultMap skipped = testContext.getSkippedTests();
+	private void makeMethodsList(SuiteResults suite) throws IOException {
+		List<MethodResult> failed = suite.getFailedTests();
+		List<MethodResult> passed = suite.getPassedTests();
+		List<MethodResult> skipped = suite.getSkippedTests();
 
 		html.h1(class_("center")).content("Methods called");
 		html.a(href("#Skipped")).write("Go To Skipped Tests").br()._a();
@@ -363,16 +337,15 @@ public class LdpHtmlReporter implements IReporter {
 
 	}
 
-	private void makeMethodSummaryTable(IResultMap tests, String title)
+	private void makeMethodSummaryTable(List<MethodResult> tests, String title)
 			throws IOException {
 		html.table(class_("indented"));
 		html.tr().th(class_(title)).a(id((title))).write(title + " Test Cases")._a()._th();
 		html.th(class_(title)).content("Groups");
 		html.th(class_(title)).content("Test Class");
 		html.th(class_(title)).content("Description of Test Method")._tr();
-		for (ITestResult result : tests.getAllResults()) {
-			ITestNGMethod method = result.getMethod();
-			List<String> groups = Arrays.asList(method.getGroups());
+		for (MethodResult result : tests) {
+			List<String> groups = Arrays.asList(result.getGroups());
 			if (groups.contains("MUST") && result.getStatus() == ITestResult.FAILURE) {
 				html.tr(class_("critical"));
 			} else {
@@ -380,53 +353,103 @@ public class LdpHtmlReporter implements IReporter {
 			}
 
 			html.td()
-					.a(href("#" + method.getTestClass().getName() + "_"
-							+ method.getMethodName()))
-					.write(method.getMethodName(), NO_ESCAPE)._a()._td();
-			html.td().content(Arrays.toString(method.getGroups()));
-			html.td().content(method.getTestClass().getName());
+					.a(href("#" + result.getTestClass().getName() + "_"
+							+ result.getName()))
+					.write(result.getName(), NO_ESCAPE)._a()._td();
+			html.td().content(Arrays.toString(result.getGroups()));
+			html.td().content(result.getTestClass().getName());
 
 			html.td().content(
-					(method.getDescription() != null ? method.getDescription()
+					(result.getDescription() != null ? result.getDescription()
 							: "No Description found"));
 			html._tr();
 		}
 		html._table();
 	}
 
-	private void generateMethodDetails(List<ISuite> suites) throws IOException {
-		html.h1().content("Test Method Details");
-		for (ISuite suite : suites) {
-			Map<String, ISuiteResult> r = suite.getResults();
-			for (ISuiteResult r2 : r.values()) {
-				ITestContext testContext = r2.getTestContext();
-
-				generateDetail(testContext.getFailedTests());
-				generateDetail(testContext.getSkippedTests());
-				generateDetail(testContext.getPassedTests());
+	private void displayRequestTimings() throws IOException {
+		SortedSet<String> tests = RequestTimer.getTests();
+		if (tests.isEmpty()) {
+			return;
+		}
+
+		html.h1(class_("center")).a(id("RequestTimings")).content("HTTP Request Timings")._h1();
+		html.p(class_("indented")).write("Times are in milliseconds. DNS and connect times only count "
+				+ "requests that opened a new connection.")._p();
+		html.table(class_("indented"));
+		html.tr().th().content("Test");
+		html.th().content("HTTP Method");
+		html.th().content("Requests");
+		html.th().content("New Connections");
+		html.th().content("DNS (p50)");
+		html.th().content("Connect (p50)");
+		html.th().content("First Byte (p50 / p95 / p99)");
+		html.th().content("Body (p50)");
+		html.th().content("Total (p50 / p95 / p99 / max)");
+		html._tr();
+		for (String test : tests) {
+			for (Map.Entry<String, RequestTimings> entry : RequestTimer.getTimings(test).entrySet()) {
+				RequestTimings timings = entry.getValue();
+				html.tr();
+				html.td().content(test);
+				html.td().content(entry.getKey());
+				html.td().content(String.valueOf(timings.getRequestCount()));
+				html.td().content(String.valueOf(timings.getConnectionCount()));
+				html.td().content(formatPercentiles(timings.getDns(), 50));
+				html.td().content(formatPercentiles(timings.getConnect(), 50));
+				html.td().content(formatPercentiles(timings.getTimeToFirstByte(), 50, 95, 99));
+				html.td().content(formatPercentiles(timings.getBody(), 50));
+				html.td().content(formatPercentiles(timings.getTotal(), 50, 95, 99, 100));
+				html._tr();
+			}
+		}
+		html._table();
+	}
+
+	private String formatPercentiles(Histogram histogram, double... percentiles) {
+		if (histogram.getTotalCount() == 0) {
+			return "-";
+		}
+
+		DecimalFormat df = new DecimalFormat("0.00");
+		StringBuilder formatted = new StringBuilder();
+		for (double percentile : percentiles) {
+			if (formatted.length() > 0) {
+				formatted.append(" / ");
 			}
+			formatted.append(df.format(histogram.getValueAtPercentile(percentile) / 1000.0));
+		}
+
+		return formatted.toString();
+	}
+
+	private void generateMethodDetails(List<SuiteResults> suites) throws IOException {
+		html.h1().content("Test Method Details");
+		for (SuiteResults suite : suites) {
+			generateDetail(suite.getFailedTests());
+			generateDetail(suite.getSkippedTests());
+			generateDetail(suite.getPassedTests());
 		}
 	}
 
-	private void generateDetail(IResultMap tests) throws IOException {
-		for (ITestResult m : tests.getAllResults()) {
-			ITestNGMethod method = m.getMethod();
+	private void generateDetail(List<MethodResult> tests) throws IOException {
+		for (MethodResult m : tests) {
 			html.h2()
 					.a(id(m.getTestClass().getName() + "_"
-							+ method.getMethodName()))
+							+ m.getName()))
 					.write(m.getTestClass().getName() + ": "
-							+ method.getMethodName())._a()._h2();
-			getAdditionalInfo(m, method);
+							+ m.getName())._a()._h2();
+			getAdditionalInfo(m);
 			html.p(class_("indented"))
 					.b()
 					.write("Description: ")
 					._b()
-					.write((method.getDescription() != null ? method
+					.write((m.getDescription() != null ? m
 							.getDescription()
 							: "No description for this test method found"))
 					._p();
 			String groups = "";
-			for (String group : method.getGroups()) {
+			for (String group : m.getGroups()) {
 				groups += group + " ";
 			}
 			html.p(class_("indented")).b().write("Requirement Level: ")._b()
@@ -437,7 +460,7 @@ public class LdpHtmlReporter implements IReporter {
 
 	}
 
-	private void getAdditionalInfo(ITestResult m, ITestNGMethod method)
+	private void getAdditionalInfo(MethodResult m)
 			throws IOException {
 		if (m.getThrowable() != null) {
 			Throwable thrown = m.getThrowable();
@@ -461,10 +484,8 @@ public class LdpHtmlReporter implements IReporter {
 		}
 
 		String reference = "";
-		if (m.getMethod().getConstructorOrMethod().getMethod()
-				.getAnnotation(SpecTest.class) != null) {
-			reference = m.getMethod().getConstructorOrMethod().getMethod()
-					.getAnnotation(SpecTest.class).specRefUri();
+		if (m.getMethod().getAnnotation(SpecTest.class) != null) {
+			reference = m.getMethod().getAnnotation(SpecTest.class).specRefUri();
 			html.p(class_("indented")).b().write("Reference URI: ")._b()
 					.a(href(reference)).write(reference)._a()._p();
 		}
@@ -622,9 +643,9 @@ public class LdpHtmlReporter implements IReporter {
 		graphs.write(" },");
 	}
 
-	private HashMap<String, Integer> getClasses(IResultMap tests) {
+	private HashMap<String, Integer> getClasses(List<MethodResult> tests) {
 		HashMap<String, Integer> classes = new HashMap<String, Integer>();
-		Iterator<ITestResult> results = tests.getAllResults().iterator();
+		Iterator<MethodResult> results = tests.iterator();
 		while (results.hasNext()) {
 			String name = results.next().getTestClass().getName().toString();
 			name = name.substring(name.lastIndexOf(".") + 1);
@@ -0,0 +1,483 @@
+package org.w3.ldp.testsuite.reporter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+import org.w3.ldp.testsuite.http.RequestTimer;
+import org.w3.ldp.testsuite.http.RequestTimings;
+import org.w3.ldp.testsuite.util.Histogram;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads a journal written by {@link LdpJournalListener} back into the
+ * {@link SuiteResults} the reporters generate their reports from, as if the
+ * tests had just run.
+ * <p/>
+ * The test classes and methods are looked up by name, so their annotations,
+ * such as the {@link org.w3.ldp.testsuite.annotations.SpecTest} the reporters
+ * read, come from this version of the test suite. Results for tests it no
+ * longer has are left out with a warning. A line cut short by a crash is
+ * ignored.
+ * <p/>
+ * Journals are read a line at a time, keeping only the latest result of each
+ * test, so reruns, resumed runs and merged shards don't need memory in
+ * proportion to the length of the journal.
+ */
+public class LdpJournal {
+
+	static final String START = "start";
+	static final String RESULT = "result";
+	static final String FINISH = "finish";
+
+	private static final String outputDir = "report"; // directory for results
+
+	/**
+	 * Generates the EARL and HTML reports from a journal instead of from a
+	 * run of the tests.
+	 */
+	public static void generateReports(File journal) throws IOException {
+		List<SuiteResults> suites = read(journal);
+		new LdpEarlReporter().generateReport(suites);
+		new LdpHtmlReporter().generateReport(suites, outputDir);
+	}
+
+	/**
+	 * Reads the results in a journal and restores the {@link RequestTimer}
+	 * timings of their tests. When the journal has several runs of the same
+	 * tests, such as a run and a rerun of its failures, each test's latest
+	 * result replaces the earlier ones.
+	 *
+	 * @param journal the journal to read
+	 * @return the results of each suite and TestNG test in the journal
+	 */
+	public static List<SuiteResults> read(File journal) throws IOException {
+		Runs runs = new Runs(journal);
+		readRecords(journal, runs);
+
+		return runs.toResults();
+	}
+
+	/**
+	 * @param journal the journal to read
+	 * @return the status name of the latest result of each test in the
+	 *         journal, by test class and method name, for instance
+	 *         {@code org.w3.ldp.testsuite.test.BasicContainerTest.testPostContainer}
+	 */
+	public static Map<String, String> readStatuses(File journal) throws IOException {
+		final Map<String, String> statuses = new HashMap<String, String>();
+		readRecords(journal, new RecordHandler() {
+			@Override
+			public void handle(Map<String, Object> record) {
+				if (RESULT.equals(record.get("type"))) {
+					statuses.put(record.get("class") + "." + record.get("method"), (String) record.get("status"));
+				}
+			}
+		});
+
+		return statuses;
+	}
+
+	/**
+	 * @param journals the journals to read, later ones taking precedence
+	 * @return how long the latest result of each test in the journals took,
+	 *         in milliseconds, by test class and method name
+	 */
+	public static Map<String, Long> readDurations(List<File> journals) throws IOException {
+		final Map<String, Long> durations = new HashMap<String, Long>();
+		for (File journal : journals) {
+			readRecords(journal, new RecordHandler() {
+				@Override
+				public void handle(Map<String, Object> record) {
+					if (RESULT.equals(record.get("type"))) {
+						long start = ((Number) record.get("start")).longValue();
+						long end = ((Number) record.get("end")).longValue();
+						durations.put(record.get("class") + "." + record.get("method"), Math.max(0, end - start));
+					}
+				}
+			});
+		}
+
+		return durations;
+	}
+
+	/**
+	 * Combines the journals of several runs, such as the shards of one run,
+	 * into one journal and generates the EARL and HTML reports from it. The
+	 * reports are the same as if the tests had run in one process.
+	 *
+	 * @param journals the journals to merge
+	 * @param merged   the journal to write, which may be one of the others
+	 */
+	public static void merge(List<File> journals, File merged) throws IOException {
+		File parent = merged.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+
+		// Copy the records to a new file first, since the merged journal may be one being read.
+		File copy = File.createTempFile(merged.getName(), ".tmp", parent);
+		boolean moved = false;
+		try {
+			final ObjectMapper mapper = new ObjectMapper();
+			final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(copy),
+					StandardCharsets.UTF_8));
+			try {
+				for (File journal : journals) {
+					readRecords(journal, new RecordHandler() {
+						@Override
+						public void handle(Map<String, Object> record) throws IOException {
+							writer.write(mapper.writeValueAsString(record));
+							writer.write('\n');
+						}
+					});
+				}
+			} finally {
+				writer.close();
+			}
+
+			Files.move(copy.toPath(), merged.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			moved = true;
+		} finally {
+			if (!moved) {
+				copy.delete();
+			}
+		}
+
+		generateReports(merged);
+	}
+
+	/**
+	 * Reads a journal a line at a time, skipping lines that aren't JSON.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void readRecords(File journal, RecordHandler handler) throws IOException {
+		ObjectMapper mapper = new ObjectMapper();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journal),
+				StandardCharsets.UTF_8));
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+
+				Map<String, Object> record;
+				try {
+					record = mapper.readValue(line, Map.class);
+				} catch (JsonProcessingException e) {
+					System.err.println("WARNING: ignoring unreadable line " + lineNumber + " of journal " + journal);
+					continue;
+				}
+				handler.handle(record);
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static void warnUnfinished(Date runStart, int results) {
+		System.err.println("WARNING: the run started " + runStart + " didn't finish. Reporting the "
+				+ results + " tests it completed.");
+	}
+
+	/**
+	 * @return the name of a TestNG result status in the journal
+	 */
+	public static String getStatusName(int status) {
+		switch (status) {
+			case ITestResult.SUCCESS:
+				return "SUCCESS";
+			case ITestResult.FAILURE:
+				return "FAILURE";
+			case ITestResult.SKIP:
+				return "SKIP";
+			case ITestResult.SUCCESS_PERCENTAGE_FAILURE:
+				return "SUCCESS_PERCENTAGE_FAILURE";
+			default:
+				return "STARTED";
+		}
+	}
+
+	static int getStatus(String name) {
+		switch (name) {
+			case "SUCCESS":
+				return ITestResult.SUCCESS;
+			case "FAILURE":
+				return ITestResult.FAILURE;
+			case "SKIP":
+				return ITestResult.SKIP;
+			case "SUCCESS_PERCENTAGE_FAILURE":
+				return ITestResult.SUCCESS_PERCENTAGE_FAILURE;
+			default:
+				return ITestResult.STARTED;
+		}
+	}
+
+	/**
+	 * Handles the records of a journal as it's read.
+	 */
+	private interface RecordHandler {
+		void handle(Map<String, Object> record) throws IOException;
+	}
+
+	/**
+	 * Collects the latest result of each test from the runs in a journal.
+	 */
+	private static class Runs implements RecordHandler {
+		final File journal;
+		final Map<String, Suite> suites = new LinkedHashMap<String, Suite>();
+		Context context;
+		Date runStart;
+		int runResults;
+		boolean finished;
+
+		Runs(File journal) {
+			this.journal = journal;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void handle(Map<String, Object> record) throws IOException {
+			String type = (String) record.get("type");
+			if (START.equals(type)) {
+				String suiteName = (String) record.get("suite");
+				Suite suite = suites.get(suiteName);
+				if (suite == null) {
+					suite = new Suite(suiteName);
+					suites.put(suiteName, suite);
+				}
+				suite.parameters.putAll((Map<String, String>) record.get("parameters"));
+				context = suite.contexts.get((String) record.get("test"));
+				if (context == null) {
+					context = new Context(record);
+					suite.contexts.put(context.name, context);
+				}
+				runStart = new Date(((Number) record.get("time")).longValue());
+				runResults = 0;
+				finished = false;
+			} else if (RESULT.equals(type)) {
+				if (context == null) {
+					throw new IOException("ERROR: " + journal + " has a result before the start of a run. "
+							+ "Is it a journal?");
+				}
+				context.add(record);
+				runResults++;
+			} else if (FINISH.equals(type)) {
+				finished = true;
+			}
+		}
+
+		List<SuiteResults> toResults() throws IOException {
+			if (context == null) {
+				throw new IOException("ERROR: no runs found in journal " + journal);
+			}
+			if (!finished) {
+				// Only the last run, since a later run may have resumed an earlier one.
+				warnUnfinished(runStart, runResults);
+			}
+
+			List<SuiteResults> results = new ArrayList<SuiteResults>();
+			for (Suite suite : suites.values()) {
+				for (Context c : suite.contexts.values()) {
+					SuiteResults result = new SuiteResults(suite.name, suite.parameters, c.includedGroups,
+							c.excludedGroups);
+					for (MethodResult methodResult : c.latest.values()) {
+						result.add(methodResult);
+					}
+					results.add(result);
+				}
+			}
+
+			return results;
+		}
+	}
+
+	/**
+	 * The runs of one suite in the journal.
+	 */
+	private static class Suite {
+		final String name;
+		final Map<String, String> parameters = new HashMap<String, String>();
+		final Map<String, Context> contexts = new LinkedHashMap<String, Context>();
+
+		Suite(String name) {
+			this.name = name;
+		}
+	}
+
+	/**
+	 * The results of the runs of one TestNG test in the journal.
+	 */
+	private static class Context {
+		final String name;
+		final String[] includedGroups;
+		final String[] excludedGroups;
+		/** The latest result of each test method */
+		final Map<String, MethodResult> latest = new LinkedHashMap<String, MethodResult>();
+
+		Context(Map<String, Object> start) {
+			name = (String) start.get("test");
+			includedGroups = toArray(start.get("includedGroups"));
+			excludedGroups = toArray(start.get("excludedGroups"));
+		}
+
+		@SuppressWarnings("unchecked")
+		void add(Map<String, Object> record) {
+			String className = (String) record.get("class");
+			String methodName = (String) record.get("method");
+			Class<?> testClass;
+			Method method;
+			try {
+				testClass = ClassUtils.getClass(className);
+				List<String> typeNames = (List<String>) record.get("parameterTypes");
+				Class<?>[] types = new Class<?>[typeNames != null ? typeNames.size() : 0];
+				for (int i = 0; i < types.length; i++) {
+					types[i] = ClassUtils.getClass(typeNames.get(i));
+				}
+				method = testClass.getMethod(methodName, types);
+			} catch (ClassNotFoundException | NoSuchMethodException e) {
+				System.err.println("WARNING: ignoring the result of " + className + "." + methodName
+						+ ", which isn't in this version of the test suite.");
+				return;
+			}
+
+			List<String> parameters = (List<String>) record.get("parameters");
+			Map<String, Object> throwable = (Map<String, Object>) record.get("throwable");
+			MethodResult result = new MethodResult(getStatus((String) record.get("status")), testClass, method,
+					toArray(record.get("groups")), (String) record.get("description"),
+					parameters != null ? parameters.toArray() : new Object[0],
+					throwable != null ? toThrowable(throwable) : null);
+			latest.put(className + "." + methodName, result);
+
+			Map<String, Map<String, List<List<Number>>>> timings =
+					(Map<String, Map<String, List<List<Number>>>>) record.get("timings");
+			if (timings != null) {
+				RequestTimer.setTimings(testClass.getSimpleName() + "." + methodName, toTimings(timings));
+			}
+		}
+	}
+
+	private static String[] toArray(Object list) {
+		if (list == null) {
+			return new String[0];
+		}
+
+		@SuppressWarnings("unchecked")
+		List<String> strings = (List<String>) list;
+		return strings.toArray(new String[strings.size()]);
+	}
+
+	private static Throwable toThrowable(Map<String, Object> throwable) {
+		String className = (String) throwable.get("class");
+		String message = (String) throwable.get("message");
+		String stackTrace = (String) throwable.get("stackTrace");
+
+		// The HTML report tells skips from failures by the exception's name.
+		if (className != null && className.contains("Skip")) {
+			return new JournaledSkipException(message, stackTrace);
+		}
+
+		return new JournaledThrowable(message, stackTrace);
+	}
+
+	private static Map<String, RequestTimings> toTimings(Map<String, Map<String, List<List<Number>>>> byMethod) {
+		Map<String, RequestTimings> timings = new LinkedHashMap<String, RequestTimings>();
+		for (Map.Entry<String, Map<String, List<List<Number>>>> entry : byMethod.entrySet()) {
+			Map<String, List<List<Number>>> phases = entry.getValue();
+			RequestTimings t = new RequestTimings();
+			addBuckets(t.getDns(), phases.get("dns"));
+			addBuckets(t.getConnect(), phases.get("connect"));
+			addBuckets(t.getTimeToFirstByte(), phases.get("timeToFirstByte"));
+			addBuckets(t.getBody(), phases.get("body"));
+			addBuckets(t.getTotal(), phases.get("total"));
+			timings.put(entry.getKey(), t);
+		}
+
+		return timings;
+	}
+
+	private static void addBuckets(Histogram histogram, List<List<Number>> buckets) {
+		if (buckets == null) {
+			return;
+		}
+
+		for (List<Number> bucket : buckets) {
+			histogram.record(bucket.get(0).longValue(), bucket.get(1).longValue());
+		}
+	}
+
+	/**
+	 * An exception read back from a journal, which prints the stack trace of
+	 * the original.
+	 */
+	private static class JournaledThrowable extends Throwable {
+		private static final long serialVersionUID = 1L;
+
+		private final String stackTrace;
+
+		JournaledThrowable(String message, String stackTrace) {
+			super(message, null, false, false);
+			this.stackTrace = stackTrace;
+		}
+
+		@Override
+		public void printStackTrace(PrintStream s) {
+			s.print(stackTrace);
+		}
+
+		@Override
+		public void printStackTrace(PrintWriter s) {
+			s.print(stackTrace);
+		}
+	}
+
+	/**
+	 * A {@link SkipException} read back from a journal.
+	 */
+	private static class JournaledSkipException extends SkipException {
+		private static final long serialVersionUID = 1L;
+
+		private final String stackTrace;
+
+		JournaledSkipException(String message, String stackTrace) {
+			super(message);
+			this.stackTrace = stackTrace;
+		}
+
+		@Override
+		public void printStackTrace(PrintStream s) {
+			s.print(stackTrace);
+		}
+
+		@Override
+		public void printStackTrace(PrintWriter s) {
+			s.print(stackTrace);
+		}
+	}
+}
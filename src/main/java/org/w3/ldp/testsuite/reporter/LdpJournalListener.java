@@ -0,0 +1,234 @@
+package org.w3.ldp.testsuite.reporter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.w3.ldp.testsuite.annotations.SpecTest;
+import org.w3.ldp.testsuite.http.RequestTimer;
+import org.w3.ldp.testsuite.http.RequestTimings;
+import org.w3.ldp.testsuite.util.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends every test result to a journal as soon as the test finishes, so a
+ * run that is killed or crashes part way through still leaves a record of the
+ * tests that completed. {@link LdpJournal} reads the journal back to generate
+ * the EARL and HTML reports without running the tests again.
+ * <p/>
+ * The journal has one JSON object per line. A <code>start</code> line has the
+ * suite parameters and groups of a run, a <code>result</code> line the status,
+ * times, exception, {@link SpecTest} metadata and HTTP request timings of one
+ * test, and a <code>finish</code> line the totals once the run is over. Each
+ * line is flushed as it's written, so at most the line being written when the
+ * JVM dies is lost. Credentials among the suite parameters aren't written,
+ * since journals are kept and shared with the reports.
+ */
+public class LdpJournalListener implements ITestListener {
+
+	public static final String DEFAULT_FILE = "report/ldp-testsuite-journal.jsonl";
+
+	/** The default journal of shard i of N, as a format for the two numbers */
+	public static final String SHARD_FILE = "report/ldp-testsuite-journal-shard-%d-of-%d.jsonl";
+
+	/** Suite parameters left out of the journal */
+	private static final List<String> SECRET_PARAMETERS = Arrays.asList("auth");
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final File file;
+	private Writer out;
+
+	/**
+	 * @param file the journal to write, which is replaced if it exists
+	 */
+	public LdpJournalListener(File file) throws IOException {
+		this(file, false);
+	}
+
+	/**
+	 * @param file   the journal to write
+	 * @param append whether to add to the journal if it exists, for instance
+	 *               when rerunning some of its tests, rather than replace it
+	 */
+	public LdpJournalListener(File file, boolean append) throws IOException {
+		this.file = file;
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		out = new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void onStart(ITestContext context) {
+		Map<String, Object> record = new LinkedHashMap<String, Object>();
+		record.put("type", LdpJournal.START);
+		record.put("time", System.currentTimeMillis());
+		record.put("suite", context.getSuite().getName());
+		record.put("test", context.getName());
+		Map<String, String> parameters = new LinkedHashMap<String, String>(context.getCurrentXmlTest().getAllParameters());
+		parameters.keySet().removeAll(SECRET_PARAMETERS);
+		record.put("parameters", parameters);
+		record.put("includedGroups", context.getIncludedGroups());
+		record.put("excludedGroups", context.getExcludedGroups());
+		write(record);
+	}
+
+	@Override
+	public void onFinish(ITestContext context) {
+		Map<String, Object> record = new LinkedHashMap<String, Object>();
+		record.put("type", LdpJournal.FINISH);
+		record.put("time", System.currentTimeMillis());
+		record.put("suite", context.getSuite().getName());
+		record.put("test", context.getName());
+		record.put("passed", context.getPassedTests().size());
+		record.put("failed", context.getFailedTests().size());
+		record.put("skipped", context.getSkippedTests().size());
+		write(record);
+	}
+
+	@Override
+	public void onTestStart(ITestResult result) {
+	}
+
+	@Override
+	public void onTestSuccess(ITestResult result) {
+		write(toRecord(result));
+	}
+
+	@Override
+	public void onTestFailure(ITestResult result) {
+		write(toRecord(result));
+	}
+
+	@Override
+	public void onTestSkipped(ITestResult result) {
+		write(toRecord(result));
+	}
+
+	@Override
+	public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+		write(toRecord(result));
+	}
+
+	private Map<String, Object> toRecord(ITestResult result) {
+		Method method = result.getMethod().getConstructorOrMethod().getMethod();
+		Class<?> testClass = result.getTestClass().getRealClass();
+
+		Map<String, Object> record = new LinkedHashMap<String, Object>();
+		record.put("type", LdpJournal.RESULT);
+		record.put("status", LdpJournal.getStatusName(result.getStatus()));
+		record.put("class", testClass.getName());
+		record.put("declaringClass", method.getDeclaringClass().getName());
+		record.put("method", method.getName());
+		List<String> parameterTypes = new ArrayList<String>();
+		for (Class<?> type : method.getParameterTypes()) {
+			parameterTypes.add(type.getName());
+		}
+		record.put("parameterTypes", parameterTypes);
+		record.put("start", result.getStartMillis());
+		record.put("end", result.getEndMillis());
+		record.put("groups", result.getMethod().getGroups());
+		record.put("description", result.getMethod().getDescription());
+
+		if (result.getParameters() != null && result.getParameters().length != 0) {
+			List<String> parameters = new ArrayList<String>();
+			for (Object parameter : result.getParameters()) {
+				parameters.add(parameter != null ? parameter.toString() : null);
+			}
+			record.put("parameters", parameters);
+		}
+
+		Throwable thrown = result.getThrowable();
+		if (thrown != null) {
+			Map<String, Object> throwable = new LinkedHashMap<String, Object>();
+			throwable.put("class", thrown.getClass().getName());
+			throwable.put("message", thrown.getMessage());
+			StringWriter stackTrace = new StringWriter();
+			thrown.printStackTrace(new PrintWriter(stackTrace));
+			throwable.put("stackTrace", stackTrace.toString());
+			record.put("throwable", throwable);
+		}
+
+		SpecTest specTest = method.getAnnotation(SpecTest.class);
+		if (specTest != null) {
+			Map<String, Object> spec = new LinkedHashMap<String, Object>();
+			spec.put("specRefUri", specTest.specRefUri());
+			spec.put("approval", specTest.approval().name());
+			spec.put("testMethod", specTest.testMethod().name());
+			spec.put("comment", specTest.comment());
+			record.put("specTest", spec);
+		}
+
+		Map<String, RequestTimings> timings = RequestTimer.getTimings(testClass.getSimpleName() + "." + result.getName());
+		if (!timings.isEmpty()) {
+			Map<String, Object> byMethod = new LinkedHashMap<String, Object>();
+			for (Map.Entry<String, RequestTimings> entry : timings.entrySet()) {
+				RequestTimings t = entry.getValue();
+				Map<String, Object> phases = new LinkedHashMap<String, Object>();
+				phases.put("dns", toBuckets(t.getDns()));
+				phases.put("connect", toBuckets(t.getConnect()));
+				phases.put("timeToFirstByte", toBuckets(t.getTimeToFirstByte()));
+				phases.put("body", toBuckets(t.getBody()));
+				phases.put("total", toBuckets(t.getTotal()));
+				byMethod.put(entry.getKey(), phases);
+			}
+			record.put("timings", byMethod);
+		}
+
+		return record;
+	}
+
+	/**
+	 * @return the histogram as a list of [value, count] pairs
+	 */
+	private static List<long[]> toBuckets(Histogram histogram) {
+		List<long[]> buckets = new ArrayList<long[]>();
+		for (Map.Entry<Long, Long> bucket : histogram.getBuckets().entrySet()) {
+			buckets.add(new long[] { bucket.getKey(), bucket.getValue() });
+		}
+
+		return buckets;
+	}
+
+	private synchronized void write(Map<String, Object> record) {
+		if (out == null) {
+			return;
+		}
+
+		try {
+			out.write(mapper.writeValueAsString(record));
+			out.write('\n');
+			out.flush();
+		} catch (IOException e) {
+			// Keep running the tests, only without a journal.
+			System.err.println("WARNING: unable to write to journal " + file + ", " + e.getLocalizedMessage()
+					+ ". Results from here on won't be journaled.");
+			close();
+		}
+	}
+
+	private void close() {
+		try {
+			out.close();
+		} catch (IOException e) {
+			// nothing more to do
+		}
+		out = null;
+	}
+}
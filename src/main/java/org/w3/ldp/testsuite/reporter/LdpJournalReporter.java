@@ -0,0 +1,35 @@
+package org.w3.ldp.testsuite.reporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+
+/**
+ * Generates the EARL and HTML reports from the journal rather than from the
+ * results of this run, for runs that only rerun some of the tests in the
+ * journal. The reports then have the new results of those tests merged with
+ * the earlier results of the others.
+ *
+ * @see LdpJournal
+ */
+public class LdpJournalReporter implements IReporter {
+
+	private final File journal;
+
+	public LdpJournalReporter(File journal) {
+		this.journal = journal;
+	}
+
+	@Override
+	public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+		try {
+			LdpJournal.generateReports(journal);
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+}
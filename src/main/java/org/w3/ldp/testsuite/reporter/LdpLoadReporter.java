@@ -0,0 +1,95 @@
+package org.w3.ldp.testsuite.reporter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+import org.w3.ldp.testsuite.load.LoadGenerator;
+import org.w3.ldp.testsuite.load.LoadResult;
+import org.w3.ldp.testsuite.util.Histogram;
+
+/**
+ * Reports the throughput and latency of each test method run with
+ * {@code --load}, both to the console and to a CSV file.
+ */
+public class LdpLoadReporter implements IReporter {
+
+	private static final String outputDir = "report"; // directory for results
+	private static final double[] PERCENTILES = { 50, 95, 99, 99.9 };
+
+	@Override
+	public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites,
+			String outputDirectory) {
+		List<LoadResult> results = LoadGenerator.getResults();
+		if (results.isEmpty()) {
+			return;
+		}
+
+		printSummary(results);
+		try {
+			writeCsv(results);
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private void printSummary(List<LoadResult> results) {
+		System.out.printf("%n%-50s %5s %8s %7s %9s %9s %9s %9s %9s%n",
+				"Load (latency in ms)", "Users", "Runs", "Errors", "Req/s", "p50", "p95", "p99", "p99.9");
+		for (LoadResult result : results) {
+			Histogram latency = result.getLatency();
+			System.out.printf("%-50s %5d %8d %6.2f%% %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+					result.getTestName(), result.getUsers(), result.getIterations(),
+					result.getErrorRate() * 100, result.getRequestsPerSecond(),
+					toMillis(latency.getValueAtPercentile(50)), toMillis(latency.getValueAtPercentile(95)),
+					toMillis(latency.getValueAtPercentile(99)), toMillis(latency.getValueAtPercentile(99.9)));
+		}
+	}
+
+	private void writeCsv(List<LoadResult> results) throws IOException {
+		new File(outputDir).mkdirs();
+		BufferedWriter writer = new BufferedWriter(new FileWriter(outputDir
+				+ "/ldp-testsuite-load-report.csv"));
+		try {
+			writer.write("test,specRefUri,users,iterations,errors,errorRate,requests,seconds,requestsPerSecond,"
+					+ "meanMs,maxMs,p50Ms,p95Ms,p99Ms,p999Ms");
+			writer.newLine();
+
+			for (LoadResult result : results) {
+				Histogram latency = result.getLatency();
+				writer.write(quote(result.getTestName()) + "," + quote(result.getSpecRefUri()) + ","
+						+ result.getUsers() + "," + result.getIterations() + "," + result.getErrors() + ","
+						+ format(result.getErrorRate()) + "," + result.getRequests() + ","
+						+ format(result.getElapsedSeconds()) + "," + format(result.getRequestsPerSecond()) + ","
+						+ format(latency.getMean() / 1000) + "," + format(toMillis(latency.getMax())));
+				for (double percentile : PERCENTILES) {
+					writer.write("," + format(toMillis(latency.getValueAtPercentile(percentile))));
+				}
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static double toMillis(long micros) {
+		return micros / 1000.0;
+	}
+
+	private static String format(double value) {
+		return String.valueOf(Math.round(value * 1000) / 1000.0);
+	}
+
+	private static String quote(String value) {
+		if (value == null) {
+			return "";
+		}
+
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+}
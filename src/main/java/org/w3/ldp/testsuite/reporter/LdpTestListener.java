@@ -7,6 +7,7 @@ import org.testng.ITestContext;
 import org.testng.ITestResult;
 import org.testng.TestListenerAdapter;
 import org.testng.internal.Utils;
+import org.w3.ldp.testsuite.http.HttpClientPool;
 
 public class LdpTestListener extends TestListenerAdapter {
 
@@ -28,6 +29,11 @@ public class LdpTestListener extends TestListenerAdapter {
 		long now = System.currentTimeMillis();
 		double timeInSeconds = (double) (now - startTime) / 1000;
 		System.out.printf("%nTotal Time: %.2fs%n", timeInSeconds);
+
+		String connections = HttpClientPool.getStatistics();
+		if (connections != null) {
+			System.out.println("Connections: " + connections);
+		}
 		
 		if (errors.length() != 0) {
 			System.err.println(errors);
@@ -0,0 +1,90 @@
+package org.w3.ldp.testsuite.reporter;
+
+import java.lang.reflect.Method;
+
+import org.testng.ITestResult;
+
+/**
+ * The result of one test method, as the EARL and HTML reports need it. It
+ * comes either from TestNG at the end of a run or from a journal.
+ *
+ * @see SuiteResults
+ */
+public class MethodResult {
+
+	private final int status;
+	private final Class<?> testClass;
+	private final Method method;
+	private final String[] groups;
+	private final String description;
+	private final Object[] parameters;
+	private final Throwable throwable;
+
+	/**
+	 * @param status      the TestNG status, such as {@link ITestResult#SUCCESS}
+	 * @param testClass   the class the test ran as, which may be a subclass of
+	 *                    the one that declares the method
+	 * @param method      the test method
+	 * @param groups      the groups of the test method
+	 * @param description the description of the test method, or null
+	 * @param parameters  the parameters the test ran with
+	 * @param throwable   what the test threw, or null
+	 */
+	public MethodResult(int status, Class<?> testClass, Method method, String[] groups, String description,
+			Object[] parameters, Throwable throwable) {
+		this.status = status;
+		this.testClass = testClass;
+		this.method = method;
+		this.groups = groups;
+		this.description = description;
+		this.parameters = parameters;
+		this.throwable = throwable;
+	}
+
+	public static MethodResult of(ITestResult result) {
+		return new MethodResult(result.getStatus(), result.getTestClass().getRealClass(),
+				result.getMethod().getConstructorOrMethod().getMethod(), result.getMethod().getGroups(),
+				result.getMethod().getDescription(),
+				result.getParameters() != null ? result.getParameters() : new Object[0], result.getThrowable());
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public Class<?> getTestClass() {
+		return testClass;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return the name of the test method
+	 */
+	public String getName() {
+		return method.getName();
+	}
+
+	public String[] getGroups() {
+		return groups;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Object[] getParameters() {
+		return parameters;
+	}
+
+	public Throwable getThrowable() {
+		return throwable;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + LdpJournal.getStatusName(status) + " " + testClass.getName() + "." + getName() + "]";
+	}
+}
@@ -0,0 +1,145 @@
+package org.w3.ldp.testsuite.reporter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.PrefixMap;
+import org.apache.jena.riot.system.PrefixMapFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.jena.JenaRDFParser;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ResIterator;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+
+/**
+ * Writes an EARL report as Turtle and as compact JSON-LD one small model at a
+ * time, for instance one assertion with its result, so memory use is bounded
+ * by the largest model rather than by the whole report.
+ * <p/>
+ * The Turtle file has a block per subject. The JSON-LD file is a single
+ * object with the context and a <code>@graph</code> of every node, as
+ * {@link JsonLdProcessor#compact} would produce for the whole report. Blank
+ * nodes are named after their Jena labels in both, rather than numbered by a
+ * table that would grow with the report, so they stay distinct across models.
+ */
+public class StreamingEarlWriter implements Closeable {
+
+	private final Writer turtle;
+	private final PrefixMap prefixMap;
+	private final JsonGenerator json;
+	private final Map<String, Object> context;
+
+	/**
+	 * @param turtleFile the Turtle file to write
+	 * @param jsonFile   the JSON-LD file to write
+	 * @param prefixes   the namespace prefixes, which are also the JSON-LD
+	 *                   context
+	 */
+	public StreamingEarlWriter(File turtleFile, File jsonFile, Map<String, Object> prefixes) throws IOException {
+		this.context = prefixes;
+
+		Map<String, String> namespaces = new HashMap<String, String>();
+		turtle = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(turtleFile), StandardCharsets.UTF_8));
+		for (Map.Entry<String, Object> prefix : prefixes.entrySet()) {
+			namespaces.put(prefix.getKey(), (String) prefix.getValue());
+			turtle.write("@prefix " + prefix.getKey() + ": <" + prefix.getValue() + "> .\n");
+		}
+		turtle.write("\n");
+		prefixMap = PrefixMapFactory.createForOutput(namespaces);
+
+		json = new ObjectMapper().getFactory().createGenerator(new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(jsonFile), StandardCharsets.UTF_8)));
+		json.useDefaultPrettyPrinter();
+		json.writeStartObject();
+		json.writeObjectField("@context", context);
+		json.writeArrayFieldStart("@graph");
+	}
+
+	/**
+	 * Appends the statements of a model to both files.
+	 */
+	public void write(Model model) throws IOException {
+		// Turtle, grouping the statements by subject.
+		ResIterator subjects = model.listSubjects();
+		while (subjects.hasNext()) {
+			Resource subject = subjects.next();
+			turtle.write(format(subject.asNode()));
+			StmtIterator statements = model.listStatements(subject, null, (Resource) null);
+			String separator = "\n\t";
+			while (statements.hasNext()) {
+				Statement statement = statements.next();
+				turtle.write(separator + format(statement.getPredicate().asNode()) + " "
+						+ format(statement.getObject().asNode()));
+				separator = " ;\n\t";
+			}
+			turtle.write(" .\n\n");
+		}
+
+		// JSON-LD, compacting just this model.
+		Map<String, Object> compact;
+		try {
+			Object expanded = JsonLdProcessor.fromRDF(model, new LabelPreservingParser());
+			compact = JsonLdProcessor.compact(expanded, context, new JsonLdOptions());
+		} catch (JsonLdError e) {
+			throw new IOException("Unable to convert EARL statements to JSON-LD", e);
+		}
+
+		Object graph = compact.get("@graph");
+		if (graph instanceof List) {
+			for (Object node : (List<?>) graph) {
+				json.writeObject(node);
+			}
+		} else {
+			// A single node is compacted without @graph.
+			compact.remove("@context");
+			if (!compact.isEmpty()) {
+				json.writeObject(compact);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			turtle.close();
+		} finally {
+			json.writeEndArray();
+			json.writeEndObject();
+			json.close();
+		}
+	}
+
+	private String format(Node node) {
+		return NodeFmtLib.str(node, null, prefixMap);
+	}
+
+	/**
+	 * Names blank nodes after their Jena labels, instead of numbering them
+	 * from zero for every model, so nodes from different models don't get
+	 * the same name.
+	 */
+	private static class LabelPreservingParser extends JenaRDFParser {
+		@Override
+		protected String getNameForBlankNode(String label) {
+			return "_:" + NodeFmtLib.encodeBNodeLabel(label);
+		}
+	}
+}
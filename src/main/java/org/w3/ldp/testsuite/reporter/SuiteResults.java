@@ -0,0 +1,124 @@
+package org.w3.ldp.testsuite.reporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.IResultMap;
+import org.testng.ISuite;
+import org.testng.ISuiteResult;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+
+/**
+ * The results of one TestNG test of a suite, which the EARL and HTML reports
+ * are generated from. They come either from TestNG at the end of a run or from
+ * a journal, so the reporters don't depend on how TestNG holds its results.
+ *
+ * @see LdpJournal
+ */
+public class SuiteResults {
+
+	private final String suiteName;
+	private final Map<String, String> parameters;
+	private final String[] includedGroups;
+	private final String[] excludedGroups;
+	private final List<MethodResult> passed = new ArrayList<MethodResult>();
+	private final List<MethodResult> failed = new ArrayList<MethodResult>();
+	private final List<MethodResult> skipped = new ArrayList<MethodResult>();
+
+	/**
+	 * @param suiteName      the name of the suite
+	 * @param parameters     the suite parameters, such as the subject name
+	 * @param includedGroups the groups the run included
+	 * @param excludedGroups the groups the run excluded
+	 */
+	public SuiteResults(String suiteName, Map<String, String> parameters, String[] includedGroups,
+			String[] excludedGroups) {
+		this.suiteName = suiteName;
+		this.parameters = parameters;
+		this.includedGroups = includedGroups;
+		this.excludedGroups = excludedGroups;
+	}
+
+	/**
+	 * @return the results of each test of each suite TestNG ran
+	 */
+	public static List<SuiteResults> of(List<ISuite> suites) {
+		List<SuiteResults> results = new ArrayList<SuiteResults>();
+		for (ISuite suite : suites) {
+			Map<String, String> parameters = new HashMap<String, String>(suite.getXmlSuite().getParameters());
+			for (ISuiteResult suiteResult : suite.getResults().values()) {
+				ITestContext context = suiteResult.getTestContext();
+				SuiteResults result = new SuiteResults(suite.getName(), parameters, context.getIncludedGroups(),
+						context.getExcludedGroups());
+				result.addAll(context.getPassedTests());
+				result.addAll(context.getFailedTests());
+				result.addAll(context.getSkippedTests());
+				results.add(result);
+			}
+		}
+
+		return results;
+	}
+
+	private void addAll(IResultMap results) {
+		for (ITestResult result : results.getAllResults()) {
+			add(MethodResult.of(result));
+		}
+	}
+
+	/**
+	 * Adds a result to the passed, failed or skipped tests by its status.
+	 * Results with any other status, such as a failure within the success
+	 * percentage, aren't reported, since TestNG keeps those apart as well.
+	 */
+	public void add(MethodResult result) {
+		switch (result.getStatus()) {
+			case ITestResult.SUCCESS:
+				passed.add(result);
+				break;
+			case ITestResult.FAILURE:
+				failed.add(result);
+				break;
+			case ITestResult.SKIP:
+				skipped.add(result);
+				break;
+			default:
+				break;
+		}
+	}
+
+	public String getSuiteName() {
+		return suiteName;
+	}
+
+	/**
+	 * @return the value of a suite parameter, or null if it isn't set
+	 */
+	public String getParameter(String name) {
+		return parameters.get(name);
+	}
+
+	public String[] getIncludedGroups() {
+		return includedGroups;
+	}
+
+	public String[] getExcludedGroups() {
+		return excludedGroups;
+	}
+
+	public List<MethodResult> getPassedTests() {
+		return Collections.unmodifiableList(passed);
+	}
+
+	public List<MethodResult> getFailedTests() {
+		return Collections.unmodifiableList(failed);
+	}
+
+	public List<MethodResult> getSkippedTests() {
+		return Collections.unmodifiableList(skipped);
+	}
+}
@@ -0,0 +1,1208 @@
+package org.w3.ldp.testsuite.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.HttpStatus;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.w3.ldp.testsuite.http.HttpHeaders;
+import org.w3.ldp.testsuite.http.LdpPreferences;
+import org.w3.ldp.testsuite.http.LinkHeaders;
+import org.w3.ldp.testsuite.http.MediaTypes;
+import org.w3.ldp.testsuite.vocab.LDP;
+
+import com.github.jsonldjava.jena.JenaJSONLD;
+import com.hp.hpl.jena.rdf.model.Literal;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.ResourceFactory;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.shared.JenaException;
+import com.hp.hpl.jena.update.UpdateAction;
+import com.hp.hpl.jena.update.UpdateFactory;
+import com.hp.hpl.jena.update.UpdateRequest;
+import com.hp.hpl.jena.vocabulary.DCTerms;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-memory LDP server the suite can run against with
+ * <code>--embedded</code>. It has a Basic, a Direct and an Indirect Container,
+ * supports LDP-NRs, ETags, Prefer and PATCH with SPARQL Update, and keeps
+ * nothing on disk.
+ * <p/>
+ * It's meant as a baseline rather than a reference implementation: with no
+ * storage or network in the way, its latencies are close to the lowest the
+ * suite can measure, so the difference to another server's is the time that
+ * server spends. Reads share a lock and are served from representations
+ * serialized once per version of a resource. Writes hold the lock exclusively,
+ * but parse request bodies before taking it.
+ */
+public class EmbeddedLdpServer {
+
+	public static final String BASIC_CONTAINER = "/basic/";
+	public static final String DIRECT_CONTAINER = "/direct/";
+	public static final String INDIRECT_CONTAINER = "/indirect/";
+
+	/** An LDP-RS that is not a container, for <code>containerAsResource</code> */
+	public static final String RESOURCE = "/resource";
+
+	/** Describes the server's restrictions, linked from 4xx responses */
+	public static final String CONSTRAINTS = "/constraints";
+
+	/** Set by the server when a resource is created, and rejected if changed */
+	public static final String READ_ONLY_PROPERTY = DCTerms.created.getURI();
+
+	private static final String PRIMARY_TOPIC = "http://xmlns.com/foaf/0.1/primaryTopic";
+	private static final String PREFER_EMPTY_CONTAINER = LDP.NAMESPACE + "PreferEmptyContainer";
+	private static final String CONSTRAINED_BY = LDP.NAMESPACE + "constrainedBy";
+	private static final String SPARQL_UPDATE = "application/sparql-update";
+	private static final String ACCEPT_POST_VALUE = MediaTypes.TEXT_TURTLE + ", " + MediaTypes.APPLICATION_LD_JSON
+			+ ", " + MediaTypes.APPLICATION_JSON + ", " + MediaTypes.APPLICATION_RDF_XML + ", */*";
+	private static final String METADATA_SUFFIX = ".meta";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final Property CONTAINS = ResourceFactory.createProperty(LDP.contains.stringValue());
+	private static final Property MEMBERSHIP_RESOURCE = ResourceFactory.createProperty(LDP.membershipResource.stringValue());
+	private static final Property HAS_MEMBER_RELATION = ResourceFactory.createProperty(LDP.hasMemberRelation.stringValue());
+	private static final Property IS_MEMBER_OF_RELATION = ResourceFactory.createProperty(LDP.isMemberOfRelation.stringValue());
+	private static final Property INSERTED_CONTENT_RELATION = ResourceFactory.createProperty(LDP.insertedContentRelation.stringValue());
+
+	/** Predicates only the server sets on the resource itself */
+	private static final Set<Property> SERVER_MANAGED = new HashSet<Property>(Arrays.asList(
+			CONTAINS, MEMBERSHIP_RESOURCE, HAS_MEMBER_RELATION, IS_MEMBER_OF_RELATION, INSERTED_CONTENT_RELATION));
+
+	/** Media types the server can return RDF sources as, in order of preference */
+	private static final List<String> RDF_MEDIA_TYPES = Arrays.asList(MediaTypes.TEXT_TURTLE,
+			MediaTypes.APPLICATION_LD_JSON, MediaTypes.APPLICATION_JSON, MediaTypes.APPLICATION_RDF_XML);
+
+	private static final Pattern PREFERENCE = Pattern.compile("(include|omit)\\s*=\\s*\"([^\"]*)\"");
+	private static final Pattern RETURN_REPRESENTATION = Pattern.compile("(^|[ ;])return\\s*=\\s*\"?representation\"?($|[ ;])");
+	private static final Pattern SLUG_CHARACTERS = Pattern.compile("[^A-Za-z0-9._~-]+");
+
+	private static final int THREADS = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+	private static final int BACKLOG = 1024;
+
+	static {
+		JenaJSONLD.init();
+	}
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, LdpResource> resources = new HashMap<>();
+	/** Containers by the URI of their membership resource, which may not exist */
+	private final Map<String, Set<String>> membershipOf = new HashMap<>();
+	/** Every URI ever assigned, so that none are reused */
+	private final Set<String> assigned = new HashSet<>();
+	private long versions = 0;
+	private long names = 0;
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private String base;
+
+	/**
+	 * Starts the server on a free port of the loopback interface.
+	 */
+	public void start() throws IOException {
+		start(0);
+	}
+
+	/**
+	 * Starts the server on the loopback interface.
+	 *
+	 * @param port the port, or 0 for any free port
+	 */
+	public synchronized void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+		executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ldp-testsuite-embedded-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					EmbeddedLdpServer.this.handle(exchange);
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		base = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+		createInitialResources();
+		server.start();
+	}
+
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	/**
+	 * @param path one of the paths defined by this class, such as
+	 *             {@link #BASIC_CONTAINER}
+	 * @return the URI of the resource on the running server
+	 */
+	public String getUri(String path) {
+		return base + path;
+	}
+
+	private void createInitialResources() {
+		lock.writeLock().lock();
+		try {
+			LdpResource constraints = createRdfSource(getUri(CONSTRAINTS), LDP.RDFSource.stringValue(), null,
+					ModelFactory.createDefaultModel());
+			Resource c = constraints.model.getResource(constraints.uri);
+			c.addProperty(DCTerms.title, "Constraints of the embedded LDP server");
+			c.addProperty(DCTerms.description, "PUT and PATCH must not change containment, membership or "
+					+ "container settings, nor <" + READ_ONLY_PROPERTY + ">. URIs are never reused.");
+			constraints.readOnly = true;
+
+			createRdfSource(getUri(RESOURCE), LDP.RDFSource.stringValue(), null, titled("A resource"));
+			createRdfSource(getUri(BASIC_CONTAINER), LDP.BasicContainer.stringValue(), null, titled("A Basic Container"));
+
+			LdpResource direct = createRdfSource(getUri(DIRECT_CONTAINER), LDP.DirectContainer.stringValue(), null,
+					titled("A Direct Container"));
+			setMembership(direct, direct.uri, LDP.member.stringValue(), null, null);
+
+			LdpResource indirect = createRdfSource(getUri(INDIRECT_CONTAINER), LDP.IndirectContainer.stringValue(), null,
+					titled("An Indirect Container"));
+			setMembership(indirect, indirect.uri, LDP.member.stringValue(), null, PRIMARY_TOPIC);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static Model titled(String title) {
+		Model model = ModelFactory.createDefaultModel();
+		model.createResource("").addProperty(DCTerms.title, title);
+		return model;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		String uri = base + exchange.getRequestURI().getRawPath();
+
+		Reply reply;
+		try {
+			switch (method) {
+				case "GET":
+				case "HEAD":
+					reply = get(uri, exchange.getRequestHeaders());
+					break;
+				case "OPTIONS":
+					reply = options(uri);
+					break;
+				case "POST":
+					reply = post(uri, exchange.getRequestHeaders(), read(exchange.getRequestBody()));
+					break;
+				case "PUT":
+					reply = put(uri, exchange.getRequestHeaders(), read(exchange.getRequestBody()));
+					break;
+				case "PATCH":
+					reply = patch(uri, exchange.getRequestHeaders(), read(exchange.getRequestBody()));
+					break;
+				case "DELETE":
+					reply = delete(uri);
+					break;
+				default:
+					reply = error(HttpStatus.SC_NOT_IMPLEMENTED, "Method " + method + " is not supported");
+			}
+		} catch (RuntimeException e) {
+			reply = error(HttpStatus.SC_INTERNAL_SERVER_ERROR, String.valueOf(e.getMessage()));
+		}
+
+		reply.send(exchange, "HEAD".equals(method));
+	}
+
+	private Reply get(String uri, Headers request) {
+		Lock read = lock.readLock();
+		read.lock();
+		try {
+			LdpResource r = resources.get(uri);
+			if (r == null) {
+				return notFound(uri);
+			}
+
+			Reply reply = new Reply(HttpStatus.SC_OK);
+			addResourceHeaders(reply, r);
+			if (!r.isRdfSource()) {
+				reply.header(HttpHeaders.ETAG, r.getETag(null));
+				if (r.getETag(null).equals(request.getFirst(HttpHeaders.IF_NONE_MATCH))) {
+					return reply.status(HttpStatus.SC_NOT_MODIFIED);
+				}
+				return reply.body(r.contentType, r.content);
+			}
+
+			String mediaType = negotiate(request.getFirst(HttpHeaders.ACCEPT));
+			Preferences preferences = Preferences.parse(request.get(HttpHeaders.PREFER));
+			String variant = RDF_MEDIA_TYPES.indexOf(mediaType) + preferences.key();
+			String etag = r.getETag(variant);
+			reply.header(HttpHeaders.ETAG, etag).header("Vary", "Accept, Prefer");
+			if (preferences.returnRepresentation) {
+				reply.header(HttpHeaders.PREFERNCE_APPLIED, "return=representation");
+			}
+			if (etag.equals(request.getFirst(HttpHeaders.IF_NONE_MATCH))) {
+				return reply.status(HttpStatus.SC_NOT_MODIFIED);
+			}
+
+			LdpResource.Representation representation = r.representations.get(variant);
+			if (representation == null || representation.version != r.version) {
+				representation = new LdpResource.Representation(r.version, serialize(render(r, preferences), mediaType));
+				r.representations.put(variant, representation);
+			}
+
+			return reply.body(mediaType, representation.body);
+		} finally {
+			read.unlock();
+		}
+	}
+
+	private Reply options(String uri) {
+		Lock read = lock.readLock();
+		read.lock();
+		try {
+			LdpResource r = resources.get(uri);
+			if (r == null) {
+				return notFound(uri);
+			}
+
+			Reply reply = new Reply(HttpStatus.SC_OK);
+			addResourceHeaders(reply, r);
+			return reply;
+		} finally {
+			read.unlock();
+		}
+	}
+
+	private Reply post(String uri, Headers request, byte[] body) {
+		String contentType = getMediaType(request.getFirst(HttpHeaders.CONTENT_TYPE));
+		String interactionModel = getInteractionModel(request.get(HttpHeaders.LINK));
+		String lang = getLang(contentType);
+		if (lang == null && interactionModel != null && !LDP.NonRDFSource.stringValue().equals(interactionModel)) {
+			return error(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, "Expected RDF content for interaction model <"
+					+ interactionModel + ">, but got " + contentType);
+		}
+
+		LdpResource container;
+		lock.readLock().lock();
+		try {
+			container = resources.get(uri);
+		} finally {
+			lock.readLock().unlock();
+		}
+		if (container == null) {
+			return notFound(uri);
+		}
+		if (!container.isContainer()) {
+			return methodNotAllowed(container, "POST");
+		}
+
+		boolean isContainer = interactionModel != null && !LDP.RDFSource.stringValue().equals(interactionModel)
+				&& !LDP.Resource.stringValue().equals(interactionModel) && lang != null
+				&& !LDP.NonRDFSource.stringValue().equals(interactionModel);
+		String location = assign(container.uri, request.getFirst(HttpHeaders.SLUG), isContainer);
+
+		// Parse before taking the lock, so that other requests aren't held up by it.
+		Model model = null;
+		if (lang != null) {
+			try {
+				model = parse(body, location, lang);
+			} catch (JenaException e) {
+				return error(HttpStatus.SC_BAD_REQUEST, "Unable to parse the " + contentType + " content: " + e.getMessage());
+			}
+		}
+
+		lock.writeLock().lock();
+		try {
+			container = resources.get(uri);
+			if (container == null) {
+				return notFound(uri);
+			}
+
+			Reply reply = new Reply(HttpStatus.SC_CREATED).header(HttpHeaders.LOCATION, location);
+			Reply conflict = create(container, location, isContainer ? interactionModel : null, model, contentType, body);
+			if (conflict != null) {
+				return conflict;
+			}
+
+			addResourceHeaders(reply, container);
+			LdpResource created = resources.get(location);
+			if (created.describedBy != null) {
+				reply.link(created.describedBy, HttpHeaders.LINK_REL_DESCRIBEDBY);
+			}
+			return reply;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private Reply put(String uri, Headers request, byte[] body) {
+		String contentType = getMediaType(request.getFirst(HttpHeaders.CONTENT_TYPE));
+		String lang = getLang(contentType);
+		Model model = null;
+		if (lang != null) {
+			try {
+				model = parse(body, uri, lang);
+			} catch (JenaException e) {
+				return error(HttpStatus.SC_BAD_REQUEST, "Unable to parse the " + contentType + " content: " + e.getMessage());
+			}
+		}
+
+		lock.writeLock().lock();
+		try {
+			LdpResource r = resources.get(uri);
+			if (r == null) {
+				return putToCreate(uri, request, model, contentType, body);
+			}
+			if (r.readOnly) {
+				return methodNotAllowed(r, "PUT");
+			}
+
+			String ifMatch = request.getFirst(HttpHeaders.IF_MATCH);
+			if (ifMatch == null) {
+				return constrained(r, 428, "PUT requires an If-Match header with the resource's ETag");
+			}
+			if (!r.matches(ifMatch)) {
+				return constrained(r, HttpStatus.SC_PRECONDITION_FAILED, "The If-Match header doesn't match the resource's ETag");
+			}
+
+			if (!r.isRdfSource()) {
+				r.content = body;
+				r.contentType = contentType;
+				changed(r);
+				return addResourceHeaders(new Reply(HttpStatus.SC_NO_CONTENT), r);
+			}
+			if (model == null) {
+				return error(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, "Expected RDF content, but got " + contentType);
+			}
+
+			String violation = checkConstraints(r, model);
+			if (violation != null) {
+				return constrained(r, HttpStatus.SC_CONFLICT, violation);
+			}
+
+			replaceModel(r, model);
+			return addResourceHeaders(new Reply(HttpStatus.SC_NO_CONTENT), r);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private Reply putToCreate(String uri, Headers request, Model model, String contentType, byte[] body) {
+		String containerUri = getContainerUri(uri);
+		LdpResource container = containerUri == null ? null : resources.get(containerUri);
+		if (container == null || !container.isContainer()) {
+			return error(HttpStatus.SC_NOT_FOUND, "PUT can only create resources in a container");
+		}
+
+		synchronized (assigned) {
+			if (!assigned.add(uri)) {
+				return error(HttpStatus.SC_CONFLICT, "The URI <" + uri + "> was used before and won't be reused");
+			}
+		}
+
+		String interactionModel = getInteractionModel(request.get(HttpHeaders.LINK));
+		boolean isContainer = model != null && interactionModel != null
+				&& (LDP.BasicContainer.stringValue().equals(interactionModel)
+						|| LDP.DirectContainer.stringValue().equals(interactionModel)
+						|| LDP.IndirectContainer.stringValue().equals(interactionModel));
+		Reply conflict = create(container, uri, isContainer ? interactionModel : null, model, contentType, body);
+		if (conflict != null) {
+			return conflict;
+		}
+
+		return addResourceHeaders(new Reply(HttpStatus.SC_CREATED).header(HttpHeaders.LOCATION, uri), resources.get(uri));
+	}
+
+	private Reply patch(String uri, Headers request, byte[] body) {
+		String contentType = getMediaType(request.getFirst(HttpHeaders.CONTENT_TYPE));
+		if (!SPARQL_UPDATE.equals(contentType)) {
+			return error(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, "PATCH expects " + SPARQL_UPDATE + ", but got " + contentType);
+		}
+
+		UpdateRequest update;
+		try {
+			update = UpdateFactory.create(new String(body, UTF_8), uri);
+		} catch (JenaException e) {
+			return error(HttpStatus.SC_BAD_REQUEST, "Unable to parse the SPARQL Update: " + e.getMessage());
+		}
+
+		lock.writeLock().lock();
+		try {
+			LdpResource r = resources.get(uri);
+			if (r == null) {
+				return notFound(uri);
+			}
+			if (r.readOnly || !r.isRdfSource()) {
+				return methodNotAllowed(r, "PATCH");
+			}
+
+			String ifMatch = request.getFirst(HttpHeaders.IF_MATCH);
+			if (ifMatch != null && !r.matches(ifMatch)) {
+				return constrained(r, HttpStatus.SC_PRECONDITION_FAILED, "The If-Match header doesn't match the resource's ETag");
+			}
+
+			// Patch a copy with the server-managed triples, so the update can
+			// match them, but it mustn't change them.
+			Model patched = render(r, Preferences.ALL);
+			Model before = ModelFactory.createDefaultModel().add(patched);
+			try {
+				UpdateAction.execute(update, patched);
+			} catch (JenaException e) {
+				return error(HttpStatus.SC_BAD_REQUEST, "Unable to apply the SPARQL Update: " + e.getMessage());
+			}
+
+			Resource subject = patched.getResource(uri);
+			for (Property p : SERVER_MANAGED) {
+				Set<Statement> beforeValues = before.getResource(uri).listProperties(p).toSet();
+				Set<Statement> afterValues = subject.listProperties(p).toSet();
+				if (!beforeValues.equals(afterValues)) {
+					return constrained(r, HttpStatus.SC_CONFLICT, "PATCH must not change <" + p.getURI() + ">");
+				}
+			}
+			String violation = checkConstraints(r, patched);
+			if (violation != null) {
+				return constrained(r, HttpStatus.SC_CONFLICT, violation);
+			}
+
+			replaceModel(r, patched);
+			return addResourceHeaders(new Reply(HttpStatus.SC_NO_CONTENT), r);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private Reply delete(String uri) {
+		lock.writeLock().lock();
+		try {
+			LdpResource r = resources.get(uri);
+			if (r == null) {
+				return notFound(uri);
+			}
+			if (r.container == null) {
+				return methodNotAllowed(r, "DELETE");
+			}
+
+			remove(r);
+			LdpResource container = resources.get(r.container);
+			container.contains.remove(uri);
+			changed(container);
+			membershipChanged(container);
+
+			return new Reply(HttpStatus.SC_NO_CONTENT);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a resource along with the resources it contains and its
+	 * associated LDP-RS.
+	 */
+	private void remove(LdpResource r) {
+		resources.remove(r.uri);
+		if (r.describedBy != null) {
+			resources.remove(r.describedBy);
+		}
+		if (r.membershipResource != null) {
+			Set<String> containers = membershipOf.get(r.membershipResource);
+			containers.remove(r.uri);
+			if (containers.isEmpty()) {
+				membershipOf.remove(r.membershipResource);
+			}
+			bump(r.membershipResource);
+		}
+		for (String child : r.contains) {
+			LdpResource c = resources.get(child);
+			if (c != null) {
+				remove(c);
+			}
+		}
+	}
+
+	/**
+	 * Creates a resource in a container. Must hold the write lock.
+	 *
+	 * @param interactionModel the container type, or null for an LDP-RS or,
+	 *                         if the model is null, an LDP-NR
+	 * @return a 409 reply if the content isn't allowed, or null
+	 */
+	private Reply create(LdpResource container, String uri, String interactionModel, Model model,
+			String contentType, byte[] content) {
+		LdpResource created;
+		if (model == null) {
+			created = new LdpResource(uri, LDP.NonRDFSource.stringValue());
+			created.content = content;
+			created.contentType = contentType == null ? "application/octet-stream" : contentType;
+			created.version = ++versions;
+			resources.put(uri, created);
+
+			Model metadata = ModelFactory.createDefaultModel();
+			metadata.createResource(uri)
+					.addProperty(DCTerms.format, created.contentType)
+					.addLiteral(DCTerms.extent, (long) content.length);
+			created.describedBy = createRdfSource(uri + METADATA_SUFFIX, LDP.RDFSource.stringValue(), null, metadata).uri;
+		} else {
+			if (model.contains(model.getResource(uri), CONTAINS)) {
+				return constrained(container, HttpStatus.SC_CONFLICT, "New resources can't contain other resources");
+			}
+
+			Resource subject = model.getResource(uri);
+			String membershipResource = getUri(subject, MEMBERSHIP_RESOURCE);
+			String hasMemberRelation = getUri(subject, HAS_MEMBER_RELATION);
+			String isMemberOfRelation = getUri(subject, IS_MEMBER_OF_RELATION);
+			String insertedContentRelation = getUri(subject, INSERTED_CONTENT_RELATION);
+
+			created = createRdfSource(uri, interactionModel == null ? LDP.RDFSource.stringValue() : interactionModel,
+					container.uri, withoutServerManaged(model, uri));
+			if (created.isMembershipContainer()) {
+				if (hasMemberRelation == null && isMemberOfRelation == null) {
+					hasMemberRelation = LDP.member.stringValue();
+				}
+				if (LDP.DirectContainer.stringValue().equals(interactionModel)) {
+					insertedContentRelation = null;
+				} else if (insertedContentRelation == null) {
+					insertedContentRelation = LDP.MemberSubject.stringValue();
+				}
+				setMembership(created, membershipResource == null ? uri : membershipResource,
+						hasMemberRelation, isMemberOfRelation, insertedContentRelation);
+			}
+		}
+
+		created.container = container.uri;
+		container.contains.add(uri);
+		changed(container);
+		membershipChanged(container);
+
+		return null;
+	}
+
+	/**
+	 * Creates an LDP-RS that isn't in a container. Must hold the write lock.
+	 */
+	private LdpResource createRdfSource(String uri, String interactionModel, String container, Model model) {
+		LdpResource r = new LdpResource(uri, interactionModel);
+		r.container = container;
+		r.model = model;
+		model.getResource(uri).removeAll(DCTerms.created)
+				.addLiteral(DCTerms.created, model.createTypedLiteral(Calendar.getInstance()));
+		r.version = ++versions;
+		resources.put(uri, r);
+		synchronized (assigned) {
+			assigned.add(uri);
+		}
+
+		return r;
+	}
+
+	private void setMembership(LdpResource container, String membershipResource, String hasMemberRelation,
+			String isMemberOfRelation, String insertedContentRelation) {
+		container.membershipResource = membershipResource;
+		container.hasMemberRelation = hasMemberRelation;
+		container.isMemberOfRelation = isMemberOfRelation;
+		container.insertedContentRelation = insertedContentRelation;
+
+		Set<String> containers = membershipOf.get(membershipResource);
+		if (containers == null) {
+			containers = new LinkedHashSet<>();
+			membershipOf.put(membershipResource, containers);
+		}
+		containers.add(container.uri);
+	}
+
+	/**
+	 * Replaces the triples clients control, keeping the server-managed ones.
+	 * Must hold the write lock.
+	 */
+	private void replaceModel(LdpResource r, Model model) {
+		Model replacement = withoutServerManaged(model, r.uri);
+		Resource subject = replacement.getResource(r.uri);
+
+		// Membership triples are derived from the containers, even when a
+		// client sends back what it got.
+		Set<String> containers = membershipOf.get(r.uri);
+		if (containers != null) {
+			for (String containerUri : containers) {
+				String relation = resources.get(containerUri).hasMemberRelation;
+				if (relation != null) {
+					subject.removeAll(replacement.createProperty(relation));
+				}
+			}
+		}
+		LdpResource container = r.container == null ? null : resources.get(r.container);
+		if (container != null && container.isMemberOfRelation != null) {
+			subject.removeAll(replacement.createProperty(container.isMemberOfRelation));
+		}
+
+		if (!subject.hasProperty(DCTerms.created)) {
+			StmtIterator created = r.model.getResource(r.uri).listProperties(DCTerms.created);
+			while (created.hasNext()) {
+				replacement.add(created.next());
+			}
+		}
+		r.model = replacement;
+		changed(r);
+
+		// Indirect Containers derive members from their content.
+		if (container != null) {
+			membershipChanged(container);
+		}
+	}
+
+	/**
+	 * @return why the new content of the resource isn't allowed, or null if
+	 *         it is
+	 */
+	private String checkConstraints(LdpResource r, Model model) {
+		Resource subject = model.getResource(r.uri);
+
+		Set<String> contains = new HashSet<>();
+		for (RDFNode node : model.listObjectsOfProperty(subject, CONTAINS).toList()) {
+			contains.add(node.isURIResource() ? node.asResource().getURI() : node.toString());
+		}
+		if (!contains.isEmpty() && !contains.equals(r.contains)) {
+			return "Containment triples can't be changed with PUT or PATCH";
+		}
+
+		if (r.isMembershipContainer()) {
+			String violation = checkUnchanged(subject, MEMBERSHIP_RESOURCE, r.membershipResource);
+			if (violation == null) {
+				violation = checkUnchanged(subject, HAS_MEMBER_RELATION, r.hasMemberRelation);
+			}
+			if (violation == null) {
+				violation = checkUnchanged(subject, IS_MEMBER_OF_RELATION, r.isMemberOfRelation);
+			}
+			if (violation == null) {
+				violation = checkUnchanged(subject, INSERTED_CONTENT_RELATION, r.insertedContentRelation);
+			}
+			if (violation != null) {
+				return violation;
+			}
+		}
+
+		Set<RDFNode> created = model.listObjectsOfProperty(subject, DCTerms.created).toSet();
+		if (!created.isEmpty() && !created.equals(r.model.listObjectsOfProperty(r.model.getResource(r.uri), DCTerms.created).toSet())) {
+			return "<" + READ_ONLY_PROPERTY + "> is read-only";
+		}
+
+		return null;
+	}
+
+	private static String checkUnchanged(Resource subject, Property p, String value) {
+		String newValue = getUri(subject, p);
+		if (newValue != null && !newValue.equals(value)) {
+			return "<" + p.getURI() + "> can't be changed";
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return a copy of the model without server-managed triples about the
+	 *         resource or LDP interaction models as its types
+	 */
+	private static Model withoutServerManaged(Model model, String uri) {
+		Model copy = ModelFactory.createDefaultModel().add(model);
+		copy.setNsPrefixes(model.getNsPrefixMap());
+		Resource subject = copy.getResource(uri);
+		for (Property p : SERVER_MANAGED) {
+			subject.removeAll(p);
+		}
+		for (Statement s : subject.listProperties(RDF.type).toList()) {
+			if (s.getObject().isURIResource() && s.getObject().asResource().getURI().startsWith(LDP.NAMESPACE)) {
+				copy.remove(s);
+			}
+		}
+
+		return copy;
+	}
+
+	/**
+	 * @return the client's triples along with the server-managed triples the
+	 *         preferences ask for
+	 */
+	private Model render(LdpResource r, Preferences preferences) {
+		Model m = ModelFactory.createDefaultModel();
+		m.setNsPrefixes(r.model.getNsPrefixMap());
+		m.setNsPrefix("ldp", LDP.NAMESPACE);
+		m.setNsPrefix("dcterms", DCTerms.NS);
+		m.add(r.model);
+
+		Resource subject = m.getResource(r.uri);
+		if (r.isContainer()) {
+			subject.addProperty(RDF.type, m.createResource(LDP.Container.stringValue()));
+			subject.addProperty(RDF.type, m.createResource(r.interactionModel));
+			if (r.isMembershipContainer()) {
+				subject.addProperty(MEMBERSHIP_RESOURCE, m.createResource(r.membershipResource));
+				if (r.hasMemberRelation != null) {
+					subject.addProperty(HAS_MEMBER_RELATION, m.createResource(r.hasMemberRelation));
+				}
+				if (r.isMemberOfRelation != null) {
+					subject.addProperty(IS_MEMBER_OF_RELATION, m.createResource(r.isMemberOfRelation));
+				}
+				if (r.insertedContentRelation != null) {
+					subject.addProperty(INSERTED_CONTENT_RELATION, m.createResource(r.insertedContentRelation));
+				}
+			}
+			if (preferences.containment) {
+				for (String child : r.contains) {
+					subject.addProperty(CONTAINS, m.createResource(child));
+				}
+			}
+		}
+
+		// ldp:hasMemberRelation triples, which are on the membership resource
+		Set<String> containers = membershipOf.get(r.uri);
+		if (preferences.membership && containers != null) {
+			for (String containerUri : containers) {
+				LdpResource container = resources.get(containerUri);
+				if (container.hasMemberRelation == null) {
+					continue;
+				}
+				Property relation = m.createProperty(container.hasMemberRelation);
+				for (String child : container.contains) {
+					for (Resource member : getMembers(container, child)) {
+						subject.addProperty(relation, member);
+					}
+				}
+			}
+		}
+
+		// ldp:isMemberOfRelation triples, which are on the member
+		LdpResource container = r.container == null ? null : resources.get(r.container);
+		if (container != null && container.isMemberOfRelation != null
+				&& LDP.MemberSubject.stringValue().equals(container.insertedContentRelation)) {
+			subject.addProperty(m.createProperty(container.isMemberOfRelation),
+					m.createResource(container.membershipResource));
+		}
+
+		return m;
+	}
+
+	/**
+	 * @return the member-derived URIs of a resource in a Direct or Indirect
+	 *         Container
+	 */
+	private List<Resource> getMembers(LdpResource container, String child) {
+		if (container.insertedContentRelation == null
+				|| LDP.MemberSubject.stringValue().equals(container.insertedContentRelation)) {
+			return Collections.singletonList(ResourceFactory.createResource(child));
+		}
+
+		LdpResource r = resources.get(child);
+		if (r == null || r.model == null) {
+			return Collections.emptyList();
+		}
+
+		List<Resource> members = new ArrayList<>();
+		Property relation = r.model.createProperty(container.insertedContentRelation);
+		for (RDFNode node : r.model.listObjectsOfProperty(r.model.getResource(child), relation).toList()) {
+			if (node.isResource()) {
+				members.add(node.asResource());
+			}
+		}
+
+		return members;
+	}
+
+	private static byte[] serialize(Model model, String mediaType) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		if (MediaTypes.TEXT_TURTLE.equals(mediaType)) {
+			RDFDataMgr.write(out, model, RDFFormat.TURTLE_BLOCKS);
+		} else if (MediaTypes.APPLICATION_RDF_XML.equals(mediaType)) {
+			model.write(out, "RDF/XML");
+		} else {
+			model.write(out, "JSON-LD");
+		}
+
+		return out.toByteArray();
+	}
+
+	private static Model parse(byte[] body, String base, String lang) {
+		Model model = ModelFactory.createDefaultModel();
+		model.read(new ByteArrayInputStream(body), base, lang);
+		return model;
+	}
+
+	/**
+	 * Must hold the write lock.
+	 */
+	private void changed(LdpResource r) {
+		r.version = ++versions;
+	}
+
+	private void bump(String uri) {
+		LdpResource r = resources.get(uri);
+		if (r != null) {
+			changed(r);
+		}
+	}
+
+	/**
+	 * Updates the version of a container's membership resource, when its
+	 * members may have changed.
+	 */
+	private void membershipChanged(LdpResource container) {
+		if (container.membershipResource != null && !container.membershipResource.equals(container.uri)) {
+			bump(container.membershipResource);
+		}
+	}
+
+	/**
+	 * Picks a URI for a new resource in the container that was never used
+	 * before, based on the slug if there is one.
+	 */
+	private String assign(String container, String slug, boolean isContainer) {
+		String prefix = container.endsWith("/") ? container : container + "/";
+		String name = slug == null ? "" : SLUG_CHARACTERS.matcher(slug).replaceAll("-");
+		synchronized (assigned) {
+			String uri = prefix + (name.isEmpty() ? Long.toString(++names, Character.MAX_RADIX) : name);
+			while (assigned.contains(uri) || assigned.contains(uri + "/")) {
+				uri = prefix + (name.isEmpty() ? "" : name + "-") + Long.toString(++names, Character.MAX_RADIX);
+			}
+			if (isContainer) {
+				uri += "/";
+			}
+			assigned.add(uri);
+			return uri;
+		}
+	}
+
+	private static String getContainerUri(String uri) {
+		String path = uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+		int slash = path.lastIndexOf('/');
+		return slash < path.indexOf("//") + 2 ? null : path.substring(0, slash + 1);
+	}
+
+	/**
+	 * @return the LDP interaction model requested with a
+	 *         <code>rel="type"</code> link, or null if there is none
+	 */
+	private static String getInteractionModel(List<String> links) {
+		if (links == null) {
+			return null;
+		}
+
+		String requested = null;
+		for (String link : links) {
+			for (String type : LinkHeaders.parse(link).get(HttpHeaders.LINK_REL_TYPE)) {
+				if (type.startsWith(LDP.NAMESPACE) && (requested == null || LDP.Resource.stringValue().equals(requested))) {
+					requested = type;
+				}
+			}
+		}
+
+		return requested;
+	}
+
+	private static String getUri(Resource subject, Property p) {
+		Statement s = subject.getProperty(p);
+		return s != null && s.getObject().isURIResource() ? s.getObject().asResource().getURI() : null;
+	}
+
+	private static String getMediaType(String contentType) {
+		if (contentType == null) {
+			return null;
+		}
+
+		int semicolon = contentType.indexOf(';');
+		return (semicolon == -1 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase();
+	}
+
+	/**
+	 * @return the Jena language for an RDF media type, or null if it's not one
+	 */
+	private static String getLang(String mediaType) {
+		if (MediaTypes.TEXT_TURTLE.equals(mediaType)) {
+			return "TURTLE";
+		} else if (MediaTypes.APPLICATION_LD_JSON.equals(mediaType) || MediaTypes.APPLICATION_JSON.equals(mediaType)) {
+			return "JSON-LD";
+		} else if (MediaTypes.APPLICATION_RDF_XML.equals(mediaType)) {
+			return "RDF/XML";
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return the RDF media type the Accept header prefers, or Turtle if it
+	 *         doesn't accept any
+	 */
+	private static String negotiate(String accept) {
+		if (accept == null) {
+			return MediaTypes.TEXT_TURTLE;
+		}
+
+		String best = MediaTypes.TEXT_TURTLE;
+		double bestQuality = 0;
+		for (String range : accept.split(",")) {
+			String[] params = range.split(";");
+			String type = params[0].trim().toLowerCase();
+			double quality = 1;
+			for (int i = 1; i < params.length; i++) {
+				String param = params[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						quality = Double.parseDouble(param.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0;
+					}
+				}
+			}
+
+			for (String mediaType : RDF_MEDIA_TYPES) {
+				boolean matches = type.equals(mediaType) || type.equals("*/*")
+						|| (type.endsWith("/*") && mediaType.startsWith(type.substring(0, type.length() - 1)));
+				if (matches && quality > bestQuality) {
+					best = mediaType;
+					bestQuality = quality;
+				}
+			}
+		}
+
+		return best;
+	}
+
+	private Reply addResourceHeaders(Reply reply, LdpResource r) {
+		reply.link(LDP.Resource.stringValue(), HttpHeaders.LINK_REL_TYPE);
+		if (r.isContainer()) {
+			reply.link(r.interactionModel, HttpHeaders.LINK_REL_TYPE);
+		} else if (r.isRdfSource()) {
+			reply.link(LDP.RDFSource.stringValue(), HttpHeaders.LINK_REL_TYPE);
+		} else {
+			reply.link(LDP.NonRDFSource.stringValue(), HttpHeaders.LINK_REL_TYPE);
+		}
+		if (r.describedBy != null) {
+			reply.link(r.describedBy, HttpHeaders.LINK_REL_DESCRIBEDBY);
+		}
+
+		reply.header(HttpHeaders.ALLOW, getAllow(r));
+		if (r.isContainer()) {
+			reply.header(HttpHeaders.ACCEPT_POST, ACCEPT_POST_VALUE);
+		}
+		if (r.isRdfSource() && !r.readOnly) {
+			reply.header(HttpHeaders.ACCEPT_PATCH, SPARQL_UPDATE);
+		}
+
+		return reply;
+	}
+
+	private static String getAllow(LdpResource r) {
+		if (r.readOnly) {
+			return "GET, HEAD, OPTIONS";
+		}
+
+		StringBuilder allow = new StringBuilder("GET, HEAD, OPTIONS, PUT");
+		if (r.isContainer()) {
+			allow.append(", POST");
+		}
+		if (r.isRdfSource()) {
+			allow.append(", PATCH");
+		}
+		if (r.container != null) {
+			allow.append(", DELETE");
+		}
+
+		return allow.toString();
+	}
+
+	private Reply notFound(String uri) {
+		return error(HttpStatus.SC_NOT_FOUND, "No resource at <" + uri + ">");
+	}
+
+	private Reply methodNotAllowed(LdpResource r, String method) {
+		return error(HttpStatus.SC_METHOD_NOT_ALLOWED, method + " is not allowed on <" + r.uri + ">")
+				.header(HttpHeaders.ALLOW, getAllow(r));
+	}
+
+	/**
+	 * @return an error reply linking to the server's constraints
+	 */
+	private Reply constrained(LdpResource r, int status, String message) {
+		Reply reply = error(status, message);
+		addResourceHeaders(reply, r);
+		String constraints = getUri(CONSTRAINTS);
+		return reply.link(constraints, CONSTRAINED_BY).link(constraints, HttpHeaders.LINK_REL_DESCRIBEDBY);
+	}
+
+	private static Reply error(int status, String message) {
+		return new Reply(status).body("text/plain; charset=UTF-8", (message + "\n").getBytes(UTF_8));
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			out.write(buffer, 0, n);
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * The Prefer header's <code>return=representation</code> preferences.
+	 */
+	private static class Preferences {
+		static final Preferences ALL = new Preferences();
+
+		boolean returnRepresentation = false;
+		boolean containment = true;
+		boolean membership = true;
+
+		static Preferences parse(List<String> values) {
+			Preferences preferences = new Preferences();
+			if (values == null) {
+				return preferences;
+			}
+
+			for (String value : values) {
+				if (!RETURN_REPRESENTATION.matcher(value).find()) {
+					continue;
+				}
+				preferences.returnRepresentation = true;
+
+				Set<String> include = new HashSet<>();
+				Set<String> omit = new HashSet<>();
+				Matcher m = PREFERENCE.matcher(value);
+				while (m.find()) {
+					Set<String> uris = "include".equals(m.group(1)) ? include : omit;
+					uris.addAll(Arrays.asList(m.group(2).trim().split("\\s+")));
+				}
+
+				if (include.contains(LdpPreferences.PREFER_MINIMAL_CONTAINER) || include.contains(PREFER_EMPTY_CONTAINER)) {
+					preferences.containment = include.contains(LdpPreferences.PREFER_CONTAINMENT);
+					preferences.membership = include.contains(LdpPreferences.PREFER_MEMBERSHIP);
+				}
+				if (omit.contains(LdpPreferences.PREFER_CONTAINMENT)) {
+					preferences.containment = false;
+				}
+				if (omit.contains(LdpPreferences.PREFER_MEMBERSHIP)) {
+					preferences.membership = false;
+				}
+			}
+
+			return preferences;
+		}
+
+		/**
+		 * @return distinguishes representations with different triples
+		 */
+		String key() {
+			return (containment ? "c" : "") + (membership ? "m" : "");
+		}
+	}
+
+	/**
+	 * A response, built before anything is sent so that it can be sent after
+	 * the lock is released.
+	 */
+	private static class Reply {
+		int status;
+		final List<String[]> headers = new ArrayList<>();
+		final List<String> links = new ArrayList<>();
+		String contentType;
+		byte[] body;
+
+		Reply(int status) {
+			this.status = status;
+		}
+
+		Reply status(int status) {
+			this.status = status;
+			this.contentType = null;
+			this.body = null;
+			return this;
+		}
+
+		Reply header(String name, String value) {
+			headers.add(new String[] { name, value });
+			return this;
+		}
+
+		Reply link(String uri, String rel) {
+			links.add("<" + uri + ">; rel=\"" + rel + "\"");
+			return this;
+		}
+
+		Reply body(String contentType, byte[] body) {
+			this.contentType = contentType;
+			this.body = body;
+			return this;
+		}
+
+		void send(HttpExchange exchange, boolean head) throws IOException {
+			Headers response = exchange.getResponseHeaders();
+			for (String[] header : headers) {
+				response.add(header[0], header[1]);
+			}
+			if (!links.isEmpty()) {
+				StringBuilder link = new StringBuilder();
+				for (String l : links) {
+					if (link.length() > 0) {
+						link.append(", ");
+					}
+					link.append(l);
+				}
+				response.set(HttpHeaders.LINK, link.toString());
+			}
+			if (contentType != null) {
+				response.set(HttpHeaders.CONTENT_TYPE, contentType);
+			}
+
+			if (body == null || head || status == HttpStatus.SC_NO_CONTENT || status == HttpStatus.SC_NOT_MODIFIED) {
+				exchange.sendResponseHeaders(status, -1);
+			} else {
+				exchange.sendResponseHeaders(status, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.w3.ldp.testsuite.server;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.w3.ldp.testsuite.vocab.LDP;
+
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * A resource held by the {@link EmbeddedLdpServer}. All fields are guarded by
+ * the server's lock, except the representation cache, which is filled while
+ * holding only its read lock.
+ */
+class LdpResource {
+
+	final String uri;
+	final String interactionModel;
+
+	/** The container the resource was created in, or null */
+	String container;
+
+	/** The triples clients control, for RDF sources */
+	Model model;
+
+	/** The content and its media type, for non-RDF sources */
+	byte[] content;
+	String contentType;
+
+	/** The associated RDF source of a non-RDF source, or null */
+	String describedBy;
+
+	/** Changes whenever the representation may change, for ETags */
+	long version;
+
+	/** True if clients may only read the resource */
+	boolean readOnly;
+
+	/** Contained resources, for containers */
+	final Set<String> contains = new LinkedHashSet<String>();
+
+	/** Membership settings, for Direct and Indirect Containers */
+	String membershipResource;
+	String hasMemberRelation;
+	String isMemberOfRelation;
+	String insertedContentRelation;
+
+	/** Serialized representations of the current version */
+	final ConcurrentMap<String, Representation> representations = new ConcurrentHashMap<String, Representation>();
+
+	LdpResource(String uri, String interactionModel) {
+		this.uri = uri;
+		this.interactionModel = interactionModel;
+	}
+
+	boolean isContainer() {
+		return isBasicContainer() || isMembershipContainer();
+	}
+
+	boolean isBasicContainer() {
+		return LDP.BasicContainer.stringValue().equals(interactionModel);
+	}
+
+	boolean isMembershipContainer() {
+		return LDP.DirectContainer.stringValue().equals(interactionModel)
+				|| LDP.IndirectContainer.stringValue().equals(interactionModel);
+	}
+
+	boolean isRdfSource() {
+		return !LDP.NonRDFSource.stringValue().equals(interactionModel);
+	}
+
+	/**
+	 * @param variant identifies the representation, or null if there is only
+	 *                one
+	 * @return an ETag that changes with the version and differs between
+	 *         representations
+	 */
+	String getETag(String variant) {
+		String tag = Long.toString(version, Character.MAX_RADIX);
+		return "\"" + (variant == null ? tag : tag + "-" + variant) + "\"";
+	}
+
+	/**
+	 * @return true if the ETag is one of the current version's, whichever
+	 *         representation it was sent with
+	 */
+	boolean matches(String etag) {
+		if ("*".equals(etag)) {
+			return true;
+		}
+
+		String tag = "\"" + Long.toString(version, Character.MAX_RADIX);
+		return etag.equals(tag + "\"") || etag.startsWith(tag + "-");
+	}
+
+	/**
+	 * A serialized representation and the version it was serialized from.
+	 */
+	static class Representation {
+		final long version;
+		final byte[] body;
+
+		Representation(long version, byte[] body) {
+			this.version = version;
+			this.body = body;
+		}
+	}
+}
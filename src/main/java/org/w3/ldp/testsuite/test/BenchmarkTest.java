@@ -0,0 +1,175 @@
+package org.w3.ldp.testsuite.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.StringUtils;
+import org.testng.SkipException;
+import org.w3.ldp.testsuite.reporter.CsvReport;
+
+/**
+ * Base class of the benchmarks, which measure the server rather than check
+ * its conformance. It picks the container to run against, runs requests
+ * concurrently and reports the results, as a table on standard output and
+ * as a CSV file in the report directory.
+ *
+ * @param <T> what the benchmark reports one row of results for
+ */
+public abstract class BenchmarkTest<T> extends LdpTest {
+
+	private final String csvFile;
+
+	/**
+	 * @param auth    the credentials, if any
+	 * @param csvFile the name of the CSV file in the report directory
+	 */
+	protected BenchmarkTest(String auth, String csvFile) {
+		super(auth);
+		this.csvFile = csvFile;
+	}
+
+	/**
+	 * @return the first of the containers that is configured
+	 * @throws SkipException if none is
+	 */
+	protected static String getContainer(String basicContainer, String directContainer, String indirectContainer,
+			String tests) {
+		if (StringUtils.isNotBlank(basicContainer)) {
+			return basicContainer;
+		} else if (StringUtils.isNotBlank(directContainer)) {
+			return directContainer;
+		} else if (StringUtils.isNotBlank(indirectContainer)) {
+			return indirectContainer;
+		}
+
+		throw new SkipException("No root container provided in testng.xml. Skipping " + tests + ".");
+	}
+
+	/**
+	 * @param name  the name of the parameter, for the error message
+	 * @param value a comma separated list of positive integers, or null
+	 * @param def   the list to use if the value is null
+	 * @throws IllegalArgumentException if a value isn't a positive integer
+	 */
+	protected static int[] parseInts(String name, String value, String def) {
+		String[] split = (value != null ? value : def).split("\\s*,\\s*");
+		int[] ints = new int[split.length];
+		for (int i = 0; i < split.length; i++) {
+			ints[i] = parsePositiveInt(name, split[i]);
+		}
+
+		return ints;
+	}
+
+	/**
+	 * @param name  the name of the parameter, for the error message
+	 * @param value a positive integer, or null
+	 * @param def   the value to use if the value is null
+	 * @throws IllegalArgumentException if the value isn't a positive integer
+	 */
+	protected static int parseInt(String name, String value, int def) {
+		return value != null ? parsePositiveInt(name, value) : def;
+	}
+
+	private static int parsePositiveInt(String name, String value) {
+		try {
+			int i = Integer.parseInt(value);
+			if (i > 0) {
+				return i;
+			}
+		} catch (NumberFormatException e) {
+			// fall through
+		}
+
+		throw new IllegalArgumentException("Invalid " + name + ", expected a positive integer but got " + value);
+	}
+
+	/**
+	 * Runs the tasks and waits for all of them. A task that throws, for
+	 * instance because the connection timed out, counts as an error.
+	 *
+	 * @return the elapsed time in seconds
+	 */
+	protected static double invokeAll(ExecutorService executor, List<Callable<Void>> tasks, Measurement m) {
+		long start = System.nanoTime();
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					m.error(e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while running the benchmark", e);
+		}
+
+		return (System.nanoTime() - start) / 1e9;
+	}
+
+	/**
+	 * Prints the results and writes them to the CSV file, if there are any.
+	 */
+	protected void report(List<T> results) throws IOException {
+		if (results.isEmpty()) {
+			return;
+		}
+
+		printSummary(results);
+
+		List<String> rows = new ArrayList<String>();
+		for (T result : results) {
+			rows.add(toCsv(result));
+		}
+		CsvReport.write(csvFile, getCsvHeader(), rows);
+	}
+
+	/**
+	 * Prints the results as a table on standard output.
+	 */
+	protected abstract void printSummary(List<T> results);
+
+	/**
+	 * @return the names of the CSV columns, separated by commas
+	 */
+	protected abstract String getCsvHeader();
+
+	/**
+	 * @return one result as a line of the CSV file
+	 */
+	protected abstract String toCsv(T result);
+
+	/**
+	 * Counts the requests that failed while measuring something.
+	 */
+	static class Measurement {
+		final AtomicLong errors = new AtomicLong();
+		/** The first exception thrown by a request, if any */
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		double seconds;
+
+		/**
+		 * Counts a request that threw as an error.
+		 */
+		void error(Throwable t) {
+			errors.incrementAndGet();
+			failure.compareAndSet(null, t);
+		}
+
+		/**
+		 * @return the first exception thrown, to add to a failure message, or
+		 *         an empty string if none was
+		 */
+		String describeFailure() {
+			return failure.get() != null ? ", the first that threw with " + failure.get() : "";
+		}
+	}
+}
@@ -0,0 +1,304 @@
+package org.w3.ldp.testsuite.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+import static org.w3.ldp.testsuite.reporter.CsvReport.toMillis;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.testng.SkipException;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+import org.w3.ldp.testsuite.annotations.Exclusive;
+import org.w3.ldp.testsuite.util.Histogram;
+
+import com.jayway.restassured.response.Response;
+
+/**
+ * Checks that several servers fronting the same store, such as the nodes of
+ * a cluster, agree with each other. Each sample creates a resource through
+ * one node, reads it through all the others until it's there, compares their
+ * ETags, then deletes it through the same node and reads again until it's gone
+ * everywhere. Every node takes a turn at writing.
+ * <p/>
+ * The test reports the replication lag of every pair of nodes and the latency
+ * of each node, so that a slow replica stands out. It fails if a node doesn't
+ * catch up within the timeout or returns a different ETag for the same state.
+ * <p/>
+ * The nodes are given as the same container on each server. A resource
+ * created through one node is read through another by swapping the
+ * container URI, or the origin if the location isn't below the container.
+ * This only runs in the {@value LdpTest#CLUSTER} group.
+ */
+public class ClusterConsistencyTest extends BenchmarkTest<ClusterConsistencyTest.Pair> {
+
+	public static final int DEFAULT_SAMPLES = 10;
+
+	private static final long TIMEOUT = 30000; // ms
+	private static final long INITIAL_DELAY = 5; // ms
+	private static final long MAX_DELAY = 500; // ms
+
+	private final List<String> nodes = new ArrayList<String>();
+	private final int samples;
+
+	private final Map<String, Histogram> latency = new HashMap<String, Histogram>();
+
+	@Parameters({"clusterNodes", "clusterSamples", "auth"})
+	public ClusterConsistencyTest(@Optional String clusterNodes, @Optional String clusterSamples,
+			@Optional String auth) {
+		super(auth, "ldp-testsuite-cluster-report.csv");
+		if (clusterNodes != null) {
+			for (String node : clusterNodes.split("\\s*,\\s*")) {
+				nodes.add(node);
+				latency.put(node, new Histogram());
+			}
+		}
+		if (nodes.size() < 2) {
+			throw new SkipException("Fewer than two cluster nodes provided in testng.xml. Skipping cluster tests.");
+		}
+
+		samples = parseInt("clusterSamples", clusterSamples, DEFAULT_SAMPLES);
+	}
+
+	@Test(
+			groups = {CLUSTER},
+			description = "A resource created or deleted through one node of a cluster becomes "
+					+ "visible through every other node, which then returns the same ETag for it.")
+	@Exclusive
+	public void testReplication() throws IOException {
+		List<Pair> pairs = new ArrayList<Pair>();
+		for (String writer : nodes) {
+			for (String reader : nodes) {
+				if (!writer.equals(reader)) {
+					pairs.add(new Pair(writer, reader));
+				}
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(nodes.size() - 1);
+		try {
+			for (int i = 0; i < samples; i++) {
+				for (String writer : nodes) {
+					sample(executor, writer, pairs);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			report(pairs);
+		}
+
+		for (Pair pair : pairs) {
+			assertEquals(pair.timeouts.get(), 0, pair + ": " + pair.timeouts
+					+ " writes didn't become visible within " + TIMEOUT / 1000 + "s");
+			assertEquals(pair.eTagMismatches.get(), 0, pair + ": " + pair.eTagMismatches
+					+ " resources had a different ETag on each node");
+		}
+	}
+
+	/**
+	 * Creates a resource through a node and deletes it again, measuring how
+	 * long the other nodes take to see each change.
+	 */
+	private void sample(ExecutorService executor, String writer, List<Pair> pairs) {
+		long start = System.nanoTime();
+		String location = post(writer, postContent(), null);
+		long written = System.nanoTime();
+		latency.get(writer).record(TimeUnit.NANOSECONDS.toMicros(written - start));
+
+		try {
+			String eTag = await(executor, writer, location, written, pairs, true);
+			for (Pair pair : pairs) {
+				if (pair.writer.equals(writer) && pair.lastETag != null && eTag != null && !eTag.equals(pair.lastETag)) {
+					pair.eTagMismatches.incrementAndGet();
+				}
+			}
+		} finally {
+			start = System.nanoTime();
+			Response delete = buildBaseRequestSpecification().delete(location);
+			written = System.nanoTime();
+			latency.get(writer).record(TimeUnit.NANOSECONDS.toMicros(written - start));
+			if (delete.getStatusCode() < 300) {
+				await(executor, writer, location, written, pairs, false);
+			}
+		}
+	}
+
+	/**
+	 * Reads a resource through every node but the writer at the same time,
+	 * until it exists or is gone.
+	 *
+	 * @return the writer's ETag for the resource, if it should exist
+	 */
+	private String await(ExecutorService executor, String writer, final String location, final long written,
+			List<Pair> pairs, final boolean exists) {
+		List<Callable<Void>> reads = new ArrayList<Callable<Void>>();
+		for (final Pair pair : pairs) {
+			if (!pair.writer.equals(writer)) {
+				continue;
+			}
+			pair.lastETag = null;
+			reads.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					String uri = translate(location, pair.writer, pair.reader);
+					long deadline = written + TimeUnit.MILLISECONDS.toNanos(TIMEOUT);
+					long delay = INITIAL_DELAY;
+					Response response;
+					while (exists != isFound(response = get(pair.reader, uri))) {
+						if (System.nanoTime() > deadline) {
+							pair.timeouts.incrementAndGet();
+							return null;
+						}
+						sleep(delay);
+						delay = Math.min(delay * 2, MAX_DELAY);
+					}
+
+					long lag = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - written);
+					if (exists) {
+						pair.createLag.record(lag);
+						pair.lastETag = response.getHeader(ETAG);
+					} else {
+						pair.deleteLag.record(lag);
+					}
+					return null;
+				}
+			});
+		}
+
+		Measurement m = new Measurement();
+		invokeAll(executor, reads, m);
+		if (m.failure.get() != null) {
+			// a read threw, for instance on a status that is neither found nor gone
+			fail("Reading <" + location + "> failed: " + m.failure.get().getMessage(), m.failure.get());
+		}
+
+		return exists ? get(writer, location).getHeader(ETAG) : null;
+	}
+
+	private Response get(String node, String uri) {
+		long start = System.nanoTime();
+		Response response = buildBaseRequestSpecification()
+				.header(ACCEPT, TEXT_TURTLE)
+				.get(uri);
+		response.asByteArray();
+		latency.get(node).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+		return response;
+	}
+
+	private static boolean isFound(Response response) {
+		int status = response.getStatusCode();
+		if (status == HttpStatus.SC_NOT_FOUND || status == HttpStatus.SC_GONE) {
+			return false;
+		}
+		if (status >= 200 && status < 300) {
+			return true;
+		}
+
+		throw new IllegalStateException("Unexpected status " + status + " while waiting for replication");
+	}
+
+	/**
+	 * @return the URI of a resource created through one node on another node
+	 */
+	static String translate(String uri, String from, String to) {
+		if (uri.startsWith(from)) {
+			return to + uri.substring(from.length());
+		}
+
+		String fromOrigin = getOrigin(from);
+		if (uri.startsWith(fromOrigin)) {
+			return getOrigin(to) + uri.substring(fromOrigin.length());
+		}
+
+		return uri;
+	}
+
+	private static String getOrigin(String uri) {
+		URI u = URI.create(uri);
+		return u.getScheme() + "://" + u.getRawAuthority();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for replication", e);
+		}
+	}
+
+	@Override
+	protected void printSummary(List<Pair> pairs) {
+		System.out.printf("%n%-60s %7s %10s %10s %10s %10s %9s %9s%n", "Replication lag (ms)", "Samples",
+				"Create p50", "Create max", "Delete p50", "Delete max", "Timeouts", "ETag diff");
+		for (Pair pair : pairs) {
+			System.out.printf("%-60s %7d %10.2f %10.2f %10.2f %10.2f %9d %9d%n", pair, pair.createLag.getTotalCount(),
+					toMillis(pair.createLag.getValueAtPercentile(50)), toMillis(pair.createLag.getMax()),
+					toMillis(pair.deleteLag.getValueAtPercentile(50)), toMillis(pair.deleteLag.getMax()),
+					pair.timeouts.get(), pair.eTagMismatches.get());
+		}
+
+		System.out.printf("%n%-60s %8s %9s %9s %9s %9s%n", "Node latency (ms)", "Requests", "p50", "p95", "p99", "max");
+		for (String node : nodes) {
+			Histogram h = latency.get(node);
+			System.out.printf("%-60s %8d %9.2f %9.2f %9.2f %9.2f%n", node, h.getTotalCount(),
+					toMillis(h.getValueAtPercentile(50)), toMillis(h.getValueAtPercentile(95)),
+					toMillis(h.getValueAtPercentile(99)), toMillis(h.getMax()));
+		}
+	}
+
+	@Override
+	protected String getCsvHeader() {
+		return "writer,reader,samples,createP50Ms,createP95Ms,createMaxMs,deleteP50Ms,deleteP95Ms,"
+				+ "deleteMaxMs,timeouts,eTagMismatches,readerRequests,readerP50Ms,readerP99Ms";
+	}
+
+	@Override
+	protected String toCsv(Pair pair) {
+		Histogram reader = latency.get(pair.reader);
+		return pair.writer + "," + pair.reader + "," + pair.createLag.getTotalCount() + ","
+				+ toMillis(pair.createLag.getValueAtPercentile(50)) + ","
+				+ toMillis(pair.createLag.getValueAtPercentile(95)) + "," + toMillis(pair.createLag.getMax()) + ","
+				+ toMillis(pair.deleteLag.getValueAtPercentile(50)) + ","
+				+ toMillis(pair.deleteLag.getValueAtPercentile(95)) + "," + toMillis(pair.deleteLag.getMax()) + ","
+				+ pair.timeouts.get() + "," + pair.eTagMismatches.get() + "," + reader.getTotalCount() + ","
+				+ toMillis(reader.getValueAtPercentile(50)) + "," + toMillis(reader.getValueAtPercentile(99));
+	}
+
+	/**
+	 * Replication from one node to another.
+	 */
+	static class Pair {
+		final String writer;
+		final String reader;
+		final Histogram createLag = new Histogram();
+		final Histogram deleteLag = new Histogram();
+		final AtomicLong timeouts = new AtomicLong();
+		final AtomicLong eTagMismatches = new AtomicLong();
+		/** The reader's ETag for the last resource the writer created */
+		volatile String lastETag;
+
+		Pair(String writer, String reader) {
+			this.writer = writer;
+			this.reader = reader;
+		}
+
+		@Override
+		public String toString() {
+			return writer + " -> " + reader;
+		}
+	}
+}
@@ -12,7 +12,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.UUID;
 
 import javax.ws.rs.core.UriBuilder;
 
@@ -22,12 +21,16 @@ import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 import org.testng.annotations.Test;
 import org.w3.ldp.testsuite.LdpTestSuite;
+import org.w3.ldp.testsuite.annotations.Exclusive;
 import org.w3.ldp.testsuite.annotations.SpecTest;
 import org.w3.ldp.testsuite.annotations.SpecTest.METHOD;
 import org.w3.ldp.testsuite.annotations.SpecTest.STATUS;
 import org.w3.ldp.testsuite.exception.SkipClientTestException;
 import org.w3.ldp.testsuite.http.HttpMethod;
 import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.mapper.RdfStreamMatcher;
+import org.w3.ldp.testsuite.mapper.TripleMatches;
+import org.w3.ldp.testsuite.mapper.TriplePattern;
 import org.w3.ldp.testsuite.matcher.HeaderMatchers;
 import org.w3.ldp.testsuite.vocab.LDP;
 
@@ -115,8 +118,9 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 			approval = STATUS.WG_PENDING)
 	public void testPreferContainmentTriples() {
 		Response response;
-		Model model;
+		TripleMatches matches;
 		String containerUri = getResourceUri();
+		TriplePattern containment = new TriplePattern(containerUri, LDP.contains.stringValue(), null);
 
 		// Ask for containment triples.
 		response = buildBaseRequestSpecification()
@@ -126,13 +130,12 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 					.statusCode(isSuccessful())
 				.when()
 					.get(containerUri);
-		model = response.as(Model.class, new RdfObjectMapper(containerUri));
+		matches = new RdfStreamMatcher(containerUri, containment).match(response);
 
 		assertTrue(isPreferenceApplied(response), MSG_PREFERENCE_NOT_APPLIED);
 
 		// Assumes the container is not empty.
-		assertTrue(model.contains(model.getResource(containerUri), model.createProperty(LDP.contains.stringValue())),
-				"Container does not have containment triples");
+		assertTrue(matches.contains(containment), "Container does not have containment triples");
 
 		// Ask for a minimal container.
 		response = buildBaseRequestSpecification()
@@ -142,10 +145,10 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 					.statusCode(isSuccessful())
 				.when()
 					.get(containerUri);
-		model = response.as(Model.class, new RdfObjectMapper(containerUri));
+		matches = new RdfStreamMatcher(containerUri, containment).match(response);
 
 		assertTrue(isPreferenceApplied(response), MSG_PREFERENCE_NOT_APPLIED);
-		assertFalse(model.contains(model.getResource(containerUri), model.createProperty(LDP.contains.stringValue())),
+		assertFalse(matches.contains(containment),
 				"Container has containment triples when minimal container was requested");
 
 		// Ask to omit containment triples.
@@ -156,12 +159,12 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 					.statusCode(isSuccessful())
 				.when()
 					.get(containerUri);
-		model = response.as(Model.class, new RdfObjectMapper(containerUri));
+		matches = new RdfStreamMatcher(containerUri, containment).match(response);
 
 		assertTrue(isPreferenceApplied(response), MSG_PREFERENCE_NOT_APPLIED);
 
 		// Assumes the container is not empty.
-		assertFalse(model.contains(model.getResource(containerUri), model.createProperty(LDP.contains.stringValue())),
+		assertFalse(matches.contains(containment),
 				"Container has containment triples when client requested server omit them");
 	}
 
@@ -204,7 +207,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 			location = postResponse.getHeader(LOCATION);
 			assertNotNull(location, MSG_LOC_NOTFOUND);
 		} finally {
-			buildBaseRequestSpecification().delete(location);
+			fixtures.deleteLater(location);
 		}
 	}
 
@@ -231,21 +234,16 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 		assertNotNull(location, MSG_LOC_NOTFOUND);
 
 		try {
-			Model containerModel = getAsModel(containerUri);
-			Resource container = containerModel.getResource(containerUri);
-
+			TriplePattern containment = new TriplePattern(containerUri, LDP.contains.stringValue(), location);
 			assertTrue(
-					container.hasProperty(containerModel
-									.createProperty(LDP.contains.stringValue()),
-							containerModel.getResource(location)
-					),
+					awaitTriple("containment after POST", containerUri, null, containment, true),
 					"Container <"
 							+ containerUri
 							+ "> does not have a containment triple for newly created resource <"
 							+ location + ">."
 			);
 		} finally {
-			buildBaseRequestSpecification().delete(location);
+			fixtures.deleteLater(location);
 		}
 	}
 
@@ -328,10 +326,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 				.post(getResourceUri());
 
 		// Delete the resource to clean up.
-		String location = postResponse.getHeader(LOCATION);
-		if (location != null) {
-			buildBaseRequestSpecification().delete(location);
-		}
+		fixtures.deleteLater(postResponse.getHeader(LOCATION));
 	}
 
 	@Test(
@@ -383,7 +378,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 					"Server should not responsd with RDF source Link header when content was created with non-RDF Content-Type");
 		} finally {
 			// Clean up.
-			buildBaseRequestSpecification().delete(location);
+			fixtures.deleteLater(location);
 		}
 	}
 
@@ -436,7 +431,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 			);
 		} finally {
 			// Delete the resource to clean up.
-			buildBaseRequestSpecification().delete(location);
+			fixtures.deleteLater(location);
 		}
 	}
 
@@ -494,10 +489,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 					.post(getResourceUri());
 
 		// Delete the resource to clean up.
-		String location = postResponse.getHeader(LOCATION);
-		if (location != null) {
-			buildBaseRequestSpecification().delete(location);
-		}
+		fixtures.deleteLater(postResponse.getHeader(LOCATION));
 
 	}
 
@@ -555,6 +547,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldpc-put-mbrprops",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_APPROVED)
+	@Exclusive
 	public void testRejectPutModifyingContainmentTriples() {
 		String containerUri = getResourceUri();
 		Response response = buildBaseRequestSpecification()
@@ -644,14 +637,9 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 				.delete(location);
 
 		// Test the membership triple
-		Model containerModel = getAsModel(getResourceUri());
-		Resource container = containerModel.getResource(getResourceUri());
-
+		TriplePattern containment = new TriplePattern(getResourceUri(), LDP.contains.stringValue(), location);
 		assertFalse(
-				container.hasProperty(containerModel
-								.createProperty(LDP.contains.stringValue()),
-						containerModel.getResource(location)
-				),
+				awaitTriple("containment after DELETE", getResourceUri(), null, containment, false),
 				"The LDPC server must remove the corresponding containment triple when an LDPR is deleted."
 		);
 	}
@@ -714,18 +702,18 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 		skipIfMethodNotAllowed(HttpMethod.POST);
 
 		// Come up with a unique slug header.
-		String slug = UUID.randomUUID().toString();
+		String slug = uniqueName("slug");
 
 		// POST two resources with the same Slug header and content to make sure
 		// they have different URIs.
 		Model content = postContent();
-		String location = post(content, slug);
+		String location = post(getResourceUri(), content, slug);
 
 		try {
 			assertTrue(location.contains(slug), "Slug is not part of the return Location");
 		} finally {
 			// Clean up.
-			buildBaseRequestSpecification().delete(location);
+			fixtures.deleteLater(location);
 		}
 	}
 
@@ -783,7 +771,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 		// POST two resources with the same Slug header and content to make sure
 		// they have different URIs.
 		Model content = postContent();
-		String loc1 = post(content, slug);
+		String loc1 = post(getResourceUri(), content, slug);
 
 		// TODO: Test if DELETE is supported before trying to delete the
 		// resource.
@@ -791,7 +779,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 		// below.
 		buildBaseRequestSpecification().expect().statusCode(isSuccessful()).when().delete(loc1);
 
-		String loc2 = post(content, slug);
+		String loc2 = post(getResourceUri(), content, slug);
 		try {
 			assertNotEquals(loc1, loc2, "Server reused URIs for POSTed resources.");
 		} finally {
@@ -799,20 +787,6 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 		}
 	}
 
-	private String post(Model content, String slug) {
-		RequestSpecification spec = buildBaseRequestSpecification().contentType(TEXT_TURTLE);
-		if (slug != null) {
-			spec.header(SLUG, slug);
-		}
-		Response post = spec.body(content, new RdfObjectMapper()).expect()
-				.statusCode(HttpStatus.SC_CREATED).when()
-				.post(getResourceUri());
-		String location = post.getHeader(LOCATION);
-		assertNotNull(location, MSG_LOC_NOTFOUND);
-
-		return location;
-	}
-
 	/**
 	 * Attempts to create a new resource using PUT.
 	 *
@@ -823,7 +797,7 @@ public abstract class CommonContainerTest extends RdfSourceTest {
 	protected String putToCreate() {
 		// Build a unique URI for the PUT request.
 		URI target = UriBuilder.fromUri(getResourceUri())
-				.path(UUID.randomUUID().toString()).build();
+				.path(uniqueName("put")).build();
 		Model model = postContent();
 		Response response = buildBaseRequestSpecification().contentType(TEXT_TURTLE)
 				.body(model, new RdfObjectMapper("")).expect()
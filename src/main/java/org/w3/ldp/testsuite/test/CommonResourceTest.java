@@ -11,7 +11,6 @@ import static org.w3.ldp.testsuite.matcher.HttpStatusSuccessMatcher.isSuccessful
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -22,17 +21,17 @@ import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 import org.testng.annotations.Test;
 import org.w3.ldp.testsuite.LdpTestSuite;
+import org.w3.ldp.testsuite.annotations.Exclusive;
 import org.w3.ldp.testsuite.annotations.SpecTest;
 import org.w3.ldp.testsuite.annotations.SpecTest.METHOD;
 import org.w3.ldp.testsuite.annotations.SpecTest.STATUS;
 import org.w3.ldp.testsuite.exception.SkipMethodNotAllowedException;
 import org.w3.ldp.testsuite.http.HttpMethod;
+import org.w3.ldp.testsuite.http.ServerProfile;
+import org.w3.ldp.testsuite.http.ServerProfiles;
 import org.w3.ldp.testsuite.vocab.LDP;
 
-import com.google.common.collect.ImmutableMap;
-import com.jayway.restassured.RestAssured;
 import com.jayway.restassured.response.Response;
-import com.jayway.restassured.specification.RequestSpecification;
 import com.jayway.restassured.specification.ResponseSpecification;
 
 /**
@@ -41,17 +40,21 @@ import com.jayway.restassured.specification.ResponseSpecification;
 public abstract class CommonResourceTest extends LdpTest {
 
 	private Set<String> options = new HashSet<String>();
-
-	protected Map<String,String> auth;
+	private String acceptPatch;
 
 	protected abstract String getResourceUri();
 
 	@BeforeClass(alwaysRun = true)
 	public void determineOptions() {
 		String uri = getResourceUri();
-		if (StringUtils.isNotBlank(uri)) {
+		ServerProfile profile = ServerProfiles.get(uri);
+		if (profile != null) {
+			// Already discovered when the suite started.
+			options.addAll(profile.getAllow());
+			acceptPatch = profile.getAcceptPatch();
+		} else if (StringUtils.isNotBlank(uri)) {
 			// Use HTTP OPTIONS, which MUST be supported by LDP servers, to determine what methods are supported on this container.
-			Response optionsResponse = RestAssured.options(uri);
+			Response optionsResponse = buildBaseRequestSpecification().options(uri);
 			String allow = optionsResponse.header(ALLOW);
 			if (allow != null) {
 				String[] methods = allow.split("\\s*,\\s*");
@@ -59,28 +62,13 @@ public abstract class CommonResourceTest extends LdpTest {
 					options.add(method);
 				}
 			}
+			acceptPatch = optionsResponse.header(ACCEPT_PATCH);
 		}
 	}
 
 	@Parameters("auth")
 	public CommonResourceTest(@Optional String auth) throws IOException {
-		if (StringUtils.isNotBlank(auth) && auth.contains(":")) {
-			String[] split = auth.split(":");
-			if (split.length == 2 && StringUtils.isNotBlank(split[0]) && StringUtils.isNotBlank(split[1])) {
-				this.auth = ImmutableMap.of("username", split[0], "password", split[1]);
-			}
-		} else {
-			this.auth = null;
-		}
-	}
-
-	@Override
-	protected RequestSpecification buildBaseRequestSpecification() {
-		if (auth == null) {
-			return RestAssured.given();
-		} else {
-			return RestAssured.given().auth().basic(auth.get("username"), auth.get("password"));
-		}
+		super(auth);
 	}
 
 	@Test(
@@ -220,6 +208,7 @@ public abstract class CommonResourceTest extends LdpTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldpr-put-precond",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_APPROVED)
+	@Exclusive
 	public void testPutRequiresIfMatch() throws URISyntaxException {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 
@@ -287,6 +276,7 @@ public abstract class CommonResourceTest extends LdpTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldpr-put-precond",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_APPROVED)
+	@Exclusive
 	public void testPreconditionRequiredStatusCode() {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 
@@ -421,6 +411,13 @@ public abstract class CommonResourceTest extends LdpTest {
 		return options.contains(method.getName());
 	}
 
+	/**
+	 * @return the Accept-Patch header of the OPTIONS response, or null
+	 */
+	protected String getAcceptPatch() {
+		return acceptPatch;
+	}
+
 	protected void skipIfMethodNotAllowed(HttpMethod method) {
 		if (!supports(method)) {
 			throw new SkipMethodNotAllowedException(getResourceUri(), method);
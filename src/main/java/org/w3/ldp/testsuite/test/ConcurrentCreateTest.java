@@ -0,0 +1,229 @@
+package org.w3.ldp.testsuite.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.w3.ldp.testsuite.matcher.HttpStatusSuccessMatcher.isSuccessful;
+import static org.w3.ldp.testsuite.reporter.CsvReport.toMillis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpStatus;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+import org.w3.ldp.testsuite.annotations.Exclusive;
+import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.util.Histogram;
+import org.w3.ldp.testsuite.vocab.LDP;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+
+/**
+ * Checks that a container assigns unique URIs when many clients POST to it at
+ * once. At each concurrency level, that many clients send a burst of POSTs,
+ * either all with the same <code>Slug</code>, each with its own or without
+ * one.
+ * <p/>
+ * Every <code>Location</code> the server returns must be different, and every
+ * new resource must be listed with <code>ldp:contains</code> afterwards. The
+ * test reports creates per second at each level.
+ * <p/>
+ * Like {@link ConcurrentUpdateTest}, this only runs in the
+ * {@value LdpTest#CONTENTION} group.
+ */
+public class ConcurrentCreateTest extends BenchmarkTest<ConcurrentCreateTest.Level> {
+
+	public static final int DEFAULT_REQUESTS = 200;
+
+	/** Which Slug each POST is sent with */
+	public enum SlugMode {
+		/** The same Slug on every POST at a level */
+		SHARED,
+		/** A different Slug on every POST */
+		DISTINCT,
+		/** No Slug, so the server picks every name */
+		NONE
+	}
+
+	public static final SlugMode DEFAULT_SLUG_MODE = SlugMode.SHARED;
+
+	private static final String SLUG_PREFIX = "storm";
+
+	private final String container;
+	private final int[] levels;
+	private final int requests;
+	private final SlugMode slugMode;
+
+	@Parameters({"basicContainer", "directContainer", "indirectContainer", "contentionLevels", "stormRequests",
+			"stormSlug", "auth"})
+	public ConcurrentCreateTest(@Optional String basicContainer, @Optional String directContainer,
+			@Optional String indirectContainer, @Optional String contentionLevels, @Optional String stormRequests,
+			@Optional String stormSlug, @Optional String auth) {
+		super(auth, "ldp-testsuite-post-storm-report.csv");
+		container = getContainer(basicContainer, directContainer, indirectContainer, "POST storm tests");
+		levels = parseInts("contentionLevels", contentionLevels, ConcurrentUpdateTest.DEFAULT_LEVELS);
+		requests = parseInt("stormRequests", stormRequests, DEFAULT_REQUESTS);
+		slugMode = stormSlug != null ? SlugMode.valueOf(stormSlug.toUpperCase()) : DEFAULT_SLUG_MODE;
+	}
+
+	@Test(
+			groups = {CONTENTION},
+			description = "Concurrent clients POST to the same container, with the same Slug, "
+					+ "different Slugs or none. Every response must have a different Location "
+					+ "and every new resource must be listed with ldp:contains.")
+	@Exclusive
+	public void testConcurrentPostsAssignUniqueUris() throws IOException {
+		List<Level> measurements = new ArrayList<Level>();
+		try {
+			for (int level : levels) {
+				measurements.add(measure(level));
+			}
+		} finally {
+			report(measurements);
+		}
+
+		for (Level m : measurements) {
+			assertEquals(m.errors.get(), 0, m.errors + " POSTs with " + m.clients
+					+ " clients failed or had no Location" + m.describeFailure());
+			assertEquals(m.duplicates, 0, m.duplicates + " Locations were returned more than once with "
+					+ m.clients + " clients");
+			assertEquals(m.missing, 0, m.missing + " created resources are not in ldp:contains with "
+					+ m.clients + " clients");
+		}
+	}
+
+	private Level measure(final int clients) {
+		final Level m = new Level(clients);
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			List<Callable<Void>> posts = new ArrayList<Callable<Void>>(requests);
+			for (int i = 0; i < requests; i++) {
+				final String slug = getSlug(clients, i);
+				posts.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						post(slug, m);
+						return null;
+					}
+				});
+			}
+
+			m.seconds = invokeAll(executor, posts, m);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Set<String> unique = new HashSet<String>();
+		for (String location : m.locations) {
+			if (unique.add(location)) {
+				fixtures.deleteLater(location);
+			} else {
+				m.duplicates++;
+			}
+		}
+
+		// Every new resource must be in the container.
+		Model model = buildBaseRequestSpecification()
+					.header(ACCEPT, TEXT_TURTLE)
+					.header(PREFER, include(PREFER_CONTAINMENT))
+				.expect()
+					.statusCode(isSuccessful())
+				.when()
+					.get(container)
+					.as(Model.class, new RdfObjectMapper(container));
+		Resource c = model.getResource(container);
+		Property contains = model.createProperty(LDP.contains.stringValue());
+		for (String location : unique) {
+			if (!model.contains(c, contains, model.getResource(location))) {
+				m.missing++;
+			}
+		}
+
+		return m;
+	}
+
+	private String getSlug(int clients, int request) {
+		switch (slugMode) {
+			case SHARED:
+				return SLUG_PREFIX + "-" + clients;
+			case DISTINCT:
+				return SLUG_PREFIX + "-" + clients + "-" + request;
+			default:
+				return null;
+		}
+	}
+
+	private void post(String slug, Level m) {
+		RequestSpecification request = buildBaseRequestSpecification()
+				.contentType(TEXT_TURTLE)
+				.body(postContent(), new RdfObjectMapper());
+		if (slug != null) {
+			request.header(SLUG, slug);
+		}
+
+		long start = System.nanoTime();
+		Response response = request.post(container);
+		m.postLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+		String location = response.getHeader(LOCATION);
+		if (response.statusCode() == HttpStatus.SC_CREATED && location != null) {
+			m.locations.add(location);
+		} else {
+			m.errors.incrementAndGet();
+		}
+	}
+
+	@Override
+	protected void printSummary(List<Level> measurements) {
+		System.out.printf("%n%-8s %-9s %9s %9s %9s %10s %9s %11s %8s%n", "Clients", "Slug", "POSTs",
+				"Created", "Errors", "Created/s", "POST ms", "Duplicates", "Missing");
+		for (Level m : measurements) {
+			System.out.printf("%-8d %-9s %9d %9d %9d %10.1f %9.2f %11d %8d%n", m.clients,
+					slugMode.name().toLowerCase(), requests, m.locations.size(), m.errors.get(),
+					m.locations.size() / m.seconds, toMillis(m.postLatency.getValueAtPercentile(50)),
+					m.duplicates, m.missing);
+		}
+	}
+
+	@Override
+	protected String getCsvHeader() {
+		return "clients,slug,seconds,posts,created,errors,createdPerSecond,postP50Ms,postMaxMs,"
+				+ "duplicates,missing";
+	}
+
+	@Override
+	protected String toCsv(Level m) {
+		return m.clients + "," + slugMode.name().toLowerCase() + "," + m.seconds + "," + requests
+				+ "," + m.locations.size() + "," + m.errors.get() + "," + m.locations.size() / m.seconds
+				+ "," + toMillis(m.postLatency.getValueAtPercentile(50)) + ","
+				+ toMillis(m.postLatency.getMax()) + "," + m.duplicates + "," + m.missing;
+	}
+
+	/**
+	 * The measurements at one concurrency level.
+	 */
+	static class Level extends Measurement {
+		final int clients;
+		final Histogram postLatency = new Histogram();
+		final Queue<String> locations = new ConcurrentLinkedQueue<String>();
+		int duplicates;
+		int missing;
+
+		Level(int clients) {
+			this.clients = clients;
+		}
+	}
+}
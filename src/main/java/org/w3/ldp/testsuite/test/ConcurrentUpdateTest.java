@@ -0,0 +1,258 @@
+package org.w3.ldp.testsuite.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.w3.ldp.testsuite.matcher.HttpStatusSuccessMatcher.isSuccessful;
+import static org.w3.ldp.testsuite.reporter.CsvReport.toMillis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.testng.SkipException;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+import org.w3.ldp.testsuite.annotations.Exclusive;
+import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.util.Histogram;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.jayway.restassured.response.Response;
+
+/**
+ * Measures optimistic locking under contention. At each concurrency level, a
+ * number of writers repeatedly GET the same new resource, add a triple of their
+ * own and PUT it back with <code>If-Match</code>.
+ * <p/>
+ * The server must let exactly one PUT win per ETag and reject the others with
+ * 412, and the resource must end up with the triple of every PUT that won,
+ * since each winner started from the state the previous winner left. The test
+ * fails if any of that doesn't hold, and reports throughput and the rate of
+ * conflicts at each level.
+ * <p/>
+ * Like {@link ContainerScalabilityTest}, this only runs in the
+ * {@value LdpTest#CONTENTION} group.
+ */
+public class ConcurrentUpdateTest extends BenchmarkTest<ConcurrentUpdateTest.Level> {
+
+	public static final String DEFAULT_LEVELS = "1,2,4,8,16";
+	public static final int DEFAULT_CYCLES = 20;
+
+	/** The property of the triple each writer adds */
+	private static final String WRITE_PROPERTY = "http://example.com/ns#write";
+
+	private final String container;
+	private final int[] levels;
+	private final int cycles;
+
+	@Parameters({"basicContainer", "directContainer", "indirectContainer", "contentionLevels", "contentionCycles", "auth"})
+	public ConcurrentUpdateTest(@Optional String basicContainer, @Optional String directContainer,
+			@Optional String indirectContainer, @Optional String contentionLevels, @Optional String contentionCycles,
+			@Optional String auth) {
+		super(auth, "ldp-testsuite-contention-report.csv");
+		container = getContainer(basicContainer, directContainer, indirectContainer, "contention tests");
+		levels = parseInts("contentionLevels", contentionLevels, DEFAULT_LEVELS);
+		cycles = parseInt("contentionCycles", contentionCycles, DEFAULT_CYCLES);
+	}
+
+	@Test(
+			groups = {CONTENTION},
+			description = "Concurrent clients GET, modify and PUT the same resource with If-Match. "
+					+ "Exactly one PUT may succeed per ETag, the others must fail with 412 "
+					+ "Precondition Failed, and no successful update may be lost.")
+	@Exclusive
+	public void testConcurrentConditionalPuts() throws IOException {
+		List<Level> measurements = new ArrayList<Level>();
+		try {
+			for (int level : levels) {
+				measurements.add(measure(level));
+			}
+		} finally {
+			report(measurements);
+		}
+
+		for (Level m : measurements) {
+			assertEquals(m.errors.get(), 0, m.errors + " requests with " + m.writers
+					+ " writers failed with a status other than 412 or threw" + m.describeFailure());
+			assertEquals(m.getDuplicateWinners(), 0, "More than one PUT succeeded with the same ETag with "
+					+ m.writers + " writers");
+			assertEquals(m.lost, 0, m.lost + " of " + m.wins.size() + " successful updates were lost with "
+					+ m.writers + " writers");
+		}
+	}
+
+	private Level measure(final int writers) {
+		final String resource = create();
+		final Level m = new Level(writers);
+		ExecutorService executor = Executors.newFixedThreadPool(writers);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(writers);
+			for (int i = 0; i < writers; i++) {
+				final int writer = i;
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						for (int cycle = 0; cycle < cycles; cycle++) {
+							try {
+								update(resource, writers + "-" + writer + "-" + cycle, m);
+							} catch (RuntimeException e) {
+								// count it and go on with the next cycle, like a failed request
+								m.error(e);
+							}
+						}
+						return null;
+					}
+				});
+			}
+
+			m.seconds = invokeAll(executor, tasks, m);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Every successful write must still be there.
+		Model model = buildBaseRequestSpecification()
+					.header(ACCEPT, TEXT_TURTLE)
+				.expect()
+					.statusCode(isSuccessful())
+				.when()
+					.get(resource)
+					.as(Model.class, new RdfObjectMapper(resource));
+		Property write = model.createProperty(WRITE_PROPERTY);
+		for (String token : m.wins) {
+			if (!model.contains(model.getResource(resource), write, token)) {
+				m.lost++;
+			}
+		}
+
+		return m;
+	}
+
+	/**
+	 * Creates the resource the writers contend for.
+	 */
+	private String create() {
+		Response response = buildBaseRequestSpecification()
+				.contentType(TEXT_TURTLE)
+				.body(postContent(), new RdfObjectMapper())
+				.post(container);
+		String location = response.getHeader(LOCATION);
+		if (response.statusCode() != HttpStatus.SC_CREATED || location == null) {
+			throw new SkipException("Skipping test because the server didn't create a resource to update.");
+		}
+		fixtures.deleteLater(location);
+
+		return location;
+	}
+
+	/**
+	 * One read-modify-write cycle.
+	 */
+	private void update(String resource, String token, Level m) {
+		Response get = buildBaseRequestSpecification()
+				.header(ACCEPT, TEXT_TURTLE)
+				.get(resource);
+		String eTag = get.getHeader(ETAG);
+		if (!isSuccessful().matches(get.getStatusCode()) || eTag == null) {
+			m.errors.incrementAndGet();
+			return;
+		}
+
+		Model model = get.as(Model.class, new RdfObjectMapper(resource));
+		model.add(model.getResource(resource), model.createProperty(WRITE_PROPERTY), token);
+
+		long start = System.nanoTime();
+		Response put = buildBaseRequestSpecification()
+				.contentType(TEXT_TURTLE)
+				.header(IF_MATCH, eTag)
+				.body(model, new RdfObjectMapper(resource))
+				.put(resource);
+		m.putLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+		m.attempts.incrementAndGet();
+		if (isSuccessful().matches(put.getStatusCode())) {
+			m.wins.add(token);
+			AtomicInteger winners = m.winnersByETag.putIfAbsent(eTag, new AtomicInteger(1));
+			if (winners != null) {
+				winners.incrementAndGet();
+			}
+		} else if (put.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED) {
+			m.conflicts.incrementAndGet();
+		} else {
+			m.errors.incrementAndGet();
+		}
+	}
+
+	@Override
+	protected void printSummary(List<Level> measurements) {
+		System.out.printf("%n%-8s %9s %9s %9s %9s %10s %11s %9s %7s%n", "Writers", "PUTs", "Won",
+				"412s", "Errors", "Won/s", "Conflicts", "PUT ms", "Lost");
+		for (Level m : measurements) {
+			System.out.printf("%-8d %9d %9d %9d %9d %10.1f %10.1f%% %9.2f %7d%n", m.writers, m.attempts.get(),
+					m.wins.size(), m.conflicts.get(), m.errors.get(), m.wins.size() / m.seconds,
+					m.getConflictRate() * 100, toMillis(m.putLatency.getValueAtPercentile(50)), m.lost);
+		}
+	}
+
+	@Override
+	protected String getCsvHeader() {
+		return "writers,seconds,puts,won,conflicts,errors,wonPerSecond,conflictRate,"
+				+ "putP50Ms,putMaxMs,duplicateWinners,lost";
+	}
+
+	@Override
+	protected String toCsv(Level m) {
+		return m.writers + "," + m.seconds + "," + m.attempts.get() + "," + m.wins.size() + ","
+				+ m.conflicts.get() + "," + m.errors.get() + "," + m.wins.size() / m.seconds + ","
+				+ m.getConflictRate() + "," + toMillis(m.putLatency.getValueAtPercentile(50)) + ","
+				+ toMillis(m.putLatency.getMax()) + "," + m.getDuplicateWinners() + "," + m.lost;
+	}
+
+	/**
+	 * The measurements at one concurrency level.
+	 */
+	static class Level extends Measurement {
+		final int writers;
+		final Histogram putLatency = new Histogram();
+		final AtomicLong attempts = new AtomicLong();
+		final AtomicLong conflicts = new AtomicLong();
+		/** The triples of the PUTs that succeeded */
+		final Queue<String> wins = new ConcurrentLinkedQueue<String>();
+		/** How many PUTs succeeded with each If-Match value */
+		final ConcurrentMap<String, AtomicInteger> winnersByETag = new ConcurrentHashMap<String, AtomicInteger>();
+		int lost;
+
+		Level(int writers) {
+			this.writers = writers;
+		}
+
+		double getConflictRate() {
+			return attempts.get() == 0 ? 0 : (double) conflicts.get() / attempts.get();
+		}
+
+		/**
+		 * @return the number of ETags more than one PUT succeeded with
+		 */
+		int getDuplicateWinners() {
+			int duplicates = 0;
+			for (AtomicInteger winners : winnersByETag.values()) {
+				if (winners.get() > 1) {
+					duplicates++;
+				}
+			}
+			return duplicates;
+		}
+	}
+}
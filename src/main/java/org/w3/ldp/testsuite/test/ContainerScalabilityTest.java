@@ -0,0 +1,232 @@
+package org.w3.ldp.testsuite.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.w3.ldp.testsuite.reporter.CsvReport.toMillis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpStatus;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+import org.w3.ldp.testsuite.annotations.Exclusive;
+import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.util.Histogram;
+
+import com.jayway.restassured.response.Response;
+
+/**
+ * Measures how the cost of a container grows with its number of members. For
+ * each size, the test fills the container with that many members, then times
+ * GET with and without containment triples and finally DELETE of every member.
+ * <p/>
+ * This is a benchmark rather than a conformance test. It only runs in the
+ * {@value LdpTest#SCALE} group, and it fails only if the server rejects
+ * requests while the container is being filled or emptied.
+ */
+public class ContainerScalabilityTest extends BenchmarkTest<ContainerScalabilityTest.Size> {
+
+	public static final String DEFAULT_SIZES = "1000,10000,100000";
+	public static final int DEFAULT_THREADS = 10;
+
+	/** Number of times each GET is repeated at each size */
+	private static final int SAMPLES = 5;
+
+	private final String container;
+	private final int[] sizes;
+	private final int threads;
+
+	@Parameters({"basicContainer", "directContainer", "indirectContainer", "scaleSizes", "scaleThreads", "auth"})
+	public ContainerScalabilityTest(@Optional String basicContainer, @Optional String directContainer,
+			@Optional String indirectContainer, @Optional String scaleSizes, @Optional String scaleThreads,
+			@Optional String auth) {
+		super(auth, "ldp-testsuite-scalability-report.csv");
+		container = getContainer(basicContainer, directContainer, indirectContainer, "container scalability tests");
+		sizes = parseInts("scaleSizes", scaleSizes, DEFAULT_SIZES);
+		threads = parseInt("scaleThreads", scaleThreads, DEFAULT_THREADS);
+	}
+
+	@Test(
+			groups = {SCALE},
+			description = "Fills the container with an increasing number of members and "
+					+ "measures GET latency, response size, the savings from "
+					+ "Prefer: return=representation; include=\"" + PREFER_MINIMAL_CONTAINER + "\" "
+					+ "and the time to DELETE the members at each size.")
+	@Exclusive
+	public void testContainerScalability() throws IOException {
+		List<Size> measurements = new ArrayList<Size>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int size : sizes) {
+				measurements.add(measure(executor, size));
+			}
+		} finally {
+			executor.shutdownNow();
+			report(measurements);
+		}
+
+		for (Size m : measurements) {
+			assertEquals(m.errors.get(), 0, m.errors + " POST or DELETE requests failed with " + m.size + " members"
+					+ m.describeFailure());
+		}
+	}
+
+	private Size measure(ExecutorService executor, int size) {
+		Size m = new Size(size);
+		final Queue<String> members = new ConcurrentLinkedQueue<String>();
+		try {
+			m.createSeconds = fill(executor, size, members, m);
+
+			Response full = null;
+			for (int i = 0; i < SAMPLES; i++) {
+				full = timedGet(include(PREFER_CONTAINMENT), m.getLatency);
+			}
+			m.getBytes = full.asByteArray().length;
+
+			Response minimal = null;
+			for (int i = 0; i < SAMPLES; i++) {
+				minimal = timedGet(include(PREFER_MINIMAL_CONTAINER), m.minimalGetLatency);
+			}
+			m.minimalGetBytes = minimal.asByteArray().length;
+			m.minimalApplied = isPreferenceApplied(minimal);
+		} finally {
+			m.deleteSeconds = empty(executor, members, m);
+		}
+
+		return m;
+	}
+
+	private Response timedGet(String prefer, Histogram latency) {
+		long start = System.nanoTime();
+		Response response = buildBaseRequestSpecification()
+				.header(ACCEPT, TEXT_TURTLE)
+				.header(PREFER, prefer)
+				.get(container);
+		response.asByteArray();
+		latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+		return response;
+	}
+
+	/**
+	 * POSTs members concurrently.
+	 *
+	 * @return the elapsed time in seconds
+	 */
+	private double fill(ExecutorService executor, int size, final Queue<String> members, final Size m) {
+		List<Callable<Void>> posts = new ArrayList<Callable<Void>>(size);
+		for (int i = 0; i < size; i++) {
+			posts.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					Response response = buildBaseRequestSpecification()
+							.contentType(TEXT_TURTLE)
+							.body(postContent(), new RdfObjectMapper())
+							.post(container);
+					String location = response.getHeader(LOCATION);
+					if (response.statusCode() == HttpStatus.SC_CREATED && location != null) {
+						members.add(location);
+					} else {
+						m.errors.incrementAndGet();
+					}
+					return null;
+				}
+			});
+		}
+
+		return invokeAll(executor, posts, m);
+	}
+
+	/**
+	 * DELETEs members concurrently.
+	 *
+	 * @return the elapsed time in seconds
+	 */
+	private double empty(ExecutorService executor, Queue<String> members, final Size m) {
+		List<Callable<Void>> deletes = new ArrayList<Callable<Void>>(members.size());
+		for (final String location : members) {
+			deletes.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					int status = buildBaseRequestSpecification().delete(location).statusCode();
+					if (status < 200 || status >= 300) {
+						m.errors.incrementAndGet();
+					}
+					return null;
+				}
+			});
+		}
+
+		return invokeAll(executor, deletes, m);
+	}
+
+	@Override
+	protected void printSummary(List<Size> measurements) {
+		System.out.printf("%n%-9s %9s %11s %11s %11s %11s %8s %9s %9s%n", "Members", "POST/s",
+				"GET ms", "GET bytes", "Min GET ms", "Min bytes", "Saved", "Applied", "DELETE/s");
+		for (Size m : measurements) {
+			System.out.printf("%-9d %9.1f %11.2f %11d %11.2f %11d %7.1f%% %9s %9.1f%n", m.size,
+					m.size / m.createSeconds, toMillis(m.getLatency.getValueAtPercentile(50)), m.getBytes,
+					toMillis(m.minimalGetLatency.getValueAtPercentile(50)), m.minimalGetBytes,
+					m.getMinimalSavings() * 100, m.minimalApplied, m.size / m.deleteSeconds);
+		}
+
+		// Growth exponent between sizes: 1 means GET latency grows linearly with members.
+		for (int i = 1; i < measurements.size(); i++) {
+			Size previous = measurements.get(i - 1), current = measurements.get(i);
+			double sizeRatio = (double) current.size / previous.size;
+			double latencyRatio = (double) current.getLatency.getValueAtPercentile(50)
+					/ Math.max(1, previous.getLatency.getValueAtPercentile(50));
+			System.out.printf("GET latency %d -> %d members: x%.2f (growth exponent %.2f)%n",
+					previous.size, current.size, latencyRatio, Math.log(latencyRatio) / Math.log(sizeRatio));
+		}
+	}
+
+	@Override
+	protected String getCsvHeader() {
+		return "members,postSeconds,getP50Ms,getMaxMs,getBytes,minimalGetP50Ms,minimalGetBytes,"
+				+ "minimalSavings,minimalApplied,deleteSeconds,errors";
+	}
+
+	@Override
+	protected String toCsv(Size m) {
+		return m.size + "," + m.createSeconds + ","
+				+ toMillis(m.getLatency.getValueAtPercentile(50)) + "," + toMillis(m.getLatency.getMax()) + ","
+				+ m.getBytes + "," + toMillis(m.minimalGetLatency.getValueAtPercentile(50)) + ","
+				+ m.minimalGetBytes + "," + m.getMinimalSavings() + "," + m.minimalApplied + ","
+				+ m.deleteSeconds + "," + m.errors;
+	}
+
+	/**
+	 * The measurements at one container size.
+	 */
+	static class Size extends Measurement {
+		final int size;
+		final Histogram getLatency = new Histogram();
+		final Histogram minimalGetLatency = new Histogram();
+		double createSeconds;
+		double deleteSeconds;
+		long getBytes;
+		long minimalGetBytes;
+		boolean minimalApplied;
+
+		Size(int size) {
+			this.size = size;
+		}
+
+		/**
+		 * @return the fraction of bytes saved by asking for a minimal container
+		 */
+		double getMinimalSavings() {
+			return getBytes == 0 ? 0 : 1 - (double) minimalGetBytes / getBytes;
+		}
+	}
+}
@@ -14,8 +14,10 @@ import org.w3.ldp.testsuite.LdpTestSuite;
 import org.w3.ldp.testsuite.annotations.SpecTest;
 import org.w3.ldp.testsuite.annotations.SpecTest.METHOD;
 import org.w3.ldp.testsuite.annotations.SpecTest.STATUS;
+import org.w3.ldp.testsuite.consistency.ConsistencyMonitor;
 import org.w3.ldp.testsuite.http.HttpMethod;
 import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.mapper.TriplePattern;
 import org.w3.ldp.testsuite.matcher.HeaderMatchers;
 import org.w3.ldp.testsuite.vocab.LDP;
 
@@ -181,7 +183,12 @@ public class DirectContainerTest extends CommonContainerTest {
 			Resource hasMemberRelation = container.getPropertyResourceValue(containerModel.createProperty(LDP.hasMemberRelation.stringValue()));
 			assertNotNull(membershipResource);
 
-			if (hasMemberRelation != null) {
+			if (hasMemberRelation != null && membershipResource.isURIResource() && ConsistencyMonitor.isEnabled()) {
+				// Make sure the resource is a member of the container, once a clustered server has caught up.
+				TriplePattern membership = new TriplePattern(membershipResource.getURI(), hasMemberRelation.getURI(), location);
+				assertTrue(awaitTriple("membership after POST", directContainer, include(PREFER_MEMBERSHIP), membership, true),
+						"The LDPC server must have a corresponding membership triple when an LDPR is added (hasMemberRelation).");
+			} else if (hasMemberRelation != null) {
 				// Make sure the resource is a member of the container.
 				assertTrue(membershipResource.hasProperty(containerModel.createProperty(hasMemberRelation.getURI()), containerModel.createResource(location)));
 			}
@@ -237,49 +244,77 @@ public class DirectContainerTest extends CommonContainerTest {
 			assertNotNull(membershipResource, MSG_MBRRES_NOTFOUND);
 
 			// First verify the membership triples exist
-			if (hasMemberRelation != null) {
+			if (hasMemberRelation != null && membershipResource.isURIResource() && ConsistencyMonitor.isEnabled()) {
+				// Read again until a clustered server has caught up.
+				TriplePattern membership = new TriplePattern(membershipResource.getURI(), hasMemberRelation.getURI(), location);
+				assertTrue(awaitTriple("membership after POST", directContainer, include(PREFER_MEMBERSHIP), membership, true),
+						"The LDPC server must have a corresponding membership triple when an LDPR is added (hasMemberRelation).");
+			} else if (hasMemberRelation != null) {
 				assertTrue(membershipResource.hasProperty(containerModel.createProperty(hasMemberRelation.getURI()), containerModel.getResource(location)),
 						"The LDPC server must have a corresponding membership triple when an LDPR is added (hasMemberRelation).");
 			} else {
 				// Not if membership triple is not of form: (container, membership predicate, member), it may be the inverse.
 				isMemberOfRelation = container.getPropertyResourceValue(containerModel.createProperty(LDP.isMemberOfRelation.stringValue()));
-				// Check the container for the triple.
+				boolean await = membershipResource.isURIResource() && ConsistencyMonitor.isEnabled();
+				TriplePattern membership = membershipResource.isURIResource()
+						? new TriplePattern(location, isMemberOfRelation.getURI(), membershipResource.getURI()) : null;
+				// Check the container for the triple, reading again until a clustered server has caught up.
 				if (!containerModel.contains(containerModel.getResource(location), containerModel.createProperty(isMemberOfRelation.getURI()), membershipResource)) {
-					assertFalse(
-							isPreferenceApplied(getResponse),
-							"Server responded with Preference-Applied header for including membership triples, but membership triple is missing.");
+					if (await && isPreferenceApplied(getResponse)) {
+						assertTrue(awaitTriple("membership after POST", directContainer, include(PREFER_MEMBERSHIP), membership, true),
+								"Server responded with Preference-Applied header for including membership triples, but membership triple is missing.");
+					} else {
+						assertFalse(
+								isPreferenceApplied(getResponse),
+								"Server responded with Preference-Applied header for including membership triples, but membership triple is missing.");
+					}
 				}
 
 				// Check the resource has the triple as well.
-				Model memberResourceModel = getAsModel(location);
-				assertTrue(memberResourceModel.contains(memberResourceModel.getResource(location), memberResourceModel.createProperty(isMemberOfRelation.getURI()), membershipResource),
-						"The LDPC server must have a corresponding membership triple when an LDPR is added (isMemberOfRelation).");
+				if (await) {
+					assertTrue(awaitTriple("membership after POST", location, null, membership, true),
+							"The LDPC server must have a corresponding membership triple when an LDPR is added (isMemberOfRelation).");
+				} else {
+					Model memberResourceModel = getAsModel(location);
+					assertTrue(memberResourceModel.contains(memberResourceModel.getResource(location), memberResourceModel.createProperty(isMemberOfRelation.getURI()), membershipResource),
+							"The LDPC server must have a corresponding membership triple when an LDPR is added (isMemberOfRelation).");
+				}
 			}
 
 			// Delete the resource
 			deleted = true;
 			buildBaseRequestSpecification().expect().statusCode(isSuccessful()).when().delete(location);
 
-			// Get the updated membership resource
-			getResponse = buildBaseRequestSpecification()
-					.header(ACCEPT, TEXT_TURTLE)
-					.header(PREFER, include(PREFER_MEMBERSHIP)) // request all membership triple regardless of membership patterns
-				.expect()
-					.statusCode(isSuccessful())
-				.when()
-					.get(directContainer);
-			containerModel = getResponse.as(Model.class, new RdfObjectMapper(directContainer));
-			membershipResource = containerModel.getResource(membershipResource.getURI());
-
-			// Now verify the membership triples DON"T exist
-			if (hasMemberRelation != null) {
-				assertFalse(membershipResource.hasProperty(containerModel.createProperty(hasMemberRelation.getURI()), containerModel.getResource(location)),
+			// Now verify the membership triples DON'T exist, once a clustered server has caught up
+			if (hasMemberRelation != null && membershipResource.isURIResource()) {
+				TriplePattern membership = new TriplePattern(membershipResource.getURI(), hasMemberRelation.getURI(), location);
+				assertFalse(awaitTriple("membership after DELETE", directContainer, include(PREFER_MEMBERSHIP), membership, false),
 						"The LDPC server must remove the corresponding membership triple when an LDPR is deleted (hasMemberRelation).");
-			} else {
-				// Not if membership triple is not of form: (container, membership predicate, member), it may be the inverse.
-				isMemberOfRelation = container.getPropertyResourceValue(containerModel.createProperty(LDP.isMemberOfRelation.stringValue()));
-				assertFalse(containerModel.contains(containerModel.getResource(location), containerModel.createProperty(isMemberOfRelation.getURI()), membershipResource),
+			} else if (hasMemberRelation == null && membershipResource.isURIResource()) {
+				TriplePattern membership = new TriplePattern(location, isMemberOfRelation.getURI(), membershipResource.getURI());
+				assertFalse(awaitTriple("membership after DELETE", directContainer, include(PREFER_MEMBERSHIP), membership, false),
 						"The LDPC server must remove the corresponding membership triple when an LDPR is deleted (isMemberOfRelation).");
+			} else {
+				// Get the updated membership resource
+				getResponse = buildBaseRequestSpecification()
+						.header(ACCEPT, TEXT_TURTLE)
+						.header(PREFER, include(PREFER_MEMBERSHIP)) // request all membership triple regardless of membership patterns
+					.expect()
+						.statusCode(isSuccessful())
+					.when()
+						.get(directContainer);
+				containerModel = getResponse.as(Model.class, new RdfObjectMapper(directContainer));
+				membershipResource = containerModel.getResource(membershipResource.getURI());
+
+				if (hasMemberRelation != null) {
+					assertFalse(membershipResource.hasProperty(containerModel.createProperty(hasMemberRelation.getURI()), containerModel.getResource(location)),
+							"The LDPC server must remove the corresponding membership triple when an LDPR is deleted (hasMemberRelation).");
+				} else {
+					// Not if membership triple is not of form: (container, membership predicate, member), it may be the inverse.
+					isMemberOfRelation = container.getPropertyResourceValue(containerModel.createProperty(LDP.isMemberOfRelation.stringValue()));
+					assertFalse(containerModel.contains(containerModel.getResource(location), containerModel.createProperty(isMemberOfRelation.getURI()), membershipResource),
+							"The LDPC server must remove the corresponding membership triple when an LDPR is deleted (isMemberOfRelation).");
+				}
 			}
 		} finally {
 			// If an assertion failed before we could delete the resource, clean up now.
@@ -0,0 +1,270 @@
+package org.w3.ldp.testsuite.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.w3.ldp.testsuite.http.HttpClientPool;
+import org.w3.ldp.testsuite.load.LoadGenerator;
+
+/**
+ * Creates and deletes the resources tests need as fixtures, off the test's
+ * critical path.
+ * <ul>
+ * <li>{@link #setCreator(Callable)} tells the manager how to create a fixture
+ * and {@link #take()} hands one to a test. When more than one thread may
+ * take a fixture (see {@link #setConcurrency(int)}), it also starts the next
+ * one in the background so it's ready for the next thread that asks.</li>
+ * <li>{@link #deleteLater(String)} queues a resource for deletion. Full
+ * batches are deleted in the background while tests run, and
+ * {@link #drain()} deletes the rest along with the prepared fixtures after the
+ * class.</li>
+ * </ul>
+ * Background requests hold the same shared lock as tests, so they never
+ * overlap an {@link org.w3.ldp.testsuite.annotations.Exclusive Exclusive} test,
+ * and release the connections of bodies they leave unread before giving it
+ * back, since the pool threads stay alive between tasks.
+ * In load mode resources are deleted right away instead, so that replayed
+ * tests make the same requests they did before and don't pile up resources.
+ */
+public class FixtureManager {
+
+	/** Number of resources deleted by one background task */
+	private static final int BATCH_SIZE = 20;
+
+	private static final int THREADS = 4;
+
+	private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "ldp-testsuite-fixtures-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private static int concurrency = 1;
+
+	private final LdpTest test;
+
+	private Callable<String> creator;
+	private int taken = 0;
+	private final Queue<Future<String>> prepared = new ConcurrentLinkedQueue<Future<String>>();
+	private final Queue<Future<String>> created = new ConcurrentLinkedQueue<Future<String>>();
+
+	private final Queue<String> toDelete = new ConcurrentLinkedQueue<String>();
+	private final AtomicInteger toDeleteCount = new AtomicInteger();
+	private final Queue<Future<?>> deleting = new ConcurrentLinkedQueue<Future<?>>();
+
+	FixtureManager(LdpTest test) {
+		this.test = test;
+	}
+
+	/**
+	 * Tests take one fixture per thread, so a fixture prepared ahead is only
+	 * used if another thread runs tests of the same class.
+	 *
+	 * @param threads the most threads that may run the tests of one class,
+	 *                for instance the thread count when test methods run in
+	 *                parallel. With one, the default, fixtures are only
+	 *                created when they are taken.
+	 */
+	public static void setConcurrency(int threads) {
+		concurrency = threads;
+	}
+
+	/**
+	 * Sets how fixtures are created. Nothing is created until the first
+	 * {@link #take()}, which can come from a superclass's
+	 * <code>@BeforeClass</code> method before the subclass's run, so subclasses
+	 * call this from their constructor.
+	 *
+	 * @param creator creates a fixture and returns its URI
+	 */
+	public synchronized void setCreator(Callable<String> creator) {
+		this.creator = creator;
+	}
+
+	/**
+	 * Returns a fixture created in the background and, if more threads may
+	 * ask, starts creating another one. If none is ready yet, creates one on
+	 * the calling thread instead of waiting, since the background task may be
+	 * blocked behind an exclusive test that is itself waiting for the caller.
+	 * Fixtures are deleted by {@link #drain()}.
+	 *
+	 * @return the URI of the fixture
+	 * @throws IllegalStateException if {@link #setCreator(Callable)} was not called
+	 */
+	public String take() {
+		Callable<String> creator;
+		synchronized (this) {
+			if (this.creator == null) {
+				throw new IllegalStateException("No fixture creator set");
+			}
+			taken++;
+			Future<String> next = prepared.peek();
+			if (next != null && next.isDone()) {
+				prepared.remove(next);
+				prepareNext();
+				return get(next);
+			}
+			if (next == null) {
+				prepareNext();
+			}
+			creator = this.creator;
+		}
+
+		FutureTask<String> inline = new FutureTask<String>(creator);
+		created.add(inline);
+		inline.run();
+
+		return get(inline);
+	}
+
+	/**
+	 * Queues a resource for deletion. Does nothing if the location is null,
+	 * which happens when the request creating it failed.
+	 *
+	 * @param location the URI of the resource
+	 */
+	public void deleteLater(String location) {
+		if (location == null) {
+			return;
+		}
+
+		if (LoadGenerator.isEnabled()) {
+			test.buildBaseRequestSpecification().delete(location);
+			return;
+		}
+
+		toDelete.add(location);
+		if (toDeleteCount.incrementAndGet() >= BATCH_SIZE) {
+			submitBatches(false);
+		}
+	}
+
+	/**
+	 * Deletes the prepared fixtures and everything queued for deletion, and
+	 * waits until the deletes finish.
+	 */
+	public void drain() {
+		Future<String> fixture;
+		while ((fixture = created.poll()) != null) {
+			try {
+				deleteLater(fixture.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				// creating it failed, so there's nothing to delete
+			}
+		}
+		prepared.clear();
+
+		submitBatches(true);
+		Future<?> batch;
+		while ((batch = deleting.poll()) != null) {
+			try {
+				batch.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				// leave the resource behind rather than fail the class
+			}
+		}
+	}
+
+	/**
+	 * Starts creating a fixture for the next thread, unless every thread that
+	 * may ask already has one.
+	 */
+	private void prepareNext() {
+		if (taken >= concurrency) {
+			return;
+		}
+
+		final Callable<String> creator = this.creator;
+		Future<String> future = executor.submit(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				Lock lock = LdpTest.getSharedLock();
+				lock.lock();
+				try {
+					return creator.call();
+				} finally {
+					HttpClientPool.releaseUnread();
+					lock.unlock();
+				}
+			}
+		});
+		prepared.add(future);
+		created.add(future);
+	}
+
+	/**
+	 * @param partial also submit a batch smaller than {@link #BATCH_SIZE}
+	 */
+	private void submitBatches(boolean partial) {
+		while (true) {
+			final List<String> batch = new ArrayList<String>(BATCH_SIZE);
+			synchronized (toDelete) {
+				if (toDeleteCount.get() < (partial ? 1 : BATCH_SIZE)) {
+					return;
+				}
+				String location;
+				while (batch.size() < BATCH_SIZE && (location = toDelete.poll()) != null) {
+					batch.add(location);
+				}
+				toDeleteCount.addAndGet(-batch.size());
+			}
+
+			deleting.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					Lock lock = LdpTest.getSharedLock();
+					lock.lock();
+					try {
+						for (String location : batch) {
+							test.buildBaseRequestSpecification().delete(location);
+						}
+					} finally {
+						HttpClientPool.releaseUnread();
+						lock.unlock();
+					}
+				}
+			}));
+		}
+	}
+
+	private static String get(Future<String> fixture) {
+		try {
+			return fixture.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a fixture", e);
+		} catch (ExecutionException e) {
+			// Fail the test the same way creating the fixture inline would have.
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Unable to create a fixture", cause);
+		}
+	}
+}
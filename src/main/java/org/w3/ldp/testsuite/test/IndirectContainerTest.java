@@ -1,5 +1,7 @@
 package org.w3.ldp.testsuite.test;
 
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.Resource;
 import com.jayway.restassured.response.Response;
 import org.apache.http.HttpStatus;
 import org.testng.SkipException;
@@ -11,10 +13,14 @@ import org.w3.ldp.testsuite.LdpTestSuite;
 import org.w3.ldp.testsuite.annotations.SpecTest;
 import org.w3.ldp.testsuite.annotations.SpecTest.METHOD;
 import org.w3.ldp.testsuite.annotations.SpecTest.STATUS;
+import org.w3.ldp.testsuite.http.HttpMethod;
+import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.mapper.TriplePattern;
 import org.w3.ldp.testsuite.vocab.LDP;
 
 import java.io.IOException;
 
+import static org.hamcrest.Matchers.notNullValue;
 import static org.testng.Assert.assertTrue;
 
 public class IndirectContainerTest extends CommonContainerTest {
@@ -93,7 +99,6 @@ public class IndirectContainerTest extends CommonContainerTest {
 
 	@Test(
 			groups = {MUST},
-			enabled = false,
 			description = "LDPCs whose ldp:insertedContentRelation triple has an "
 					+ "object other than ldp:MemberSubject and that create new "
 					+ "resources MUST add a triple to the container whose subject is "
@@ -104,10 +109,36 @@ public class IndirectContainerTest extends CommonContainerTest {
 					+ "newly created resource in certain cases.")
 	@SpecTest(
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldpic-post-indirectmbrrel",
-			testMethod = METHOD.NOT_IMPLEMENTED,
+			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_PENDING)
 	public void testPostResource() {
-		// TODO: Impl testPostResource
+		skipIfMethodNotAllowed(HttpMethod.POST);
+
+		Model containerModel = getAsModel(indirectContainer);
+		Resource container = containerModel.getResource(indirectContainer);
+		Resource insertedContentRelation = container.getPropertyResourceValue(containerModel.createProperty(LDP.insertedContentRelation.stringValue()));
+		if (insertedContentRelation == null || !insertedContentRelation.isURIResource()
+				|| LDP.MemberSubject.stringValue().equals(insertedContentRelation.getURI())) {
+			throw new SkipException("This test only applies to containers whose ldp:insertedContentRelation is not ldp:MemberSubject.");
+		}
+
+		// Give the new resource a member-derived URI, since the server may require one.
+		Model model = postContent();
+		model.getResource("").addProperty(model.createProperty(insertedContentRelation.getURI()), model.createResource("#it"));
+		Response postResponse = buildBaseRequestSpecification().contentType(TEXT_TURTLE).body(model, new RdfObjectMapper())
+				.expect().statusCode(HttpStatus.SC_CREATED).header(LOCATION, notNullValue())
+				.when().post(indirectContainer);
+
+		String location = postResponse.getHeader(LOCATION);
+		try {
+			// Read again until a clustered server has caught up.
+			TriplePattern containment = new TriplePattern(indirectContainer, LDP.contains.stringValue(), location);
+			assertTrue(awaitTriple("containment after POST", indirectContainer, include(PREFER_CONTAINMENT), containment, true),
+					"The LDPC server must add an ldp:contains triple for the newly created resource <" + location + ">.");
+		} finally {
+			// Delete the resource to clean up.
+			buildBaseRequestSpecification().delete(location);
+		}
 	}
 
 	@Override
@@ -1,39 +1,105 @@
 package org.w3.ldp.testsuite.test;
 
+import static org.testng.Assert.assertNotNull;
 import static org.w3.ldp.testsuite.matcher.HttpStatusSuccessMatcher.isSuccessful;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.ws.rs.core.Link;
 
 import org.apache.commons.lang3.StringUtils;
-import org.jboss.resteasy.plugins.delegates.LinkDelegate;
+import org.apache.http.HttpStatus;
+import org.testng.IConfigurable;
+import org.testng.IConfigureCallBack;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ITestResult;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
+import org.w3.ldp.testsuite.annotations.Exclusive;
+import org.w3.ldp.testsuite.consistency.ConsistencyMonitor;
+import org.w3.ldp.testsuite.http.Authenticator;
+import org.w3.ldp.testsuite.http.BasicCredentials;
+import org.w3.ldp.testsuite.http.CredentialProvider;
+import org.w3.ldp.testsuite.http.HttpClientPool;
 import org.w3.ldp.testsuite.http.HttpHeaders;
 import org.w3.ldp.testsuite.http.LdpPreferences;
+import org.w3.ldp.testsuite.http.LinkHeaders;
 import org.w3.ldp.testsuite.http.MediaTypes;
+import org.w3.ldp.testsuite.http.RepresentationCache;
+import org.w3.ldp.testsuite.http.RequestTimer;
+import org.w3.ldp.testsuite.load.LoadGenerator;
 import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.mapper.RdfStreamMatcher;
+import org.w3.ldp.testsuite.mapper.TripleMatches;
+import org.w3.ldp.testsuite.mapper.TriplePattern;
+import org.w3.ldp.testsuite.replay.ExchangeRecorder;
 
 import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.Resource;
 import com.hp.hpl.jena.util.ResourceUtils;
 import com.hp.hpl.jena.vocabulary.DC_11;
+import com.jayway.restassured.RestAssured;
 import com.jayway.restassured.response.Header;
 import com.jayway.restassured.response.Response;
 import com.jayway.restassured.specification.RequestSpecification;
 
-public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences {
+public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences, IHookable, IConfigurable {
 
 	/**
 	 * Alternate content to use on POST requests
 	 */
 	private static Model postModel;
-	
+
+	/**
+	 * Serializes {@link Exclusive} tests against all other tests when the
+	 * suite runs in parallel. Fair, so a waiting exclusive test is not starved
+	 * by a steady stream of shared ones.
+	 */
+	private static final ReadWriteLock exclusiveLock = new ReentrantReadWriteLock(true);
+
+	private static final RequestTimer requestTimer = new RequestTimer();
+	private static final RepresentationCache representationCache = new RepresentationCache();
+	private static final ExchangeRecorder exchangeRecorder = new ExchangeRecorder();
+
+	/** Sends credentials with every request, or null if there are none */
+	private final Authenticator authenticator;
+
+	/**
+	 * Creates fixtures ahead of the tests that need them and deletes
+	 * resources tests created without holding them up.
+	 */
+	protected final FixtureManager fixtures = new FixtureManager(this);
+
+	/**
+	 * @param auth basic authentication credentials as username:password, or
+	 *             null to use the {@link Authenticator#getDefaultProvider()
+	 *             default credentials}
+	 */
+	protected LdpTest(String auth) {
+		CredentialProvider credentials = BasicCredentials.parse(auth);
+		if (credentials == null) {
+			credentials = Authenticator.getDefaultProvider();
+		}
+		this.authenticator = credentials != null ? new Authenticator(credentials) : null;
+	}
+
 	/**
 	 * Builds a model from a turtle representation in a file
 	 * @param path
@@ -78,6 +144,14 @@ public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences
 		postModel = this.readModel(postTtl);
 	}
 
+	/**
+	 * Deletes the fixtures and other resources this class created.
+	 */
+	@AfterClass(alwaysRun = true)
+	public void deleteFixtures() {
+		fixtures.drain();
+	}
+
 	/**
 	 * An absolute requirement of the specification.
 	 *
@@ -112,12 +186,80 @@ public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences
 	 */
 	public static final String NR = "NON-RDF";
 
+	/*
+	 * Groups of tests that measure the server rather than check it against the
+	 * specification. They aren't part of the conformance tests, so they only
+	 * run when asked for.
+	 */
+
+	/** GET latency, response size and DELETE time as a container grows ({@link ContainerScalabilityTest}) */
+	public static final String SCALE = "SCALE";
+
+	/** Conflicts and lost updates among concurrent writers ({@link ConcurrentUpdateTest}, {@link ConcurrentCreateTest}) */
+	public static final String CONTENTION = "CONTENTION";
+
+	/** How long writes take to replicate across the nodes of a cluster ({@link ClusterConsistencyTest}) */
+	public static final String CLUSTER = "CLUSTER";
+
+	/** Completeness and latency of walking the pages of a large container ({@link PagingTest}) */
+	public static final String PAGING = "PAGING";
+
+	/** Bytes and latency of PATCH against PUT as a resource grows ({@link PatchBenchmarkTest}) */
+	public static final String PATCH_BENCHMARK = "PATCH-BENCHMARK";
+
+	/**
+	 * The groups of tests that are benchmarks in their own right. They are
+	 * never replayed in load mode, since each run already sends thousands of
+	 * requests.
+	 */
+	public static final List<String> BENCHMARKS = Collections.unmodifiableList(Arrays.asList(SCALE, CONTENTION,
+			CLUSTER, PAGING, PATCH_BENCHMARK));
+
 	private static boolean warnings = false;
 
 	public static boolean getWarnings() {
 		return warnings;
 	}
 
+	private static String runId = UUID.randomUUID().toString();
+	private static final ConcurrentMap<String, AtomicInteger> nameCounts = new ConcurrentHashMap<String, AtomicInteger>();
+
+	/**
+	 * @return what {@link #uniqueName(String)} derives names from, random
+	 *         unless set
+	 */
+	public static String getRunId() {
+		return runId;
+	}
+
+	/**
+	 * Sets what {@link #uniqueName(String)} derives names from. A recording
+	 * saves the ID it was made with, so that replaying it requests the same
+	 * URIs.
+	 */
+	public static void setRunId(String id) {
+		runId = id;
+	}
+
+	/**
+	 * Names a resource a test creates at a URI of its choosing. Names differ
+	 * between runs, since servers may refuse to reuse a URI, but are the same
+	 * in every run with the same {@link #getRunId() run ID}.
+	 *
+	 * @param what what the name is for, unique within the test class
+	 * @return a name no other call in this run returns
+	 */
+	protected String uniqueName(String what) {
+		String prefix = getClass().getSimpleName() + "-" + what;
+		AtomicInteger count = nameCounts.get(prefix);
+		if (count == null) {
+			nameCounts.putIfAbsent(prefix, new AtomicInteger());
+			count = nameCounts.get(prefix);
+		}
+
+		return prefix + "-" + runId + "-" + count.getAndIncrement();
+	}
+
 	/**
 	 * Tests if a Link response header with the expected URI and relation
 	 * is present in an HTTP response.
@@ -128,7 +270,7 @@ public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences
 	 * @see <a href="http://tools.ietf.org/html/rfc5988">RFC 5988</a>
 	 */
 	protected boolean containsLinkHeader(String uri, String linkRelation, Response response) {
-		return containsLinkHeader(uri, linkRelation, response.getHeaders().getList(LINK));
+		return LinkHeaders.of(response).contains(uri, linkRelation);
 	}
 
 	/**
@@ -136,13 +278,25 @@ public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences
 	 *
 	 * @return RestAssured Request Specification
 	 */
-	protected abstract RequestSpecification buildBaseRequestSpecification();
+	protected RequestSpecification buildBaseRequestSpecification() {
+		RequestSpecification spec = RestAssured.given().config(HttpClientPool.getConfig());
+		if (authenticator != null) {
+			// First, so fetching a token isn't timed as part of the request.
+			spec.filter(authenticator);
+		}
+
+		return spec.filter(requestTimer).filter(representationCache).filter(exchangeRecorder);
+	}
 
 	public Model getAsModel(String uri) {
 		return getResourceAsModel(uri, TEXT_TURTLE);
 	}
 
 	public Model getResourceAsModel(String uri, String mediaType) {
+		if (RepresentationCache.isEnabled()) {
+			return getCachedResourceAsModel(uri, mediaType);
+		}
+
 		return buildBaseRequestSpecification()
 				.header(ACCEPT, mediaType)
 			.expect()
@@ -151,6 +305,88 @@ public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences
 				.get(uri).as(Model.class, new RdfObjectMapper(uri));
 	}
 
+	/**
+	 * Revalidates the cached representation with If-None-Match, reusing the
+	 * parsed model if the server responds 304 Not Modified.
+	 *
+	 * @see RepresentationCache
+	 */
+	private Model getCachedResourceAsModel(String uri, String mediaType) {
+		RequestSpecification request = buildBaseRequestSpecification().header(ACCEPT, mediaType);
+		String etag = RepresentationCache.getETag(uri, mediaType);
+		if (etag != null) {
+			request.header(IF_NONE_MATCH, etag);
+		}
+
+		Response response = request.get(uri);
+		if (response.statusCode() == HttpStatus.SC_NOT_MODIFIED) {
+			Model cached = RepresentationCache.get(uri, mediaType, etag);
+			if (cached != null) {
+				return cached;
+			}
+
+			// Invalidated since the request was sent. Ask again without a condition.
+			response = buildBaseRequestSpecification().header(ACCEPT, mediaType).get(uri);
+		}
+
+		response.then().statusCode(isSuccessful());
+		Model model = response.as(Model.class, new RdfObjectMapper(uri));
+		RepresentationCache.put(uri, mediaType, response.getHeader(ETAG), model);
+
+		return model;
+	}
+
+	/**
+	 * Looks for triples in the Turtle representation of a resource without
+	 * building a model, stopping as soon as all patterns are found.
+	 *
+	 * @see RdfStreamMatcher
+	 */
+	public TripleMatches getMatchingTriples(String uri, TriplePattern... patterns) {
+		Response response = buildBaseRequestSpecification()
+				.header(ACCEPT, TEXT_TURTLE)
+			.expect()
+				.statusCode(isSuccessful())
+			.when()
+				.get(uri);
+
+		return new RdfStreamMatcher(uri, patterns).match(response);
+	}
+
+	/**
+	 * Checks if a triple is in the representation of a resource after a write
+	 * that should add or remove it. With {@code --consistency}, reads again
+	 * with backoff until it is as expected or the timeout runs out, and
+	 * records how long that took.
+	 *
+	 * @param check   the kind of check, to report convergence times under
+	 * @param uri     the resource to read
+	 * @param prefer  a Prefer header to send, or null
+	 * @param pattern the triple
+	 * @param present true if the write should have added the triple, false if
+	 *                it should have removed it
+	 * @return true if the triple is in the last representation read
+	 * @see ConsistencyMonitor
+	 */
+	protected boolean awaitTriple(String check, final String uri, final String prefer,
+			final TriplePattern pattern, boolean present) {
+		return ConsistencyMonitor.await(check, new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				RequestSpecification request = buildBaseRequestSpecification().header(ACCEPT, TEXT_TURTLE);
+				if (prefer != null) {
+					request.header(PREFER, prefer);
+				}
+				Response response = request
+					.expect()
+						.statusCode(isSuccessful())
+					.when()
+						.get(uri);
+				return new RdfStreamMatcher(uri, pattern).match(response).contains(pattern);
+			}
+		}, present);
+	}
+
 	protected Model getDefaultModel() {
 		Model model = ModelFactory.createDefaultModel();
 		Resource resource = model.createResource("",
@@ -163,8 +399,113 @@ public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences
 		return model;
 	}
 
+	/**
+	 * Creates a resource in a container, expecting 201 Created and a Location.
+	 *
+	 * @param container the container to POST to
+	 * @param content   the Turtle content
+	 * @param slug      the Slug header for the request or null if no slug
+	 * @return the location of the created resource
+	 */
+	protected String post(String container, Model content, String slug) {
+		RequestSpecification spec = buildBaseRequestSpecification().contentType(TEXT_TURTLE);
+		if (slug != null) {
+			spec.header(SLUG, slug);
+		}
+		Response post = spec.body(content, new RdfObjectMapper()).expect()
+				.statusCode(HttpStatus.SC_CREATED).when()
+				.post(container);
+		String location = post.getHeader(LOCATION);
+		assertNotNull(location, CommonContainerTest.MSG_LOC_NOTFOUND);
+
+		return location;
+	}
+
+	/**
+	 * Content to use on POST requests. Returns a new model on every call since
+	 * tests are free to modify it and may run concurrently.
+	 */
 	protected Model postContent() {
-		return postModel != null? postModel : getDefaultModel();
+		return postModel != null? ModelFactory.createDefaultModel().add(postModel) : getDefaultModel();
+	}
+
+	/**
+	 * Runs each test method under the shared lock, or under the exclusive lock
+	 * if it is annotated with {@link Exclusive}. Uncontended when the suite is
+	 * not running in parallel.
+	 * <p/>
+	 * HTTP requests made by the test are timed by the {@link RequestTimer}.
+	 * Response bodies the thread left unread are released before it waits
+	 * for the lock and again when the test ends, so their connections don't
+	 * stay leased while other tests wait for them.
+	 * <p/>
+	 * In load mode, a test that passes is then replayed by the
+	 * {@link LoadGenerator}, unless it's one of the {@link #BENCHMARKS}. Load
+	 * runs are always exclusive so that the numbers for one requirement
+	 * aren't skewed by other tests.
+	 */
+	@Override
+	public void run(IHookCallBack callBack, ITestResult testResult) {
+		Method method = testResult.getMethod().getConstructorOrMethod().getMethod();
+		Lock lock = method.isAnnotationPresent(Exclusive.class) || LoadGenerator.isEnabled()
+				? exclusiveLock.writeLock() : exclusiveLock.readLock();
+		HttpClientPool.releaseUnread();
+		lock.lock();
+		try {
+			RequestTimer.setCurrentTest(getClass().getSimpleName() + "." + testResult.getName());
+			try {
+				callBack.runTestMethod(testResult);
+			} finally {
+				RequestTimer.clearCurrentTest();
+			}
+			if (LoadGenerator.isEnabled() && testResult.getThrowable() == null && !isBenchmark(testResult)) {
+				LoadGenerator.run(getLoadTestName(testResult), method, testResult.getInstance(), callBack.getParameters());
+			}
+		} finally {
+			HttpClientPool.releaseUnread();
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases the response bodies a configuration method, such as one that
+	 * creates or deletes fixtures, left unread.
+	 */
+	@Override
+	public void run(IConfigureCallBack callBack, ITestResult testResult) {
+		try {
+			callBack.runConfigurationMethod(testResult);
+		} finally {
+			HttpClientPool.releaseUnread();
+		}
+	}
+
+	/**
+	 * @return the lock tests hold while they run, for work done on their
+	 *         behalf on other threads
+	 */
+	static Lock getSharedLock() {
+		return exclusiveLock.readLock();
+	}
+
+	private static boolean isBenchmark(ITestResult testResult) {
+		for (String group : testResult.getMethod().getGroups()) {
+			if (BENCHMARKS.contains(group)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private String getLoadTestName(ITestResult testResult) {
+		String name = getClass().getSimpleName() + "." + testResult.getName();
+		Object[] parameters = testResult.getParameters();
+		if (parameters != null && parameters.length > 0) {
+			name += Arrays.toString(parameters);
+		}
+
+		return name;
 	}
 
 	/**
@@ -190,18 +531,20 @@ public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences
 	 *
 	 * @param link	  header to look for
 	 * @param headers list of headers
-	 * @return link is contained
+	 * @return link is contained, which a link without a rel never is
 	 */
 	protected boolean containsLinkHeader(Link link, List<Header> headers) {
-		for (Header header : headers) {
-			for (String s : header.getValue().split(",")) {
-				Link l = new LinkDelegate().fromString(s);
-				if (link.equals(l)) {
-					return true;
-				}
+		if (link.getRels().isEmpty()) {
+			return false;
+		}
+
+		LinkHeaders links = LinkHeaders.parse(headers);
+		for (String rel : link.getRels()) {
+			if (!links.contains(link.getUri().toString(), rel)) {
+				return false;
 			}
 		}
-		return false;
+		return true;
 	}
 
 	/**
@@ -214,19 +557,27 @@ public abstract class LdpTest implements HttpHeaders, MediaTypes, LdpPreferences
 	 * @return link is contained
 	 */
 	protected boolean containsLinkHeader(String uri, String rel, List<Header> headers) {
-		return containsLinkHeader(Link.fromUri(uri).rel(rel).build(), headers);
+		return LinkHeaders.parse(headers).contains(uri, rel);
+	}
+
+	/**
+	 * Check if the link is in the parsed Link headers
+	 *
+	 * @param uri	  link uri
+	 * @param rel	  link rel
+	 * @param links   Link headers, from {@link LinkHeaders#of(Response)}
+	 * @return link is contained
+	 */
+	protected boolean containsLinkHeader(String uri, String rel, LinkHeaders links) {
+		return links.contains(uri, rel);
 	}
 
 	protected String getFirstLinkForRelation(String rel, List<Header> headers) {
-		for (Header header : headers) {
-			for (String s : header.getValue().split(",")) {
-				Link l = new LinkDelegate().fromString(s);
-				if (rel.equals(l.getRel())) {
-					return l.getUri().toString();
-				}
-			}
-		}
-		return null;
+		return LinkHeaders.parse(headers).getFirst(rel);
+	}
+
+	protected String getFirstLinkForRelation(String rel, LinkHeaders links) {
+		return links.getFirst(rel);
 	}
 
 	/**
@@ -4,7 +4,6 @@ import static org.hamcrest.Matchers.notNullValue;
 
 import org.apache.http.HttpStatus;
 import org.testng.SkipException;
-import org.testng.annotations.AfterSuite;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
@@ -13,6 +12,7 @@ import com.hp.hpl.jena.rdf.model.Model;
 import com.jayway.restassured.response.Response;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 
 /**
  * Tests that run on an LDP-RS that is not a container.
@@ -21,6 +21,18 @@ public class MemberResourceTest extends RdfSourceTest {
 
 	private String container;
 	private String memberResource;
+	private Model memberModel;
+
+	/**
+	 * Resources created by this class, one per thread running its tests, so
+	 * that parallel tests never update the same resource.
+	 */
+	private final ThreadLocal<String> threadResource = new ThreadLocal<String>() {
+		@Override
+		protected String initialValue() {
+			return fixtures.take();
+		}
+	};
 
 	@Parameters({"memberResource", "directContainer", "indirectContainer", "basicContainer", "memberTtl", "auth"})
 	public MemberResourceTest(@Optional String memberResource, @Optional String directContainer,
@@ -41,31 +53,37 @@ public class MemberResourceTest extends RdfSourceTest {
 		}
 
 		if (this.memberResource == null) {
-			Model model = this.readModel(memberTtl);
-			if (model == null) {
-				model = this.getDefaultModel();
+			memberModel = this.readModel(memberTtl);
+			if (memberModel == null) {
+				memberModel = this.getDefaultModel();
 			}
 
-			Response postResponse = buildBaseRequestSpecification()
-					.contentType(TEXT_TURTLE).body(model, new RdfObjectMapper())
-							.expect().statusCode(HttpStatus.SC_CREATED).header(LOCATION, notNullValue())
-							.when().post(this.container);
-
-			this.memberResource = postResponse.getHeader(LOCATION);
+			// If container isn't null, we create the resources ourselves.
+			fixtures.setCreator(new Callable<String>() {
+				@Override
+				public String call() {
+					return createMemberResource();
+				}
+			});
 		}
 	}
 
-	@Override
-	protected String getResourceUri() {
-		return memberResource;
+	private String createMemberResource() {
+		Response postResponse = buildBaseRequestSpecification()
+				.contentType(TEXT_TURTLE).body(memberModel, new RdfObjectMapper())
+						.expect().statusCode(HttpStatus.SC_CREATED).header(LOCATION, notNullValue())
+						.when().post(this.container);
+
+		return postResponse.getHeader(LOCATION);
 	}
 
-	@AfterSuite(alwaysRun = true)
-	public void deleteTestResource() {
-		// If container isn't null, we created the resource ourselves. To clean up, delete the resource.
-		if (container != null) {
-			buildBaseRequestSpecification().delete(memberResource);
+	@Override
+	protected String getResourceUri() {
+		if (memberResource != null) {
+			return memberResource;
 		}
+
+		return threadResource.get();
 	}
 
 }
@@ -7,6 +7,7 @@ import static org.w3.ldp.testsuite.matcher.HttpStatusSuccessMatcher.isSuccessful
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -16,7 +17,6 @@ import org.apache.marmotta.commons.vocabulary.LDP;
 import org.openrdf.model.URI;
 import org.testng.Assert;
 import org.testng.SkipException;
-import org.testng.annotations.AfterClass;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 import org.testng.annotations.Test;
@@ -24,6 +24,7 @@ import org.w3.ldp.testsuite.LdpTestSuite;
 import org.w3.ldp.testsuite.annotations.SpecTest;
 import org.w3.ldp.testsuite.annotations.SpecTest.METHOD;
 import org.w3.ldp.testsuite.annotations.SpecTest.STATUS;
+import org.w3.ldp.testsuite.http.LinkHeaders;
 import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
 import org.w3.ldp.testsuite.matcher.HeaderMatchers;
 
@@ -38,8 +39,13 @@ public class NonRDFSourceTest extends CommonResourceTest {
 
 	private final String container;
 	private final URI containerType;
-	/** Resource for CommonResourceTest */
-	private final String nonRdfSource;
+	/** Resources for CommonResourceTest, one per thread running its tests */
+	private final ThreadLocal<String> nonRdfSource = new ThreadLocal<String>() {
+		@Override
+		protected String initialValue() {
+			return fixtures.take();
+		}
+	};
 
 	@Parameters({ "basicContainer", "directContainer", "indirectContainer", "auth"})
 	public NonRDFSourceTest(@Optional String basicContainer, @Optional String directContainer, @Optional String indirectContainer, @Optional String auth) throws IOException {
@@ -57,23 +63,30 @@ public class NonRDFSourceTest extends CommonResourceTest {
 			throw new SkipException("No root container provided in testng.xml. Skipping LDP Non-RDF Source (LDP-NR) tests.");
 		}
 
+		fixtures.setCreator(new Callable<String>() {
+			@Override
+			public String call() {
+				return createNonRDFSource();
+			}
+		});
+	}
+
+	private String createNonRDFSource() {
 		final String slug = "test",
 				file = slug + ".png",
 				mimeType = "image/png";
 
 		// Create a resource to use for CommonResourceTest.
-		Response response = postNonRDFSource(slug, file, mimeType);
-		nonRdfSource = response.getHeader(LOCATION);
-	}
-
-	@AfterClass(alwaysRun = true)
-	public void deleteTestResource() {
-		buildBaseRequestSpecification().delete(nonRdfSource);
+		try {
+			return postNonRDFSource(slug, file, mimeType).getHeader(LOCATION);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read " + file + " to create an LDP-NR", e);
+		}
 	}
 
 	@Override
 	protected String getResourceUri() {
-		return nonRdfSource;
+		return nonRdfSource.get();
 	}
 
 	@Test(
@@ -93,9 +106,9 @@ public class NonRDFSourceTest extends CommonResourceTest {
 
 		// Make sure we can post binary resources
 		Response response = postNonRDFSource(slug, file, mimeType);
-		List<Header> links = response.headers().getList("Link");
+		LinkHeaders links = LinkHeaders.of(response);
 		Assert.assertTrue(containsLinkHeader(containerType.stringValue(), "type", links));
-		buildBaseRequestSpecification().delete(response.getHeader(LOCATION));
+		fixtures.deleteLater(response.getHeader(LOCATION));
 	}
 
 	@Test(
@@ -116,7 +129,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 		// Make sure we can post binary resources
 		Response response = postNonRDFSource(slug, file, mimeType);
 		try {
-			List<Header> links = response.headers().getList("Link");
+			LinkHeaders links = LinkHeaders.of(response);
 			Assert.assertTrue(containsLinkHeader(containerType.stringValue(), "type", links));
 
 			// Check the container contains the new resource
@@ -130,7 +143,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 
 			assertTrue(model.contains(model.createResource(container), model.createProperty(LDP.contains.stringValue()), model.createResource(response.getHeader(LOCATION))));
 		} finally {
-			buildBaseRequestSpecification().delete(response.getHeader(LOCATION));
+			fixtures.deleteLater(response.getHeader(LOCATION));
 		}
 	}
 
@@ -152,7 +165,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 		// Make sure we can post binary resources
 		Response response = postNonRDFSource(slug, file, mimeType);
 		try {
-			List<Header> links = response.headers().getList("Link");
+			LinkHeaders links = LinkHeaders.of(response);
 			Assert.assertTrue(containsLinkHeader(containerType.stringValue(), "type", links));
 
 			// And then check we get the binary back
@@ -168,7 +181,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 					.body().asByteArray();
 			assertEquals(expectedMD5, HashUtils.md5sum(binary), "md5sum");
 		} finally {
-			buildBaseRequestSpecification().delete(response.getHeader(LOCATION));
+			fixtures.deleteLater(response.getHeader(LOCATION));
 		}
 	}
 
@@ -191,7 +204,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 		String location = response.getHeader(LOCATION);
 
 		try {
-			List<Header> links = response.getHeaders().getList(LINK);
+			LinkHeaders links = LinkHeaders.of(response);
 			String describedBy = getFirstLinkForRelation("describedby", links);
 			Assert.assertNotNull(describedBy, "Expected Link response header with relation 'describedby'");
 			Assert.assertTrue(containsLinkHeader(containerType.stringValue(), "type", links));
@@ -220,7 +233,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 					.body().asByteArray();
 			assertEquals(expectedMD5, HashUtils.md5sum(binary), "md5sum");
 		} finally {
-			buildBaseRequestSpecification().delete(location);
+			fixtures.deleteLater(location);
 		}
 	}
 
@@ -244,7 +257,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 		Response response = postNonRDFSource(slug, file, mimeType);
 
 		try {
-			List<Header> links = response.headers().getList(LINK);
+			LinkHeaders links = LinkHeaders.of(response);
 			Assert.assertTrue(containsLinkHeader(containerType.stringValue(), "type", links));
 
 			// And then check the link when requesting the LDP-NR
@@ -283,7 +296,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 		Response response = postNonRDFSource(slug, file, mimeType);
 		String location = response.getHeader(LOCATION);
 		try {
-			List<Header> links = response.headers().getList(LINK);
+			LinkHeaders links = LinkHeaders.of(response);
 			String describedBy = getFirstLinkForRelation("describedby", links);
 			Assert.assertNotNull(describedBy, "Expected Link response header with relation 'describedby'");
 			Assert.assertTrue(containsLinkHeader(containerType.stringValue(), "type", links));
@@ -308,7 +321,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 				.when()
 					.get(describedBy);
 		} finally {
-			buildBaseRequestSpecification().delete(location);
+			fixtures.deleteLater(location);
 		}
 	}
 
@@ -334,7 +347,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 		boolean deleted = false;
 
 		try {
-			List<Header> links = postResponse.headers().getList(LINK);
+			LinkHeaders links = LinkHeaders.of(postResponse);
 			String describedBy = getFirstLinkForRelation("describedby", links);
 			Assert.assertNotNull(describedBy, "Expected Link response header with relation 'describedby'");
 
@@ -404,7 +417,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 		String location = postResponse.getHeader(LOCATION);
 
 		try {
-			List<Header> links = postResponse.getHeaders().getList(LINK);
+			LinkHeaders links = LinkHeaders.of(postResponse);
 			String describedBy = getFirstLinkForRelation("describedby", links);
 			Assert.assertNotNull(describedBy, "Expected Link response header with relation 'describedby' for LDP-NR POST request");
 
@@ -419,7 +432,7 @@ public class NonRDFSourceTest extends CommonResourceTest {
 					"Expected Link response header with relation 'describedby' and URI <"
 							+ describedBy + "> for LDP-NR OPTIONS request");
 		} finally {
-			buildBaseRequestSpecification().delete(location);
+			fixtures.deleteLater(location);
 		}
 	}
 
@@ -0,0 +1,362 @@
+package org.w3.ldp.testsuite.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.w3.ldp.testsuite.reporter.CsvReport.toMillis;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpStatus;
+import org.testng.SkipException;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+import org.w3.ldp.testsuite.annotations.Exclusive;
+import org.w3.ldp.testsuite.http.LinkHeaders;
+import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.util.Histogram;
+import org.w3.ldp.testsuite.vocab.LDP;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.NodeIterator;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.ResourceFactory;
+import com.jayway.restassured.response.Response;
+
+/**
+ * Checks that a server pages a large container as described by LDP Paging,
+ * and measures how fast a client can walk the pages. The test fills the
+ * container with members, asks for pages of a given size and follows the
+ * <code>first</code> and <code>next</code> links until the last page.
+ * <p/>
+ * Every page must have a <code>type</code> link to <code>ldp:Page</code>,
+ * the links must not lead back to a page already seen, and the containment
+ * triples of all pages together must list every member. The test reports the
+ * latency of each page and the time to walk all of them, optionally also
+ * fetching each next page while the current one is parsed.
+ * <p/>
+ * It's skipped if the server doesn't page the container. This only runs in
+ * the {@value LdpTest#PAGING} group.
+ *
+ * @see <a href="http://www.w3.org/TR/ldp-paging/">Linked Data Platform Paging 1.0</a>
+ */
+public class PagingTest extends BenchmarkTest<PagingTest.Walk> {
+
+	public static final int DEFAULT_MEMBERS = 1000;
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	/** Number of times each walk is repeated */
+	private static final int SAMPLES = 3;
+
+	private static final int THREADS = 10;
+
+	private final String container;
+	private final int members;
+	private final int pageSize;
+	private final boolean prefetch;
+	private final String prefer;
+
+	@Parameters({"basicContainer", "directContainer", "indirectContainer", "pagingMembers", "pagingPageSize",
+			"pagingPrefetch", "auth"})
+	public PagingTest(@Optional String basicContainer, @Optional String directContainer,
+			@Optional String indirectContainer, @Optional String pagingMembers, @Optional String pagingPageSize,
+			@Optional String pagingPrefetch, @Optional String auth) {
+		super(auth, "ldp-testsuite-paging-report.csv");
+		container = getContainer(basicContainer, directContainer, indirectContainer, "paging tests");
+		members = parseInt("pagingMembers", pagingMembers, DEFAULT_MEMBERS);
+		pageSize = parseInt("pagingPageSize", pagingPageSize, DEFAULT_PAGE_SIZE);
+		prefetch = Boolean.parseBoolean(pagingPrefetch);
+		prefer = include(PREFER_CONTAINMENT) + "; max-member-count=\"" + pageSize + "\"";
+	}
+
+	@Test(
+			groups = {PAGING},
+			description = "Fills the container, then follows the first and next links of its "
+					+ "pages. Every page is typed ldp:Page, no page is visited twice and the "
+					+ "containment triples of all pages together list every member.")
+	@Exclusive
+	public void testPageWalk() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		Queue<String> created = new ConcurrentLinkedQueue<String>();
+		List<Walk> walks = new ArrayList<Walk>();
+		try {
+			fill(executor, created);
+
+			String first = getFirstPage();
+			Set<String> expected = new HashSet<String>(created);
+			for (int i = 0; i < SAMPLES; i++) {
+				walks.add(walk(first, expected, false));
+			}
+			if (prefetch) {
+				for (int i = 0; i < SAMPLES; i++) {
+					walks.add(walk(first, expected, true));
+				}
+			}
+		} finally {
+			empty(executor, created);
+			executor.shutdownNow();
+			report(walks);
+		}
+
+		for (Walk walk : walks) {
+			assertFalse(walk.cycle, "The next links of the pages lead back to a page already seen");
+			assertEquals(walk.untyped, 0, walk.untyped + " pages don't have a Link header with "
+					+ "rel=\"type\" and " + LDP.Page.stringValue());
+			assertEquals(walk.missing, 0, walk.missing + " of " + created.size()
+					+ " members are not listed with ldp:contains on any page");
+			assertEquals(walk.duplicates, 0, walk.duplicates + " members are listed with ldp:contains "
+					+ "on more than one page");
+		}
+	}
+
+	/**
+	 * Asks for the container in pages of the configured size, without
+	 * following redirects.
+	 *
+	 * @return the URI of the first page
+	 * @throws SkipException if the server doesn't page the container
+	 */
+	private String getFirstPage() {
+		Response response = buildBaseRequestSpecification()
+				.redirects().follow(false)
+				.header(ACCEPT, TEXT_TURTLE)
+				.header(PREFER, prefer)
+				.get(container);
+
+		if (response.getStatusCode() == HttpStatus.SC_SEE_OTHER && response.getHeader(LOCATION) != null) {
+			return resolve(container, response.getHeader(LOCATION));
+		}
+
+		LinkHeaders links = LinkHeaders.of(response);
+		String first = links.getFirst(LINK_REL_FIRST);
+		if (first != null) {
+			return resolve(container, first);
+		}
+		if (links.getFirst(LINK_REL_NEXT) != null) {
+			// The response is the first page.
+			return container;
+		}
+
+		throw new SkipException("The server doesn't page the container with " + members
+				+ " members. Skipping paging tests.");
+	}
+
+	/**
+	 * Follows the next links from the first page to the last, optionally
+	 * requesting each next page before parsing the current one.
+	 */
+	private Walk walk(String first, Set<String> expected, boolean prefetch) {
+		Walk walk = new Walk(prefetch);
+		Set<String> visited = new HashSet<String>();
+		Set<String> contained = new HashSet<String>();
+		Property contains = ResourceFactory.createProperty(LDP.contains.stringValue());
+		ExecutorService executor = prefetch ? Executors.newSingleThreadExecutor() : null;
+
+		long start = System.nanoTime();
+		try {
+			Future<Response> pending = null;
+			String uri = first;
+			while (uri != null) {
+				if (!visited.add(uri)) {
+					walk.cycle = true;
+					break;
+				}
+
+				Response page = pending != null ? get(pending) : fetch(uri, walk);
+				LinkHeaders links = LinkHeaders.of(page);
+				String next = links.getFirst(LINK_REL_NEXT);
+				next = next != null ? resolve(uri, next) : null;
+				pending = prefetch && next != null && !visited.contains(next)
+						? executor.submit(fetcher(next, walk)) : null;
+
+				if (!containsLinkHeader(LDP.Page.stringValue(), LINK_REL_TYPE, links)) {
+					walk.untyped++;
+				}
+				Model model = page.as(Model.class, new RdfObjectMapper(uri));
+				NodeIterator objects = model.listObjectsOfProperty(model.getResource(container), contains);
+				while (objects.hasNext()) {
+					RDFNode member = objects.next();
+					if (member.isURIResource() && !contained.add(member.asResource().getURI())) {
+						walk.duplicates++;
+					}
+				}
+				walk.pages++;
+				uri = next;
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+		walk.micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+		walk.members = contained.size();
+		for (String member : expected) {
+			if (!contained.contains(member)) {
+				walk.missing++;
+			}
+		}
+
+		return walk;
+	}
+
+	private Callable<Response> fetcher(final String uri, final Walk walk) {
+		return new Callable<Response>() {
+			@Override
+			public Response call() {
+				return fetch(uri, walk);
+			}
+		};
+	}
+
+	private Response fetch(String uri, Walk walk) {
+		long start = System.nanoTime();
+		Response response = buildBaseRequestSpecification()
+				.header(ACCEPT, TEXT_TURTLE)
+				.header(PREFER, prefer)
+			.expect()
+				.statusCode(HttpStatus.SC_OK)
+			.when()
+				.get(uri);
+		walk.bytes += response.asByteArray().length;
+		walk.pageLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+		return response;
+	}
+
+	private static Response get(Future<Response> pending) {
+		try {
+			return pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while walking pages", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private static String resolve(String base, String uri) {
+		return URI.create(base).resolve(uri).toString();
+	}
+
+	/**
+	 * POSTs members concurrently.
+	 */
+	private void fill(ExecutorService executor, final Queue<String> created) {
+		final Measurement m = new Measurement();
+		List<Callable<Void>> posts = new ArrayList<Callable<Void>>(members);
+		for (int i = 0; i < members; i++) {
+			posts.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					Response response = buildBaseRequestSpecification()
+							.contentType(TEXT_TURTLE)
+							.body(postContent(), new RdfObjectMapper())
+							.post(container);
+					String location = response.getHeader(LOCATION);
+					if (response.statusCode() == HttpStatus.SC_CREATED && location != null) {
+						created.add(location);
+					} else {
+						m.errors.incrementAndGet();
+					}
+					return null;
+				}
+			});
+		}
+
+		invokeAll(executor, posts, m);
+		assertEquals(m.errors.get(), 0, m.errors + " POST requests failed while filling the container"
+				+ m.describeFailure());
+	}
+
+	/**
+	 * DELETEs members concurrently.
+	 */
+	private void empty(ExecutorService executor, Queue<String> created) {
+		List<Callable<Void>> deletes = new ArrayList<Callable<Void>>(created.size());
+		for (final String location : created) {
+			deletes.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					buildBaseRequestSpecification().delete(location);
+					return null;
+				}
+			});
+		}
+
+		// Best effort, like the cleanup of other tests' fixtures.
+		invokeAll(executor, deletes, new Measurement());
+	}
+
+	@Override
+	protected void printSummary(List<Walk> walks) {
+		System.out.printf("%n%-10s %6s %7s %8s %11s %11s %11s %9s %10s%n", "Walk", "Pages", "Members",
+				"Dups", "Bytes", "Page p50", "Page p95", "Total ms", "Pages/s");
+		for (Walk walk : walks) {
+			System.out.printf("%-10s %6d %7d %8d %11d %11.2f %11.2f %9.2f %10.1f%n", walk.getMode(), walk.pages,
+					walk.members, walk.duplicates, walk.bytes, toMillis(walk.pageLatency.getValueAtPercentile(50)),
+					toMillis(walk.pageLatency.getValueAtPercentile(95)), toMillis(walk.micros),
+					walk.pages / (walk.micros / 1e6));
+		}
+	}
+
+	@Override
+	protected String getCsvHeader() {
+		return "mode,pageSize,pages,members,missing,duplicates,untypedPages,bytes,pageP50Ms,pageP95Ms,"
+				+ "pageMaxMs,walkMs,pagesPerSecond";
+	}
+
+	@Override
+	protected String toCsv(Walk walk) {
+		return walk.getMode() + "," + pageSize + "," + walk.pages + "," + walk.members + ","
+				+ walk.missing + "," + walk.duplicates + "," + walk.untyped + "," + walk.bytes + ","
+				+ toMillis(walk.pageLatency.getValueAtPercentile(50)) + ","
+				+ toMillis(walk.pageLatency.getValueAtPercentile(95)) + ","
+				+ toMillis(walk.pageLatency.getMax()) + "," + toMillis(walk.micros) + ","
+				+ walk.pages / (walk.micros / 1e6);
+	}
+
+	/**
+	 * One walk from the first page to the last.
+	 */
+	static class Walk {
+		final boolean prefetch;
+		final Histogram pageLatency = new Histogram();
+		long bytes;
+		long micros;
+		int pages;
+		int members;
+		int missing;
+		int duplicates;
+		int untyped;
+		boolean cycle;
+
+		Walk(boolean prefetch) {
+			this.prefetch = prefetch;
+		}
+
+		String getMode() {
+			return prefetch ? "prefetch" : "sequential";
+		}
+	}
+}
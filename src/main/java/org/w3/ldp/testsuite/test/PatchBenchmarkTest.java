@@ -0,0 +1,253 @@
+package org.w3.ldp.testsuite.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.w3.ldp.testsuite.matcher.HttpStatusSuccessMatcher.isSuccessful;
+import static org.w3.ldp.testsuite.reporter.CsvReport.toMillis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.SkipException;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+import org.w3.ldp.testsuite.annotations.Exclusive;
+import org.w3.ldp.testsuite.http.HttpMethod;
+import org.w3.ldp.testsuite.http.PatchFormat;
+import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
+import org.w3.ldp.testsuite.util.Histogram;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+
+/**
+ * Compares updating one triple of a resource with PATCH and with a PUT of the
+ * whole graph, for resources of growing size. For each size, the test creates
+ * a resource with that many triples, then changes the value of one of them
+ * alternately with PATCH and PUT, both with If-Match.
+ * <p/>
+ * The test reports the bytes sent and the latency of each, so the savings of
+ * PATCH on large resources are visible. Only the update requests are timed,
+ * not the GETs for the ETag before them. The patches are written in the first
+ * format in Accept-Patch the test suite supports.
+ * <p/>
+ * This is a benchmark rather than a conformance test. It only runs in the
+ * {@value LdpTest#PATCH_BENCHMARK} group, and fails only if an update is
+ * rejected or isn't visible afterwards.
+ */
+public class PatchBenchmarkTest extends BenchmarkTest<PatchBenchmarkTest.Size> {
+
+	public static final String DEFAULT_SIZES = "10,100,1000,10000";
+
+	/** Number of updates with each method at each size */
+	private static final int SAMPLES = 10;
+
+	private static final String NS = "http://example.com/ns#";
+
+	private final String container;
+	private final int[] sizes;
+
+	@Parameters({"basicContainer", "directContainer", "indirectContainer", "patchSizes", "auth"})
+	public PatchBenchmarkTest(@Optional String basicContainer, @Optional String directContainer,
+			@Optional String indirectContainer, @Optional String patchSizes, @Optional String auth) {
+		super(auth, "ldp-testsuite-patch-report.csv");
+		container = getContainer(basicContainer, directContainer, indirectContainer, "PATCH benchmark");
+		sizes = parseInts("patchSizes", patchSizes, DEFAULT_SIZES);
+	}
+
+	@Test(
+			groups = {PATCH_BENCHMARK},
+			description = "Updates one triple of resources of increasing size with PATCH and "
+					+ "with PUT of the whole graph, and measures the bytes sent and latency of each.")
+	@Exclusive
+	public void testPatchVersusPut() throws IOException {
+		List<Size> measurements = new ArrayList<Size>();
+		try {
+			for (int size : sizes) {
+				measurements.add(measure(size));
+			}
+		} finally {
+			report(measurements);
+		}
+
+		for (Size m : measurements) {
+			assertEquals(m.errors.get(), 0, m.errors + " PATCH or PUT requests failed with " + m.size + " triples");
+			assertEquals(m.unapplied, 0, m.unapplied + " updates weren't visible afterwards with "
+					+ m.size + " triples");
+		}
+	}
+
+	private Size measure(int size) {
+		Model content = ModelFactory.createDefaultModel();
+		Resource r = content.getResource("");
+		for (int i = 0; i < size; i++) {
+			r.addProperty(content.createProperty(NS + "p" + i), "value " + i);
+		}
+		String location = post(container, content, null);
+		fixtures.deleteLater(location);
+
+		PatchFormat format = getPatchFormat(location);
+		Size m = new Size(size, format);
+		String property = NS + "p0";
+		String value = "value 0";
+		for (int i = 0; i < SAMPLES; i++) {
+			// PATCH the value.
+			Response get = get(location);
+			m.check(get.as(Model.class, new RdfObjectMapper(location)), location, property, value);
+			String newValue = "patched " + i;
+			byte[] patch = format.replace(location, property, value, newValue).getBytes(StandardCharsets.UTF_8);
+			if (update(HttpMethod.PATCH, location, format.getMediaType(), get.getHeader(ETAG), patch, m)) {
+				value = newValue;
+			}
+			m.patchBytes = patch.length;
+
+			// PUT the whole graph with the value changed.
+			get = get(location);
+			Model model = get.as(Model.class, new RdfObjectMapper(location));
+			m.check(model, location, property, value);
+			newValue = "put " + i;
+			Property p = model.createProperty(property);
+			model.getResource(location).removeAll(p).addProperty(p, newValue);
+			byte[] put = serialize(model, location);
+			if (update(HttpMethod.PUT, location, TEXT_TURTLE, get.getHeader(ETAG), put, m)) {
+				value = newValue;
+			}
+			m.putBytes = put.length;
+		}
+		m.check(get(location).as(Model.class, new RdfObjectMapper(location)), location, property, value);
+
+		return m;
+	}
+
+	/**
+	 * @return the first format in the resource's Accept-Patch the test suite
+	 *         can write
+	 * @throws SkipException if the resource doesn't support PATCH in a format
+	 *                       the test suite can write
+	 */
+	private PatchFormat getPatchFormat(String location) {
+		Response options = buildBaseRequestSpecification().options(location);
+		String allow = options.getHeader(ALLOW);
+		if (allow == null || !allow.matches("(?i).*\\bPATCH\\b.*")) {
+			throw new SkipException("Resource <" + location + "> doesn't allow PATCH. Skipping PATCH benchmark.");
+		}
+
+		List<PatchFormat> formats = PatchFormat.parse(options.getHeader(ACCEPT_PATCH));
+		if (formats.isEmpty()) {
+			throw new SkipException("The server doesn't accept a patch format the test suite can write. Accept-Patch: "
+					+ options.getHeader(ACCEPT_PATCH) + ". Skipping PATCH benchmark.");
+		}
+
+		return formats.get(0);
+	}
+
+	private Response get(String location) {
+		return buildBaseRequestSpecification()
+				.header(ACCEPT, TEXT_TURTLE)
+				.get(location);
+	}
+
+	/**
+	 * Sends a timed PATCH or PUT with If-Match.
+	 *
+	 * @return true if the update succeeded
+	 */
+	private boolean update(HttpMethod method, String location, String contentType, String eTag, byte[] body,
+			Size m) {
+		RequestSpecification request = buildBaseRequestSpecification()
+				.contentType(contentType)
+				.body(body);
+		if (eTag != null) {
+			request.header(IF_MATCH, eTag);
+		}
+
+		long start = System.nanoTime();
+		Response response = method == HttpMethod.PATCH ? request.patch(location) : request.put(location);
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+		(method == HttpMethod.PATCH ? m.patchLatency : m.putLatency).record(micros);
+
+		if (!isSuccessful().matches(response.getStatusCode())) {
+			m.errors.incrementAndGet();
+			return false;
+		}
+
+		return true;
+	}
+
+	private static byte[] serialize(Model model, String base) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		model.write(out, "TURTLE", base);
+
+		return out.toByteArray();
+	}
+
+	@Override
+	protected void printSummary(List<Size> measurements) {
+		System.out.printf("%n%-8s %-26s %11s %11s %8s %10s %10s %8s%n", "Triples", "PATCH format",
+				"PATCH bytes", "PUT bytes", "Saved", "PATCH ms", "PUT ms", "Speedup");
+		for (Size m : measurements) {
+			double patchMillis = toMillis(m.patchLatency.getValueAtPercentile(50));
+			double putMillis = toMillis(m.putLatency.getValueAtPercentile(50));
+			System.out.printf("%-8d %-26s %11d %11d %7.1f%% %10.2f %10.2f %7.2fx%n", m.size,
+					m.format.getMediaType(), m.patchBytes, m.putBytes, m.getByteSavings() * 100, patchMillis,
+					putMillis, patchMillis == 0 ? 0 : putMillis / patchMillis);
+		}
+	}
+
+	@Override
+	protected String getCsvHeader() {
+		return "triples,patchFormat,patchBytes,putBytes,byteSavings,patchP50Ms,patchMaxMs,putP50Ms,"
+				+ "putMaxMs,errors,unapplied";
+	}
+
+	@Override
+	protected String toCsv(Size m) {
+		return m.size + "," + m.format.getMediaType() + "," + m.patchBytes + "," + m.putBytes + ","
+				+ m.getByteSavings() + "," + toMillis(m.patchLatency.getValueAtPercentile(50)) + ","
+				+ toMillis(m.patchLatency.getMax()) + "," + toMillis(m.putLatency.getValueAtPercentile(50))
+				+ "," + toMillis(m.putLatency.getMax()) + "," + m.errors + "," + m.unapplied;
+	}
+
+	/**
+	 * The measurements for resources of one size.
+	 */
+	static class Size extends Measurement {
+		final int size;
+		final PatchFormat format;
+		final Histogram patchLatency = new Histogram();
+		final Histogram putLatency = new Histogram();
+		long patchBytes;
+		long putBytes;
+		int unapplied;
+
+		Size(int size, PatchFormat format) {
+			this.size = size;
+			this.format = format;
+		}
+
+		/**
+		 * Counts the last update as unapplied if the property doesn't have
+		 * the value it was updated to.
+		 */
+		void check(Model model, String location, String property, String value) {
+			if (!model.contains(model.getResource(location), model.createProperty(property), value)) {
+				unapplied++;
+			}
+		}
+
+		/**
+		 * @return the fraction of bytes saved by PATCH
+		 */
+		double getByteSavings() {
+			return putBytes == 0 ? 0 : 1 - (double) patchBytes / putBytes;
+		}
+	}
+}
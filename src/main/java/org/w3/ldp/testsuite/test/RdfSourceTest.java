@@ -3,6 +3,7 @@ package org.w3.ldp.testsuite.test;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.text.IsEmptyString.isEmptyOrNullString;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import static org.w3.ldp.testsuite.matcher.HeaderMatchers.isValidEntityTag;
@@ -11,6 +12,8 @@ import static org.w3.ldp.testsuite.matcher.HttpStatusSuccessMatcher.isSuccessful
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import org.apache.http.HttpStatus;
 import org.testng.SkipException;
@@ -18,12 +21,15 @@ import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 import org.testng.annotations.Test;
 import org.w3.ldp.testsuite.LdpTestSuite;
+import org.w3.ldp.testsuite.annotations.Exclusive;
 import org.w3.ldp.testsuite.annotations.SpecTest;
 import org.w3.ldp.testsuite.annotations.SpecTest.METHOD;
 import org.w3.ldp.testsuite.annotations.SpecTest.STATUS;
 import org.w3.ldp.testsuite.exception.SkipClientTestException;
 import org.w3.ldp.testsuite.exception.SkipNotTestableException;
 import org.w3.ldp.testsuite.http.HttpMethod;
+import org.w3.ldp.testsuite.http.LinkHeaders;
+import org.w3.ldp.testsuite.http.PatchFormat;
 import org.w3.ldp.testsuite.mapper.RdfObjectMapper;
 import org.w3.ldp.testsuite.matcher.HeaderMatchers;
 
@@ -40,6 +46,7 @@ import com.hp.hpl.jena.util.ResourceUtils;
 import com.hp.hpl.jena.vocabulary.DCTerms;
 import com.hp.hpl.jena.vocabulary.RDF;
 import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
 
 /**
  * Tests all RDF source LDP resources, including containers and member resources.
@@ -67,6 +74,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldpr-gen-defbaseuri",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_APPROVED)
+	@Exclusive
 	public void testRelativeUriResolutionPut() {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 
@@ -116,6 +124,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldpr-put-replaceall",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_APPROVED)
+	@Exclusive
 	public void testPutReplacesResource() {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 
@@ -188,6 +197,83 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 				.when().put(resourceUri);
 	}
 
+	@Test(
+			groups = {MAY},
+			description = "LDP servers MAY implement HTTP PATCH to update "
+					+ "LDP-RSs. A PATCH in each of the media types listed "
+					+ "in Accept-Patch that the test suite can write, "
+					+ "SPARQL Update or LD Patch, must add and then remove "
+					+ "a triple.")
+	@SpecTest(
+			specRefUri = LdpTestSuite.SPEC_URI + "#ldpr-HTTP_PATCH",
+			testMethod = METHOD.AUTOMATED,
+			approval = STATUS.WG_EXTENSION)
+	@Exclusive
+	public void testPatchUpdatesResource() {
+		skipIfMethodNotAllowed(HttpMethod.PATCH);
+
+		List<PatchFormat> formats = PatchFormat.parse(getAcceptPatch());
+		if (formats.isEmpty()) {
+			throw new SkipException("Skipping test because the server doesn't accept a patch format the test suite "
+					+ "can write. Accept-Patch: " + getAcceptPatch());
+		}
+
+		String resourceUri = getResourceUri();
+		for (PatchFormat format : formats) {
+			String value = "Patched with " + format.getMediaType();
+
+			patch(resourceUri, format, format.replace(resourceUri, DCTerms.description.getURI(), null, value));
+
+			// Track whether we've removed the triple, so we can clean up properly on test failures.
+			String remove = format.replace(resourceUri, DCTerms.description.getURI(), value, null);
+			boolean removed = false;
+			try {
+				Model model = getAsModel(resourceUri);
+				assertTrue(model.contains(model.getResource(resourceUri), DCTerms.description, value),
+						"Expected the resource to have dcterms:description \"" + value + "\" after a PATCH with "
+						+ format.getMediaType());
+
+				// Remove the triple again, which also cleans up.
+				removed = true;
+				patch(resourceUri, format, remove);
+				model = getAsModel(resourceUri);
+				assertFalse(model.contains(model.getResource(resourceUri), DCTerms.description, value),
+						"Expected dcterms:description \"" + value + "\" to be removed by a PATCH with "
+						+ format.getMediaType());
+			} finally {
+				// If an assertion failed before we could remove the triple, restore the resource now.
+				if (!removed) {
+					buildBaseRequestSpecification()
+							.contentType(format.getMediaType())
+							.body(remove.getBytes(StandardCharsets.UTF_8))
+							.patch(resourceUri);
+				}
+			}
+		}
+	}
+
+	/**
+	 * PATCHes a resource with If-Match, expecting success.
+	 */
+	protected void patch(String resourceUri, PatchFormat format, String patch) {
+		String eTag = buildBaseRequestSpecification()
+				.header(ACCEPT, TEXT_TURTLE)
+			.expect()
+				.statusCode(isSuccessful())
+			.when()
+				.get(resourceUri).getHeader(ETAG);
+
+		RequestSpecification request = buildBaseRequestSpecification().contentType(format.getMediaType());
+		if (eTag != null) {
+			request.header(IF_MATCH, eTag);
+		}
+		request.body(patch.getBytes(StandardCharsets.UTF_8))
+			.expect()
+				.statusCode(isSuccessful())
+			.when()
+				.patch(resourceUri);
+	}
+
 	@Override
 	@Test(
 			groups = {MUST},
@@ -441,6 +527,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldpr-gen-pubclireqs",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_PENDING)
+	@Exclusive
 	public void testPublishConstraintsReadOnlyProp(@Optional String readOnlyProp) {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 
@@ -461,6 +548,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldpr-gen-pubclireqs",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_PENDING)
+	@Exclusive
 	public void testPublishConstraintsUnknownProp() {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 		expectPut4xxDescriedBy(UNKNOWN_PROPERTY);
@@ -479,6 +567,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldprs-put-servermanagedprops",
 			testMethod = METHOD.NOT_IMPLEMENTED,
 			approval = STATUS.WG_PENDING)
+	@Exclusive
 	public void testPutReadOnlyProperties4xxStatus(@Optional String readOnlyProp) {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 
@@ -499,6 +588,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldprs-put-servermanagedprops",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_PENDING)
+	@Exclusive
 	public void test4xxErrorHasResponseBody(@Optional String readOnlyProp) {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 
@@ -519,6 +609,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldprs-put-failed",
 			testMethod = METHOD.AUTOMATED,
 			approval = STATUS.WG_PENDING)
+	@Exclusive
 	public void testPutPropertiesNotPersisted() {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 		expectPut4xxStatus(UNKNOWN_PROPERTY);
@@ -535,6 +626,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 			specRefUri = LdpTestSuite.SPEC_URI + "#ldprs-put-failed",
 			testMethod = METHOD.NOT_IMPLEMENTED,
 			approval = STATUS.WG_PENDING)
+	@Exclusive
 	public void testResponsePropertiesNotPersisted() {
 		skipIfMethodNotAllowed(HttpMethod.PUT);
 		expectPut4xxResponseBody(UNKNOWN_PROPERTY);
@@ -590,7 +682,7 @@ public abstract class RdfSourceTest extends CommonResourceTest {
 
 	protected void expectPut4xxDescriedBy(String invalidProp) {
 		Response putResponse = expectPut4xxStatus(invalidProp);
-		String describedby = getFirstLinkForRelation(LINK_REL_DESCRIBEDBY, putResponse.getHeaders().getList(LINK));
+		String describedby = getFirstLinkForRelation(LINK_REL_DESCRIBEDBY, LinkHeaders.of(putResponse));
 		assertNotNull(describedby, "Response did not contain a Link header with rel=\"describedby\"");
 
 		// Make sure we can GET the describedby link.
@@ -0,0 +1,521 @@
+package org.w3.ldp.testsuite.transformer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.w3.ldp.testsuite.annotations.SpecTest;
+import org.w3.ldp.testsuite.reporter.LdpJournal;
+import org.w3.ldp.testsuite.test.LdpTest;
+
+/**
+ * Chooses which tests run: the ones matching the test name patterns, then of
+ * those the ones to run again from the journal of an earlier run, then of
+ * those the ones in this process's shard, then of those the most important
+ * ones that fit in the time budget.
+ * <p/>
+ * The choice is made once, from the full list of tests on the first call.
+ * TestNG calls interceptors again with parts of the list, which keep the
+ * tests chosen the first time.
+ */
+public class MethodSelector implements IMethodInterceptor {
+
+	/** Requirement levels, most important first */
+	private static final List<String> LEVELS = Arrays.asList(LdpTest.MUST, LdpTest.SHOULD, LdpTest.MAY);
+
+	/** Estimated duration of a test with no history, if no test has any */
+	private static final long DEFAULT_DURATION = 1000; // ms
+
+	private static final String outputDir = "report"; // directory for results
+
+	private String[] testNamePatterns;
+
+	private Map<String, String> previousStatuses;
+	private boolean rerunFailed;
+	private boolean resume;
+
+	private int shard;
+	private int shards;
+
+	private long budget; // ms
+
+	private Map<String, Long> durations = Collections.emptyMap();
+
+	private Set<String> selected;
+
+	/**
+	 * @param testNamePatterns regular expressions, one of which test method
+	 *                         names have to match
+	 */
+	public void setTestNamePatterns(String[] testNamePatterns) {
+		this.testNamePatterns = testNamePatterns;
+	}
+
+	/**
+	 * Runs tests again depending on their results in an earlier run.
+	 *
+	 * @param previousStatuses the status name of each test's latest result
+	 *                         in the journal of the earlier run
+	 * @param rerunFailed      whether to rerun tests that failed or were skipped
+	 * @param resume           whether to run tests that haven't run yet
+	 * @see LdpJournal#readStatuses(java.io.File)
+	 */
+	public void setRerun(Map<String, String> previousStatuses, boolean rerunFailed, boolean resume) {
+		this.previousStatuses = previousStatuses;
+		this.rerunFailed = rerunFailed;
+		this.resume = resume;
+	}
+
+	/**
+	 * Runs one of several shards of the tests, which are balanced by how long
+	 * each test took in earlier runs. Every shard has to be given the same
+	 * durations to choose the same shards.
+	 *
+	 * @param shard  this shard, from 1 to the number of shards
+	 * @param shards the number of shards
+	 * @see #setDurations(Map)
+	 */
+	public void setShard(int shard, int shards) {
+		this.shard = shard;
+		this.shards = shards;
+	}
+
+	/**
+	 * Runs only the most important tests that are expected to take no longer
+	 * than the budget altogether, going by how long they took in earlier
+	 * runs. MUST tests come before SHOULD tests and SHOULD tests before MAY
+	 * tests. Within a level, tests the working group approved come first,
+	 * then the shortest. Once a test doesn't fit, no tests of a lower level
+	 * run, other than ones a chosen test depends on, but shorter tests of the
+	 * same level still do.
+	 *
+	 * @param budget the time budget in milliseconds
+	 * @see #setDurations(Map)
+	 */
+	public void setBudget(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * @param durations how long tests took in earlier runs, in milliseconds,
+	 *                  for sharding and budgeting
+	 * @see LdpJournal#readDurations(List)
+	 */
+	public void setDurations(Map<String, Long> durations) {
+		this.durations = durations;
+	}
+
+	/**
+	 * @return whether this selects anything, rather than running all tests
+	 */
+	public boolean isEnabled() {
+		return testNamePatterns != null || previousStatuses != null || shards > 0 || budget > 0;
+	}
+
+	@Override
+	public synchronized List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		if (selected == null) {
+			selected = select(methods);
+		}
+
+		List<IMethodInstance> toRun = new ArrayList<>();
+		for (IMethodInstance method : methods) {
+			if (selected.contains(getKey(method.getMethod()))) {
+				toRun.add(method);
+			}
+		}
+
+		return toRun;
+	}
+
+	/**
+	 * @return the name of a test in the journal, its test class and method
+	 *         name
+	 */
+	public static String getKey(ITestNGMethod method) {
+		return method.getTestClass().getRealClass().getName() + "." + method.getMethodName();
+	}
+
+	private Set<String> select(List<IMethodInstance> methods) {
+		List<ITestNGMethod> candidates = new ArrayList<>();
+		for (IMethodInstance method : methods) {
+			if (matchesTestName(method.getMethod())) {
+				candidates.add(method.getMethod());
+			}
+		}
+
+		if (previousStatuses != null) {
+			int count = candidates.size();
+			candidates = selectReruns(candidates);
+			System.out.printf("Running %d of %d tests again, keeping the other results from the journal%n%n",
+					candidates.size(), count);
+		}
+
+		if (shards > 0) {
+			candidates = selectShard(candidates);
+		}
+
+		if (budget > 0) {
+			candidates = selectWithinBudget(candidates);
+		}
+
+		Set<String> keys = new HashSet<>();
+		for (ITestNGMethod method : candidates) {
+			keys.add(getKey(method));
+		}
+
+		return keys;
+	}
+
+	private boolean matchesTestName(ITestNGMethod method) {
+		if (testNamePatterns == null) {
+			return true;
+		}
+
+		for (String testNamePattern : testNamePatterns) {
+			if (method.getMethodName().matches(testNamePattern)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Chooses the tests to run again from their statuses in the journal of
+	 * an earlier run, along with the tests they depend on, since TestNG
+	 * can't run a test without them.
+	 */
+	private List<ITestNGMethod> selectReruns(List<ITestNGMethod> candidates) {
+		Deque<ITestNGMethod> pending = new ArrayDeque<>();
+		for (ITestNGMethod method : candidates) {
+			if (isRerun(previousStatuses.get(getKey(method)))) {
+				pending.add(method);
+			}
+		}
+
+		Set<String> rerun = new HashSet<>();
+		while (!pending.isEmpty()) {
+			ITestNGMethod method = pending.remove();
+			if (rerun.add(getKey(method))) {
+				pending.addAll(getDependencies(method, candidates));
+			}
+		}
+
+		List<ITestNGMethod> selected = new ArrayList<>();
+		for (ITestNGMethod method : candidates) {
+			if (rerun.contains(getKey(method))) {
+				selected.add(method);
+			}
+		}
+
+		return selected;
+	}
+
+	/**
+	 * @param status the status name of the test's latest result in the
+	 *               journal of an earlier run, or null if it has none
+	 * @return whether to run the test in this run
+	 */
+	private boolean isRerun(String status) {
+		if (status == null) {
+			return resume;
+		}
+
+		return rerunFailed && !LdpJournal.getStatusName(ITestResult.SUCCESS).equals(status);
+	}
+
+	/**
+	 * Splits the tests into shards of about the same duration and chooses
+	 * this one. Tests are placed longest first, each in the shard with the
+	 * least to do so far. Tests that depend on each other stay together, and
+	 * tests with no history are assumed to take the average time.
+	 */
+	private List<ITestNGMethod> selectShard(List<ITestNGMethod> candidates) {
+		// Group tests with the tests they depend on, by key.
+		Map<String, TreeSet<String>> groupOf = new HashMap<>();
+		for (ITestNGMethod method : candidates) {
+			TreeSet<String> group = new TreeSet<>();
+			group.add(getKey(method));
+			groupOf.put(getKey(method), group);
+		}
+		for (ITestNGMethod method : candidates) {
+			for (ITestNGMethod dependency : getDependencies(method, candidates)) {
+				TreeSet<String> group = groupOf.get(getKey(method));
+				TreeSet<String> other = groupOf.get(getKey(dependency));
+				if (group != other) {
+					group.addAll(other);
+					for (String key : other) {
+						groupOf.put(key, group);
+					}
+				}
+			}
+		}
+
+		// Each group once, named by its first key.
+		long estimate = getDefaultDuration(candidates);
+		final Map<String, Long> groupDurations = new HashMap<>();
+		for (TreeSet<String> group : groupOf.values()) {
+			long duration = 0;
+			for (String key : group) {
+				duration += getDuration(key, estimate);
+			}
+			groupDurations.put(group.first(), duration);
+		}
+
+		List<String> groups = new ArrayList<>(groupDurations.keySet());
+		Collections.sort(groups, new Comparator<String>() {
+			@Override
+			public int compare(String g1, String g2) {
+				int byDuration = groupDurations.get(g2).compareTo(groupDurations.get(g1));
+				return byDuration != 0 ? byDuration : g1.compareTo(g2);
+			}
+		});
+
+		long[] loads = new long[shards];
+		Set<String> mine = new HashSet<>();
+		for (String group : groups) {
+			int least = 0;
+			for (int i = 1; i < shards; i++) {
+				if (loads[i] < loads[least]) {
+					least = i;
+				}
+			}
+			loads[least] += groupDurations.get(group);
+			if (least == shard - 1) {
+				mine.addAll(groupOf.get(group));
+			}
+		}
+
+		List<ITestNGMethod> selected = new ArrayList<>();
+		for (ITestNGMethod method : candidates) {
+			if (mine.contains(getKey(method))) {
+				selected.add(method);
+			}
+		}
+
+		long total = 0;
+		for (long load : loads) {
+			total += load;
+		}
+		System.out.printf("Shard %d of %d: running %d of %d tests, estimated %.1fs of %.1fs%n%n", shard, shards,
+				selected.size(), candidates.size(), loads[shard - 1] / 1000.0, total / 1000.0);
+
+		return selected;
+	}
+
+	/**
+	 * Chooses the most important tests that fit in the budget, with the
+	 * tests they depend on, and reports the ones left out and why.
+	 */
+	private List<ITestNGMethod> selectWithinBudget(List<ITestNGMethod> candidates) {
+		final long estimate = getDefaultDuration(candidates);
+		List<ITestNGMethod> byValue = new ArrayList<>(candidates);
+		Collections.sort(byValue, new Comparator<ITestNGMethod>() {
+			@Override
+			public int compare(ITestNGMethod m1, ITestNGMethod m2) {
+				int byLevel = Integer.compare(getLevelRank(m1), getLevelRank(m2));
+				if (byLevel != 0) {
+					return byLevel;
+				}
+				int byApproval = Integer.compare(getApprovalRank(m1), getApprovalRank(m2));
+				if (byApproval != 0) {
+					return byApproval;
+				}
+				int byDuration = Long.compare(getDuration(getKey(m1), estimate), getDuration(getKey(m2), estimate));
+				return byDuration != 0 ? byDuration : getKey(m1).compareTo(getKey(m2));
+			}
+		});
+
+		Set<String> chosen = new HashSet<>();
+		Map<String, String> reasons = new HashMap<>();
+		String levelLeftOut = null; // the first level a test was left out of
+		long spent = 0;
+		for (ITestNGMethod method : byValue) {
+			if (chosen.contains(getKey(method))) {
+				continue;
+			}
+
+			// Don't let a lower level take the time a more important test didn't get.
+			if (levelLeftOut != null && getLevelRank(method) > LEVELS.indexOf(levelLeftOut)) {
+				reasons.put(getKey(method), "a " + levelLeftOut + " test was left out");
+				continue;
+			}
+
+			// The test and whatever it depends on that isn't chosen yet
+			Set<String> needed = new HashSet<>();
+			long cost = 0;
+			Deque<ITestNGMethod> pending = new ArrayDeque<>();
+			pending.add(method);
+			while (!pending.isEmpty()) {
+				ITestNGMethod m = pending.remove();
+				String key = getKey(m);
+				if (!chosen.contains(key) && needed.add(key)) {
+					cost += getDuration(key, estimate);
+					pending.addAll(getDependencies(m, candidates));
+				}
+			}
+
+			if (spent + cost <= budget) {
+				chosen.addAll(needed);
+				spent += cost;
+			} else {
+				reasons.put(getKey(method), needed.size() > 1 ? "too long with its dependencies" : "too long");
+				if (levelLeftOut == null && LEVELS.contains(getLevel(method))) {
+					levelLeftOut = getLevel(method);
+				}
+			}
+		}
+
+		List<ITestNGMethod> selected = new ArrayList<>();
+		List<ITestNGMethod> leftOut = new ArrayList<>();
+		for (ITestNGMethod method : byValue) {
+			(chosen.contains(getKey(method)) ? selected : leftOut).add(method);
+		}
+
+		System.out.printf("Budget of %.1fs: running %d of %d tests, estimated %.1fs%n", budget / 1000.0,
+				selected.size(), candidates.size(), spent / 1000.0);
+		if (!leftOut.isEmpty()) {
+			System.out.printf("%nLeft out to fit the budget:%n");
+			for (ITestNGMethod method : leftOut) {
+				SpecTest specTest = getSpecTest(method);
+				System.out.printf("  %-7s %-60s %7.1fs  %-30s %s%n", getLevel(method),
+						method.getTestClass().getRealClass().getSimpleName() + "." + method.getMethodName(),
+						getDuration(getKey(method), estimate) / 1000.0, reasons.get(getKey(method)),
+						specTest != null ? specTest.specRefUri() : "");
+			}
+		}
+		System.out.println();
+
+		try {
+			writeBudgetCsv(byValue, chosen, reasons, estimate);
+		} catch (IOException e) {
+			System.err.println("WARNING: unable to write budget report, " + e.getLocalizedMessage());
+		}
+
+		return selected;
+	}
+
+	private void writeBudgetCsv(List<ITestNGMethod> byValue, Set<String> chosen, Map<String, String> reasons,
+			long estimate) throws IOException {
+		new File(outputDir).mkdirs();
+		BufferedWriter writer = new BufferedWriter(new FileWriter(outputDir
+				+ "/ldp-testsuite-budget-report.csv"));
+		try {
+			writer.write("test,level,approval,specRefUri,estimatedMs,historical,selected,leftOutBecause");
+			writer.newLine();
+			for (ITestNGMethod method : byValue) {
+				SpecTest specTest = getSpecTest(method);
+				String key = getKey(method);
+				writer.write(key + "," + getLevel(method) + "," + (specTest != null ? specTest.approval() : "") + ","
+						+ (specTest != null ? specTest.specRefUri() : "") + "," + getDuration(key, estimate) + ","
+						+ durations.containsKey(key) + "," + chosen.contains(key) + ","
+						+ (chosen.contains(key) ? "" : reasons.get(key)));
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static SpecTest getSpecTest(ITestNGMethod method) {
+		return method.getConstructorOrMethod().getMethod().getAnnotation(SpecTest.class);
+	}
+
+	/**
+	 * @return the requirement level of the test, from its groups
+	 */
+	private static String getLevel(ITestNGMethod method) {
+		List<String> groups = Arrays.asList(method.getGroups());
+		for (String level : LEVELS) {
+			if (groups.contains(level)) {
+				return level;
+			}
+		}
+
+		return "";
+	}
+
+	private static int getLevelRank(ITestNGMethod method) {
+		int rank = LEVELS.indexOf(getLevel(method));
+		return rank >= 0 ? rank : LEVELS.size();
+	}
+
+	/**
+	 * @return 0 for tests the working group approved, 1 for the others and 2
+	 *         for deprecated ones
+	 */
+	private static int getApprovalRank(ITestNGMethod method) {
+		SpecTest specTest = getSpecTest(method);
+		if (specTest == null) {
+			return 1;
+		}
+
+		switch (specTest.approval()) {
+			case WG_APPROVED:
+				return 0;
+			case WG_DEPRECATED:
+				return 2;
+			default:
+				return 1;
+		}
+	}
+
+	private long getDuration(String key, long estimate) {
+		Long duration = durations.get(key);
+		return duration != null ? duration : estimate;
+	}
+
+	/**
+	 * @return the duration to assume for tests with no history, the average
+	 *         of the candidates that have one
+	 */
+	private long getDefaultDuration(List<ITestNGMethod> candidates) {
+		long known = 0;
+		int knownCount = 0;
+		for (ITestNGMethod method : candidates) {
+			Long duration = durations.get(getKey(method));
+			if (duration != null) {
+				known += duration;
+				knownCount++;
+			}
+		}
+
+		return knownCount > 0 ? known / knownCount : DEFAULT_DURATION;
+	}
+
+	/**
+	 * @return the tests among the candidates the method depends on
+	 */
+	private static List<ITestNGMethod> getDependencies(ITestNGMethod method, List<ITestNGMethod> candidates) {
+		List<ITestNGMethod> dependencies = new ArrayList<>();
+		for (String dependency : method.getMethodsDependedUpon()) {
+			for (ITestNGMethod candidate : candidates) {
+				if (candidate.getTestClass() == method.getTestClass()
+						&& dependency.endsWith("." + candidate.getMethodName())) {
+					dependencies.add(candidate);
+				}
+			}
+		}
+
+		return dependencies;
+	}
+}
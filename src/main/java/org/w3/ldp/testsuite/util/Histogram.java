@@ -0,0 +1,153 @@
+package org.w3.ldp.testsuite.util;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of non-negative values with log-linear buckets, in
+ * the style of HdrHistogram. Values below 128 are recorded exactly. Larger
+ * values land in one of 64 buckets per power of two, so any value read back
+ * is within about 1.5% of what was recorded, no matter how wide the range.
+ * <p/>
+ * Units are up to the caller. The suite records latencies in microseconds.
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS; // 128
+	private static final int HALF_COUNT = SUB_BUCKET_COUNT / 2; // 64
+	private static final int BUCKETS = SUB_BUCKET_COUNT + (64 - SUB_BUCKET_BITS) * HALF_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long value) {
+		record(value, 1);
+	}
+
+	/**
+	 * Records the same value several times at once.
+	 */
+	public void record(long value, long count) {
+		if (value < 0) {
+			throw new IllegalArgumentException("ERROR: histogram values can't be negative: " + value);
+		}
+		if (count <= 0) {
+			return;
+		}
+
+		counts.addAndGet(indexOf(value), count);
+		totalCount.addAndGet(count);
+		sum.addAndGet(value * count);
+
+		long current;
+		while (value < (current = min.get()) && !min.compareAndSet(current, value));
+		while (value > (current = max.get()) && !max.compareAndSet(current, value));
+	}
+
+	/**
+	 * Adds all values recorded in another histogram to this one.
+	 */
+	public void add(Histogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long count = other.counts.get(i);
+			if (count != 0) {
+				counts.addAndGet(i, count);
+			}
+		}
+		totalCount.addAndGet(other.totalCount.get());
+		sum.addAndGet(other.sum.get());
+
+		long current;
+		long otherMin = other.min.get();
+		while (otherMin < (current = min.get()) && !min.compareAndSet(current, otherMin));
+		long otherMax = other.max.get();
+		while (otherMax > (current = max.get()) && !max.compareAndSet(current, otherMax));
+	}
+
+	public long getTotalCount() {
+		return totalCount.get();
+	}
+
+	public long getMin() {
+		return totalCount.get() == 0 ? 0 : min.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long count = totalCount.get();
+		return count == 0 ? 0 : (double) sum.get() / count;
+	}
+
+	/**
+	 * @param percentile a percentile between 0 and 100, such as 99.9
+	 * @return the highest value (within the histogram's precision) at or below
+	 *         which the given percentage of recorded values fall
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = totalCount.get();
+		if (count == 0) {
+			return 0;
+		}
+
+		long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return Math.min(highestValueAt(i), getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * @return the count of each non-empty bucket, keyed by the highest value
+	 *         the bucket holds, or by the maximum for the last one. Recording
+	 *         each entry again with {@link #record(long, long)} gives back
+	 *         the same percentiles and maximum.
+	 */
+	public SortedMap<Long, Long> getBuckets() {
+		SortedMap<Long, Long> buckets = new TreeMap<Long, Long>();
+		long max = getMax();
+		for (int i = 0; i < BUCKETS; i++) {
+			long count = counts.get(i);
+			if (count != 0) {
+				buckets.put(Math.min(highestValueAt(i), max), count);
+			}
+		}
+
+		return buckets;
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		// Keep the top 7 bits of the value. The shift is the bucket, the
+		// remaining 64..127 is the position within it.
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * HALF_COUNT + subBucket - HALF_COUNT;
+	}
+
+	private static long highestValueAt(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int shift = (index - SUB_BUCKET_COUNT) / HALF_COUNT + 1;
+		long subBucket = (index - SUB_BUCKET_COUNT) % HALF_COUNT + HALF_COUNT;
+		return (subBucket << shift) + (1L << shift) - 1;
+	}
+}
@@ -185,6 +185,19 @@ public class LDP {
 	 */
 	public static final URI NonRDFSource;
 
+	/**
+	 * Page
+	 * <p/>
+	 * {@code http://www.w3.org/ns/ldp#Page}.
+	 * <p/>
+	 * URI signifying that the resource is an in-sequence page resource, as
+	 * defined by LDP Paging. Typically used on Link rel='type' response
+	 * headers.
+	 *
+	 * @see <a href="http://www.w3.org/ns/ldp#Page">Page</a>
+	 */
+	public static final URI Page;
+
 	/**
 	 * PreferContainment
 	 * <p/>
@@ -263,6 +276,7 @@ public class LDP {
 		membershipResource = factory.createURI(LDP.NAMESPACE, "membershipResource");
 		MemberSubject = factory.createURI(LDP.NAMESPACE, "MemberSubject");
 		NonRDFSource = factory.createURI(LDP.NAMESPACE, "NonRDFSource");
+		Page = factory.createURI(LDP.NAMESPACE, "Page");
 		PreferContainment = factory.createURI(LDP.NAMESPACE, "PreferContainment");
 		PreferEmptyContainer = factory.createURI(LDP.NAMESPACE, "PreferEmptyContainer");
 		PreferMembership = factory.createURI(LDP.NAMESPACE, "PreferMembership");